@@ -0,0 +1,121 @@
+package net.acomputerdog.OBFUtil.bench;
+
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures method lookups in a DirectOBFTableSRG with Bloom filters on and off, for names that are mapped ("hit") and
+ * names that are not ("miss").  Queries are separate String instances from the names in the table, as they are when
+ * names come from another file, and their hashes are computed during setup.
+ * <p/>
+ * The "mixed" benchmark shuffles hits in among misses at each hitFraction, so that the branch on the filter result is
+ * not perfectly predictable as it is in the other two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BloomFilterBenchmark {
+    private static final int QUERIES = 4096;
+
+    @Param({"4000", "40000"})
+    private int entries;
+
+    @Param({"false", "true"})
+    private boolean filtered;
+
+    private DirectOBFTableSRG table;
+    private String[] hits;
+    private String[] misses;
+
+    @Setup
+    public void setup() {
+        table = new DirectOBFTableSRG();
+        for (int index = 0; index < entries; index++) {
+            table.addMethodSRG(obfName(index), "func_" + index + "_a (I)V", "net.minecraft.Class" + index % 4000 + ".method" + index + " (I)V");
+        }
+        if (filtered) {
+            table.enableBloomFilters(0.01);
+        }
+        hits = new String[QUERIES];
+        misses = new String[QUERIES];
+        for (int index = 0; index < QUERIES; index++) {
+            hits[index] = new String(obfName(index * 7919 % entries));
+            misses[index] = new String(obfName(entries + index));
+            hits[index].hashCode();
+            misses[index].hashCode();
+        }
+    }
+
+    /**
+     * Queries with a fraction of hits shuffled in among misses.  Kept in a separate state so that hitFraction does not
+     * multiply the runs of the pure hit and miss benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class MixedQueries {
+        @Param({"0.1", "0.5", "0.9"})
+        private double hitFraction;
+
+        private String[] queries;
+
+        @Setup
+        public void setup(BloomFilterBenchmark benchmark) {
+            int hitCount = (int) Math.round(QUERIES * hitFraction);
+            queries = new String[QUERIES];
+            System.arraycopy(benchmark.hits, 0, queries, 0, hitCount);
+            System.arraycopy(benchmark.misses, hitCount, queries, hitCount, QUERIES - hitCount);
+            Random random = new Random(42);
+            for (int index = QUERIES - 1; index > 0; index--) {
+                int other = random.nextInt(index + 1);
+                String query = queries[index];
+                queries[index] = queries[other];
+                queries[other] = query;
+            }
+        }
+    }
+
+    private static String obfName(int index) {
+        return "c" + index % 4000 + ".m" + index + " (I)V";
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void hit(Blackhole blackhole) {
+        for (String name : hits) {
+            blackhole.consume(table.deobfMethod(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void miss(Blackhole blackhole) {
+        for (String name : misses) {
+            blackhole.consume(table.deobfMethod(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void mixed(MixedQueries mixed, Blackhole blackhole) {
+        for (String name : mixed.queries) {
+            blackhole.consume(table.deobfMethod(name));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package net.acomputerdog.OBFUtil.bench;
+
+import net.acomputerdog.OBFUtil.table.ConcurrentOBFTable;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.OBFTableSRG;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lookups from several reader threads while one writer keeps re-adding mappings, as a remapper does during a
+ * hot reload.  "concurrent" uses a ConcurrentOBFTable.  "locked" uses a DirectOBFTableSRG with every call made under
+ * one global lock, which is how a plain table has to be shared.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContentionBenchmark {
+    @Param({"concurrent", "locked"})
+    private String table;
+
+    @Param("40000")
+    private int entries;
+
+    private OBFTableSRG mappings;
+    private boolean locked;
+    private String[] obfNames;
+
+    @Setup
+    public void setup() {
+        locked = table.equals("locked");
+        mappings = locked ? new DirectOBFTableSRG() : new ConcurrentOBFTable();
+        obfNames = new String[entries];
+        for (int index = 0; index < entries; index++) {
+            obfNames[index] = "c" + index % 4000 + ".m" + index + " (I)V";
+            mappings.addMethodSRG(obfNames[index], "func_" + index + "_a (I)V", "net.minecraft.Class" + index % 4000 + ".method" + index + " (I)V");
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public String read(Position position) {
+        String obfName = obfNames[position.next(obfNames.length)];
+        if (locked) {
+            synchronized (this) {
+                return mappings.deobfMethod(obfName);
+            }
+        }
+        return mappings.deobfMethod(obfName);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void write(Position position) {
+        int index = position.next(obfNames.length);
+        String deobfName = "net.minecraft.Class" + index % 4000 + ".reloaded" + index + " (I)V";
+        if (locked) {
+            synchronized (this) {
+                mappings.addMethodSRG(obfNames[index], "func_" + index + "_a (I)V", deobfName);
+            }
+        } else {
+            mappings.addMethodSRG(obfNames[index], "func_" + index + "_a (I)V", deobfName);
+        }
+    }
+
+    /**
+     * A per-thread pseudo-random walk over the mappings.
+     */
+    @State(Scope.Thread)
+    public static class Position {
+        private int seed = (int) System.nanoTime() | 1;
+
+        int next(int bound) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return (seed & Integer.MAX_VALUE) % bound;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.acomputerdog.OBFUtil.bench;
+
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.util.StringPool;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Reports the heap retained by a joined.srg loaded into DirectOBFTableSRGs, with and without a shared StringPool.  The
+ * file is loaded once for the client side, and once into a table per side, which is where a shared pool pays off: most
+ * records of a joined.srg have no side marker and are loaded into both tables.  Retained sizes include the pool.
+ * <p/>
+ * Usage: FootprintReport [joined.srg].  Without a file, a synthetic joined.srg of 60000 records is used, with one record
+ * in ten marked for a single side.  Run with a fixed heap, such as -Xms1g -Xmx1g, so that the collections before each
+ * measurement are complete.
+ */
+public class FootprintReport {
+    private static final int SYNTHETIC_ENTRIES = 60000;
+
+    /**
+     * Keeps the loaded tables reachable while the heap is measured.
+     */
+    private static Object retained;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        File file = args.length > 0 ? new File(args[0]) : writeJoined(SYNTHETIC_ENTRIES);
+        // Load once first so that class loading is not counted.
+        measure(file, true, "C");
+        System.out.println("File: " + (args.length > 0 ? file.getPath() : "synthetic joined.srg, " + SYNTHETIC_ENTRIES + " records"));
+        report("Client side", measure(file, false, "C"), measure(file, true, "C"));
+        report("Both sides", measure(file, false, "C", "S"), measure(file, true, "C", "S"));
+    }
+
+    private static void report(String name, long unpooled, long pooled) {
+        System.out.println(name + ": " + unpooled / 1024 + " KiB without a pool, " + pooled / 1024 + " KiB with a StringPool (" + (pooled * 100 / unpooled) + "%)");
+    }
+
+    private static long measure(File file, boolean pooled, String... sides) throws IOException, InterruptedException {
+        retained = null;
+        long before = usedHeap();
+        StringPool pool = pooled ? new StringPool() : null;
+        DirectOBFTableSRG[] tables = new DirectOBFTableSRG[sides.length];
+        for (int index = 0; index < sides.length; index++) {
+            SRGFileParser parser = new SRGFileParser(sides[index], false);
+            parser.setStringPool(pool);
+            tables[index] = new DirectOBFTableSRG(pool);
+            parser.loadEntries(file, tables[index], true);
+        }
+        retained = new Object[]{tables, pool};
+        return usedHeap() - before;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int index = 0; index < 5; index++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Writes a synthetic joined.srg in which only one record in ten has a side marker.
+     */
+    private static File writeJoined(int entries) throws IOException {
+        File file = File.createTempFile("joined", ".srg");
+        file.deleteOnExit();
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            String[] lines = SyntheticMappings.srgLines(entries);
+            for (int index = 0; index < lines.length; index++) {
+                String line = lines[index];
+                out.write(index % 10 == 0 ? line : line.substring(0, line.lastIndexOf(" #")));
+                out.write('\n');
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
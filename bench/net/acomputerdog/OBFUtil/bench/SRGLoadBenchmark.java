@@ -0,0 +1,61 @@
+package net.acomputerdog.OBFUtil.bench;
+
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a synthetic joined.srg into a DirectOBFTableSRG.  Loading without overwrite checks every record with
+ * hasTypeObf() first, which was quadratic while membership was checked by scanning lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SRGLoadBenchmark {
+    @Param("100000")
+    private int entries;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = SyntheticMappings.writeSRG(entries);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public DirectOBFTableSRG loadOverwrite() throws IOException {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        new SRGFileParser("C", false).loadEntries(file, table, true);
+        return table;
+    }
+
+    @Benchmark
+    public DirectOBFTableSRG loadKeepExisting() throws IOException {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        new SRGFileParser("C", false).loadEntries(file, table, false);
+        return table;
+    }
+}
@@ -0,0 +1,75 @@
+package net.acomputerdog.OBFUtil.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Generates mapping files shaped like an MCP joined.srg, for benchmarks that need a file of a given size.
+ * <p/>
+ * Out of every 100 records, 10 are classes, 35 are fields, and 55 are methods, with one package per 1000 records.
+ * Classes are spread over packages and members over classes, so owners have realistic numbers of members.  Records
+ * alternate between the client and server sides.
+ */
+final class SyntheticMappings {
+    private SyntheticMappings() {
+    }
+
+    /**
+     * Writes a synthetic SRG file to a temporary file.
+     *
+     * @param entries The number of records to write.
+     * @return Return the file, which is deleted when the JVM exits.
+     * @throws IOException If the file could not be written.
+     */
+    static File writeSRG(int entries) throws IOException {
+        File file = File.createTempFile("synthetic", ".srg");
+        file.deleteOnExit();
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            for (String line : srgLines(entries)) {
+                out.write(line);
+                out.write('\n');
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Generates the lines of a synthetic SRG file.
+     *
+     * @param entries The number of records to generate.
+     * @return Return an array of lines, without line terminators.
+     */
+    static String[] srgLines(int entries) {
+        String[] lines = new String[entries];
+        int classes = Math.max(1, entries / 10);
+        for (int index = 0; index < entries; index++) {
+            String side = (index & 1) == 0 ? " #C" : " #S";
+            int slot = index % 100;
+            int owner = index % classes;
+            if (index % 1000 == 0) {
+                lines[index] = "PK: p" + index / 1000 + " net/minecraft/pkg" + index / 1000 + side;
+            } else if (slot < 10) {
+                lines[index] = "CL: " + obfClass(owner) + " " + deobfClass(owner) + side;
+            } else if (slot < 45) {
+                lines[index] = "FD: " + obfClass(owner) + "/f" + index + " " + deobfClass(owner) + "/field_" + index + "_a" + side;
+            } else {
+                lines[index] = "MD: " + obfClass(owner) + "/m" + index + " (ILjava/lang/String;)V " + deobfClass(owner) + "/func_" + index + "_a (ILjava/lang/String;)V" + side;
+            }
+        }
+        return lines;
+    }
+
+    private static String obfClass(int index) {
+        return "c" + Integer.toString(index, 36);
+    }
+
+    private static String deobfClass(int index) {
+        return "net/minecraft/pkg" + (index % 50) + "/Class" + index;
+    }
+}
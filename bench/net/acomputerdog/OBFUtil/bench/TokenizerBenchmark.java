@@ -0,0 +1,111 @@
+package net.acomputerdog.OBFUtil.bench;
+
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding SRG lines with LineTokenizer to the String.split() based code the parsers used before.  Both
+ * paths decode the same lines into the names that would be stored, and skip lines of the other side.  No table is
+ * involved, so only tokenizing and String creation are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TokenizerBenchmark {
+    private static final String SIDE = "C";
+
+    @Param("100000")
+    private int entries;
+
+    private String[] lines;
+
+    @Setup
+    public void setup() {
+        lines = SyntheticMappings.srgLines(entries);
+    }
+
+    /**
+     * The line decoding of SRGFileParser before LineTokenizer was added.
+     */
+    @Benchmark
+    public void split(Blackhole blackhole) {
+        for (String str : lines) {
+            String[] sections = str.split(" ");
+            TargetType type = TargetType.getType(sections[0].replace(":", ""));
+            String obf;
+            String deobf;
+            String side;
+            if (type == TargetType.METHOD) {
+                obf = sections[1].replace('/', '.').concat(" ").concat(sections[2].replace('/', '.'));
+                deobf = sections[3].replace('/', '.').concat(" ").concat(sections[4].replace('/', '.'));
+                side = (sections.length >= 6) ? sections[5].replace("#", "") : "";
+            } else {
+                obf = sections[1].replace('/', '.');
+                deobf = sections[2].replace('/', '.');
+                side = (sections.length >= 4) ? sections[3].replace("#", "") : "";
+            }
+            if (side.isEmpty() || side.equals(SIDE)) {
+                blackhole.consume(type);
+                blackhole.consume(obf);
+                blackhole.consume(deobf);
+            }
+        }
+    }
+
+    /**
+     * The line decoding of SRGFileParser with LineTokenizer.
+     */
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) {
+        LineTokenizer tokens = new LineTokenizer();
+        int[] sections = new int[12];
+        for (String str : lines) {
+            int numSections = tokens.reset(str).split(' ', sections);
+            int typeEnd = sections[1];
+            if (typeEnd > sections[0] && str.charAt(typeEnd - 1) == ':') {
+                typeEnd--;
+            }
+            TargetType type = tokens.getType(sections[0], typeEnd);
+            int sideSection = type == TargetType.METHOD ? 5 : 3;
+            if (numSections > sideSection) {
+                int start = sections[sideSection * 2];
+                int end = sections[sideSection * 2 + 1];
+                while (start < end && str.charAt(start) == '#') {
+                    start++;
+                }
+                if (start != end && !tokens.regionEquals(start, end, SIDE)) {
+                    continue;
+                }
+            }
+            String obf;
+            String deobf;
+            if (type == TargetType.METHOD) {
+                obf = tokens.join(sections[2], sections[3], ' ', sections[4], sections[5], '/', '.');
+                deobf = tokens.join(sections[6], sections[7], ' ', sections[8], sections[9], '/', '.');
+            } else {
+                obf = tokens.substring(sections[2], sections[3], '/', '.');
+                deobf = tokens.substring(sections[4], sections[5], '/', '.');
+            }
+            blackhole.consume(type);
+            blackhole.consume(obf);
+            blackhole.consume(deobf);
+        }
+    }
+}
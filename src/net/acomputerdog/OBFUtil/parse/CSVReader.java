@@ -0,0 +1,309 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.util.StringPool;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads records from a CSV file one at a time, following RFC 4180.
+ * <p/>
+ * Fields are separated by commas and records by "\n", "\r\n", or "\r".  A field may be enclosed in double quotes, in
+ * which case it may contain commas, line breaks, and quotes written as two double quotes ("").  Fields are returned
+ * exactly as written, without trimming.  The underlying reader is buffered internally.
+ * <p/>
+ * readRawRecord() reads a record without creating any Strings.  Its fields can then be inspected in place with
+ * isBlank() and parseInt(), and only turned into Strings with getField() or getRecord() if the record is wanted.
+ * <p/>
+ * A CSVReader is not thread-safe.
+ */
+public class CSVReader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final StringPool pool;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferPos = 0;
+    private int bufferEnd = 0;
+    private char[] recordChars = new char[64];
+    private int recordLength;
+    private int[] fieldBounds = new int[16];
+    private int fieldCount;
+    private int line = 1;
+    private int recordLine = 1;
+    private boolean eof = false;
+
+    /**
+     * Creates a new CSVReader that creates a new String for every field.
+     *
+     * @param in The reader to read from.
+     */
+    public CSVReader(Reader in) {
+        this(in, null);
+    }
+
+    /**
+     * Creates a new CSVReader.
+     *
+     * @param in   The reader to read from.
+     * @param pool The StringPool to take fields from, or null to create a new String for every field.
+     */
+    public CSVReader(Reader in, StringPool pool) {
+        if (in == null) {
+            throw new IllegalArgumentException("Reader must not be null!");
+        }
+        this.in = in;
+        this.pool = pool;
+    }
+
+    /**
+     * Reads the next record into a new array.
+     *
+     * @return Return the fields of the record, or null if the end of the input was reached.
+     * @throws IOException If the input could not be read or contains an unterminated quoted field.
+     */
+    public String[] readRecord() throws IOException {
+        int count = readRawRecord();
+        if (count < 0) {
+            return null;
+        }
+        String[] fields = new String[count];
+        getRecord(fields);
+        return fields;
+    }
+
+    /**
+     * Reads the next record into an existing array.  If the record has fewer fields than the array, the remaining
+     * elements are set to an empty String.  If it has more, the extra fields are skipped.
+     *
+     * @param record The array to fill.
+     * @return Return the number of fields in the record, or -1 if the end of the input was reached.
+     * @throws IOException If the input could not be read or contains an unterminated quoted field.
+     */
+    public int readRecord(String[] record) throws IOException {
+        int count = readRawRecord();
+        if (count >= 0) {
+            getRecord(record);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the next record without creating any Strings.  The fields stay available through getField(), isBlank(),
+     * and parseInt() until the next record is read.
+     *
+     * @return Return the number of fields in the record, or -1 if the end of the input was reached.
+     * @throws IOException If the input could not be read or contains an unterminated quoted field.
+     */
+    public int readRawRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        if (!startRecord()) {
+            return -1;
+        }
+        boolean more;
+        do {
+            int start = recordLength;
+            more = readField();
+            if (fieldCount * 2 == fieldBounds.length) {
+                int[] newBounds = new int[fieldBounds.length * 2];
+                System.arraycopy(fieldBounds, 0, newBounds, 0, fieldBounds.length);
+                fieldBounds = newBounds;
+            }
+            fieldBounds[fieldCount * 2] = start;
+            fieldBounds[fieldCount * 2 + 1] = recordLength;
+            fieldCount++;
+        } while (more);
+        return fieldCount;
+    }
+
+    /**
+     * Copies the fields of the last record read into an existing array.  If the record has fewer fields than the array,
+     * the remaining elements are set to an empty String.  If it has more, the extra fields are skipped.
+     *
+     * @param record The array to fill.
+     */
+    public void getRecord(String[] record) {
+        for (int index = 0; index < record.length; index++) {
+            record[index] = index < fieldCount ? getField(index) : "";
+        }
+    }
+
+    /**
+     * Gets a field of the last record read as a String.
+     *
+     * @param index The index of the field.
+     * @return Return the field, or an empty String if the record does not have that many fields.
+     */
+    public String getField(int index) {
+        if (index >= fieldCount) {
+            return "";
+        }
+        int start = fieldBounds[index * 2];
+        int end = fieldBounds[index * 2 + 1];
+        if (start == end) {
+            return "";
+        }
+        return pool != null ? pool.intern(recordChars, start, end - start) : new String(recordChars, start, end - start);
+    }
+
+    /**
+     * Checks if a field of the last record read is empty or only contains whitespace.  A missing field is blank.
+     *
+     * @param index The index of the field.
+     * @return Return true if the field is blank.
+     */
+    public boolean isBlank(int index) {
+        if (index >= fieldCount) {
+            return true;
+        }
+        for (int pos = fieldBounds[index * 2]; pos < fieldBounds[index * 2 + 1]; pos++) {
+            if (!Character.isWhitespace(recordChars[pos])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field of the last record read as a decimal integer, without creating a String.  Surrounding whitespace
+     * is ignored, the same as String.trim(), so " 1" and "01" are both read as 1.
+     *
+     * @param index The index of the field.
+     * @return Return the parsed integer.
+     * @throws NumberFormatException If the field is missing or is not a valid integer.
+     */
+    public int parseInt(int index) {
+        if (index >= fieldCount) {
+            throw new NumberFormatException("Missing field " + index + " on line " + recordLine);
+        }
+        int start = fieldBounds[index * 2];
+        int end = fieldBounds[index * 2 + 1];
+        while (start < end && recordChars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && recordChars[end - 1] <= ' ') {
+            end--;
+        }
+        int pos = start;
+        boolean negative = pos < end && recordChars[pos] == '-';
+        if (negative || (pos < end && recordChars[pos] == '+')) {
+            pos++;
+        }
+        if (pos == end) {
+            throw new NumberFormatException("For input string: \"" + new String(recordChars, start, end - start) + "\"");
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = recordChars[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + new String(recordChars, start, end - start) + "\"");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + new String(recordChars, start, end - start) + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + new String(recordChars, start, end - start) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Gets the line number that the last record read started on.
+     *
+     * @return Return the line number, starting at 1.
+     */
+    public int getLineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException If the reader could not be closed.
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean startRecord() throws IOException {
+        recordLine = line;
+        return peek() != -1;
+    }
+
+    /**
+     * Reads one field onto the end of the record buffer.
+     *
+     * @return Return true if another field follows in the same record.
+     */
+    private boolean readField() throws IOException {
+        int chr = read();
+        if (chr == '"') {
+            int quoteLine = line;
+            while (true) {
+                chr = read();
+                if (chr == -1) {
+                    throw new FormatException("Unterminated quoted field starting on line " + quoteLine);
+                }
+                if (chr == '"') {
+                    if (peek() != '"') {
+                        break;
+                    }
+                    read();
+                } else if (chr == '\n' || (chr == '\r' && peek() != '\n')) {
+                    line++;
+                }
+                append((char) chr);
+            }
+            chr = read();
+        }
+        // Unquoted field, or characters following the closing quote of a quoted one.
+        while (chr != -1 && chr != ',' && chr != '\n' && chr != '\r') {
+            append((char) chr);
+            chr = read();
+        }
+        if (chr == '\r' && peek() == '\n') {
+            read();
+        }
+        if (chr == '\n' || chr == '\r') {
+            line++;
+        }
+        return chr == ',';
+    }
+
+    private void append(char chr) {
+        if (recordLength == recordChars.length) {
+            char[] newRecord = new char[recordChars.length * 2];
+            System.arraycopy(recordChars, 0, newRecord, 0, recordLength);
+            recordChars = newRecord;
+        }
+        recordChars[recordLength++] = chr;
+    }
+
+    private int read() throws IOException {
+        int chr = peek();
+        if (chr != -1) {
+            bufferPos++;
+        }
+        return chr;
+    }
+
+    private int peek() throws IOException {
+        if (bufferPos == bufferEnd) {
+            if (eof) {
+                return -1;
+            }
+            bufferEnd = in.read(buffer, 0, buffer.length);
+            bufferPos = 0;
+            if (bufferEnd <= 0) {
+                bufferEnd = 0;
+                eof = true;
+                return -1;
+            }
+        }
+        return buffer[bufferPos];
+    }
+}
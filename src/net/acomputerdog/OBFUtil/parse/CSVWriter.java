@@ -0,0 +1,83 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes records to a CSV file one at a time, following RFC 4180.  Fields that contain commas, quotes, or line breaks
+ * are enclosed in double quotes, with quotes doubled.  Records are separated by "\n", with no separator after the last.
+ */
+public class CSVWriter {
+    private final Writer out;
+    private boolean firstRecord = true;
+
+    /**
+     * Creates a new CSVWriter.
+     *
+     * @param out The writer to write to.  Should be buffered.
+     */
+    public CSVWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer must not be null!");
+        }
+        this.out = out;
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param fields The fields of the record.  Null fields are written as empty fields.
+     * @throws IOException If the record could not be written.
+     */
+    public void writeRecord(String... fields) throws IOException {
+        if (!firstRecord) {
+            out.write('\n');
+        }
+        firstRecord = false;
+        for (int index = 0; index < fields.length; index++) {
+            if (index > 0) {
+                out.write(',');
+            }
+            writeField(fields[index]);
+        }
+    }
+
+    /**
+     * Flushes and closes the underlying writer.
+     *
+     * @throws IOException If the writer could not be closed.
+     */
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        if (!needsQuotes(field)) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        int quote;
+        while ((quote = field.indexOf('"', start)) >= 0) {
+            out.write(field, start, quote + 1 - start);
+            out.write('"');
+            start = quote + 1;
+        }
+        out.write(field, start, field.length() - start);
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int index = 0; index < field.length(); index++) {
+            char chr = field.charAt(index);
+            if (chr == ',' || chr == '"' || chr == '\n' || chr == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
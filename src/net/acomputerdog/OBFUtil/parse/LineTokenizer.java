@@ -0,0 +1,373 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+/**
+ * Splits a line of a mapping file into tokens by scanning it by index.  Unlike String.split(), no regex is compiled or
+ * run and no array or substring is created while scanning; Strings are only built for the tokens that are actually requested.
+ * <p/>
+ * Tokens are split in the same way as String.split() with a single character: empty tokens between delimiters are
+ * kept, but trailing empty tokens are dropped.
+ * <p/>
+ * If a StringPool is provided, every String built by the tokenizer is taken from the pool, and no String is created at
+ * all for names that are already pooled.
+ * <p/>
+ * A LineTokenizer is reusable but not thread-safe.  Call reset() to start scanning a new line.
+ */
+public class LineTokenizer {
+    private final StringPool pool;
+    private CharSequence line;
+    private int lineStart;
+    private int lineEnd;
+    private int pos;
+    private int tokenStart;
+    private int tokenEnd;
+    private char[] buffer = new char[64];
+
+    /**
+     * Creates a new LineTokenizer that does not pool Strings.
+     */
+    public LineTokenizer() {
+        this(null);
+    }
+
+    /**
+     * Creates a new LineTokenizer.
+     *
+     * @param pool The StringPool to take Strings from, or null to create new Strings.
+     */
+    public LineTokenizer(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Starts scanning a new line.
+     *
+     * @param line The line to scan.
+     * @return Return this LineTokenizer.
+     */
+    public LineTokenizer reset(CharSequence line) {
+        return reset(line, 0, line.length());
+    }
+
+    /**
+     * Starts scanning a region of a character sequence as a line.
+     *
+     * @param line  The sequence containing the line.
+     * @param start The index of the first character of the line.
+     * @param end   The index after the last character of the line.
+     * @return Return this LineTokenizer.
+     */
+    public LineTokenizer reset(CharSequence line, int start, int end) {
+        this.line = line;
+        this.lineStart = start;
+        this.lineEnd = end;
+        this.pos = start;
+        this.tokenStart = start;
+        this.tokenEnd = start;
+        return this;
+    }
+
+    /**
+     * Gets the line being scanned.
+     *
+     * @return Return the line being scanned.
+     */
+    public CharSequence getLine() {
+        return line;
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @param delimiter The character that ends the token.
+     * @return Return true if a token was found, false if the end of the line was reached.
+     */
+    public boolean next(char delimiter) {
+        if (pos > lineEnd) {
+            return false;
+        }
+        int end = indexOf(delimiter, pos, lineEnd);
+        if (end < 0) {
+            end = lineEnd;
+        }
+        if (end == pos && isOnly(delimiter, pos, lineEnd)) {
+            pos = lineEnd + 1;
+            return false;
+        }
+        tokenStart = pos;
+        tokenEnd = end;
+        pos = end + 1;
+        return true;
+    }
+
+    /**
+     * Reads the remaining tokens of the line into an array of start and end indexes.
+     *
+     * @param delimiter The character that separates tokens.
+     * @param bounds    The array to fill.  Token n starts at bounds[n * 2] and ends at bounds[n * 2 + 1].
+     * @return Return the number of tokens read, which is at most bounds.length / 2.
+     */
+    public int split(char delimiter, int[] bounds) {
+        int count = 0;
+        while (count * 2 + 1 < bounds.length && next(delimiter)) {
+            bounds[count * 2] = tokenStart;
+            bounds[count * 2 + 1] = tokenEnd;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the index of the first character of the current token.
+     *
+     * @return Return the start index of the token.
+     */
+    public int start() {
+        return tokenStart;
+    }
+
+    /**
+     * Gets the index after the last character of the current token.
+     *
+     * @return Return the end index of the token.
+     */
+    public int end() {
+        return tokenEnd;
+    }
+
+    /**
+     * Gets the current token as a String.
+     *
+     * @return Return the current token.
+     */
+    public String token() {
+        return substring(tokenStart, tokenEnd);
+    }
+
+    /**
+     * Checks if the current token is equal to a String.
+     *
+     * @param str The String to compare to.
+     * @return Return true if the token has the same characters as str.
+     */
+    public boolean tokenEquals(String str) {
+        return regionEquals(tokenStart, tokenEnd, str);
+    }
+
+    /**
+     * Checks if the line only contains whitespace, or is a comment starting with "#" or "//".
+     *
+     * @return Return true if the line should be skipped.
+     */
+    public boolean isCommentLine() {
+        int start = lineStart;
+        while (start < lineEnd && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        if (start == lineEnd) {
+            return true;
+        }
+        char chr = line.charAt(start);
+        return chr == '#' || (chr == '/' && start + 1 < lineEnd && line.charAt(start + 1) == '/');
+    }
+
+    /**
+     * Gets the index of a character in a region of the line.
+     *
+     * @param chr   The character to find.
+     * @param start The index to start searching at.
+     * @param end   The index to stop searching at.
+     * @return Return the index of chr, or -1 if it is not in the region.
+     */
+    public int indexOf(char chr, int start, int end) {
+        for (int index = start; index < end; index++) {
+            if (line.charAt(index) == chr) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the index of the last occurrence of a character in a region of the line.
+     *
+     * @param chr   The character to find.
+     * @param start The index to stop searching at.
+     * @param end   The index to start searching backwards from.
+     * @return Return the index of chr, or -1 if it is not in the region.
+     */
+    public int lastIndexOf(char chr, int start, int end) {
+        for (int index = end - 1; index >= start; index--) {
+            if (line.charAt(index) == chr) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if a region of the line is equal to a String.
+     *
+     * @param start The start of the region.
+     * @param end   The end of the region.
+     * @param str   The String to compare to.
+     * @return Return true if the region has the same characters as str.
+     */
+    public boolean regionEquals(int start, int end, String str) {
+        if (end - start != str.length()) {
+            return false;
+        }
+        for (int index = 0; index < str.length(); index++) {
+            if (line.charAt(start + index) != str.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the TargetType named by a region of the line, using the same names and aliases as TargetType.getType().
+     *
+     * @param start The start of the region.
+     * @param end   The end of the region.
+     * @return Return the TargetType identified by the region, or null if there is none.
+     */
+    public TargetType getType(int start, int end) {
+        return TargetType.getType(line, start, end);
+    }
+
+    /**
+     * Parses a region of the line as a decimal integer.
+     *
+     * @param start The start of the region.
+     * @param end   The end of the region.
+     * @return Return the parsed integer.
+     * @throws NumberFormatException If the region is not a valid integer.
+     */
+    public int parseInt(int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = line.charAt(start) == '-';
+        int index = negative ? start + 1 : start;
+        if (index == end) {
+            throw new NumberFormatException("For input string: \"" + line.subSequence(start, end) + "\"");
+        }
+        long value = 0;
+        for (; index < end; index++) {
+            int digit = line.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + line.subSequence(start, end) + "\"");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + line.subSequence(start, end) + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + line.subSequence(start, end) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Gets a region of the line as a String.
+     *
+     * @param start The start of the region.
+     * @param end   The end of the region.
+     * @return Return a String containing the region.
+     */
+    public String substring(int start, int end) {
+        if (pool != null) {
+            return pool.intern(line, start, end);
+        }
+        if (line instanceof String) {
+            return ((String) line).substring(start, end);
+        }
+        char[] chars = ensureBuffer(end - start);
+        for (int index = start; index < end; index++) {
+            chars[index - start] = line.charAt(index);
+        }
+        return newString(chars, end - start);
+    }
+
+    /**
+     * Gets a region of the line as a String, replacing one character with another.
+     *
+     * @param start The start of the region.
+     * @param end   The end of the region.
+     * @param from  The character to replace.
+     * @param to    The character to replace it with.
+     * @return Return a String containing the region.
+     */
+    public String substring(int start, int end, char from, char to) {
+        char[] chars = ensureBuffer(end - start);
+        int length = copy(chars, 0, start, end, from, to);
+        return newString(chars, length);
+    }
+
+    /**
+     * Joins two regions of the line into one String, separated by a character.
+     *
+     * @param start1    The start of the first region.
+     * @param end1      The end of the first region.
+     * @param separator The character to place between the regions.
+     * @param start2    The start of the second region.
+     * @param end2      The end of the second region.
+     * @return Return a String containing both regions.
+     */
+    public String join(int start1, int end1, char separator, int start2, int end2) {
+        return join(start1, end1, separator, start2, end2, separator, separator);
+    }
+
+    /**
+     * Joins two regions of the line into one String, separated by a character and replacing one character with another.
+     *
+     * @param start1    The start of the first region.
+     * @param end1      The end of the first region.
+     * @param separator The character to place between the regions.
+     * @param start2    The start of the second region.
+     * @param end2      The end of the second region.
+     * @param from      The character to replace.
+     * @param to        The character to replace it with.
+     * @return Return a String containing both regions.
+     */
+    public String join(int start1, int end1, char separator, int start2, int end2, char from, char to) {
+        char[] chars = ensureBuffer((end1 - start1) + 1 + (end2 - start2));
+        int length = copy(chars, 0, start1, end1, from, to);
+        chars[length++] = separator;
+        length = copy(chars, length, start2, end2, from, to);
+        return newString(chars, length);
+    }
+
+    private String newString(char[] chars, int length) {
+        return pool != null ? pool.intern(chars, 0, length) : new String(chars, 0, length);
+    }
+
+    private int copy(char[] chars, int offset, int start, int end, char from, char to) {
+        for (int index = start; index < end; index++) {
+            char chr = line.charAt(index);
+            chars[offset++] = (chr == from) ? to : chr;
+        }
+        return offset;
+    }
+
+    private boolean isOnly(char chr, int start, int end) {
+        for (int index = start; index < end; index++) {
+            if (line.charAt(index) != chr) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char[] ensureBuffer(int size) {
+        if (buffer.length < size) {
+            buffer = new char[Math.max(size, buffer.length * 2)];
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,303 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads lines from a memory-mapped file.  Lines are returned as a CharSequence view directly over the mapped bytes,
+ * so no Reader, decoder, or intermediate Strings are involved.  Each byte is read as one character (ISO-8859-1), which
+ * is exact for the ASCII-only SRG and BLOBF formats.
+ * <p/>
+ * The CharSequence returned by readLine() is reused and only valid until the next call.  A MappedLineReader is not thread-safe,
+ * but split() can divide a file between several readers for parallel parsing.
+ * <p/>
+ * close() unmaps the file right away instead of leaving it to the garbage collector, so the file can be written or
+ * deleted again afterwards, even on Windows.  If the JVM does not allow unmapping, the file is read into memory instead
+ * of being mapped.
+ */
+public class MappedLineReader implements Closeable {
+    private static final Unmapper UNMAPPER = Unmapper.find();
+
+    private final MappedLineReader owner;
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int limit;
+    private final Line line = new Line();
+    private int pos;
+    private boolean closed;
+
+    /**
+     * Maps a file for reading.
+     *
+     * @param file The file to map.  Must exist and be smaller than 2GB.
+     * @throws IOException If the file could not be mapped.
+     */
+    public MappedLineReader(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null!");
+        }
+        // The mapping stays valid after the channel is closed, so the file is only held until close() unmaps it.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + file.getPath());
+            }
+            this.buffer = UNMAPPER != null ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : readFully(channel, (int) size);
+            this.owner = this;
+            this.start = 0;
+            this.limit = (int) size;
+        }
+    }
+
+    private MappedLineReader(MappedLineReader owner, int start, int limit) {
+        this.owner = owner;
+        this.buffer = owner.buffer;
+        this.start = start;
+        this.limit = limit;
+        this.pos = start;
+    }
+
+    /**
+     * Splits the unread part of the file into ranges of whole lines, each read by its own MappedLineReader.  The
+     * readers share this reader's mapping and can be used from different threads at the same time.  Reading every
+     * range in order returns the same lines as reading this reader.  The readers can no longer be used once the reader
+     * that mapped the file is closed.
+     *
+     * @param count The number of ranges to split into.  Ranges are roughly equal in size, and some may be empty.
+     * @return Return an array of count readers, in file order.
+     */
+    public MappedLineReader[] split(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be at least 1!");
+        }
+        checkOpen();
+        MappedLineReader[] readers = new MappedLineReader[count];
+        int rangeStart = pos;
+        for (int index = 0; index < count; index++) {
+            int rangeEnd = index == count - 1 ? limit : nextLineStart(Math.max(rangeStart, pos + (int) ((long) (limit - pos) * (index + 1) / count)));
+            readers[index] = new MappedLineReader(owner, rangeStart, rangeEnd);
+            rangeStart = rangeEnd;
+        }
+        return readers;
+    }
+
+    /**
+     * Moves back to the first line of this reader.
+     */
+    public void rewind() {
+        pos = start;
+    }
+
+    /**
+     * Gets the position of the next line to be read.  The position can be passed to seek() to read the line again later.
+     *
+     * @return Return the offset of the next line in the file.
+     */
+    public int getPosition() {
+        return pos;
+    }
+
+    /**
+     * Moves to a position returned by getPosition().
+     *
+     * @param position The offset of the line to read next.
+     */
+    public void seek(int position) {
+        if (position < start || position > limit) {
+            throw new IllegalArgumentException("Position " + position + " is outside of the reader!");
+        }
+        pos = position;
+    }
+
+    /**
+     * Reads the next line.  Lines may be terminated by "\n", "\r\n", or "\r".
+     *
+     * @return Return a view of the next line without its terminator, or null if the end of the file was reached.
+     */
+    public CharSequence readLine() {
+        checkOpen();
+        if (pos >= limit) {
+            return null;
+        }
+        int start = pos;
+        int end = start;
+        while (end < limit) {
+            byte chr = buffer.get(end);
+            if (chr == '\n' || chr == '\r') {
+                break;
+            }
+            end++;
+        }
+        pos = end + 1;
+        if (end < limit && buffer.get(end) == '\r' && pos < limit && buffer.get(pos) == '\n') {
+            pos++;
+        }
+        line.set(start, end - start);
+        return line;
+    }
+
+    /**
+     * Unmaps the file.  Closing a reader returned by split() does nothing; only closing the reader that mapped the file
+     * releases it.  Lines that were read before throw an IllegalStateException if their characters are used afterwards.
+     */
+    @Override
+    public void close() {
+        if (owner != this || closed) {
+            return;
+        }
+        closed = true;
+        if (UNMAPPER != null) {
+            UNMAPPER.unmap((MappedByteBuffer) buffer);
+        }
+    }
+
+    private void checkOpen() {
+        if (owner.closed) {
+            throw new IllegalStateException("Reader is closed!");
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("File ended early!");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Finds the start of the first line beginning at or after a position.
+     */
+    private int nextLineStart(int from) {
+        if (from <= start || from >= limit) {
+            return Math.min(Math.max(from, start), limit);
+        }
+        byte prev = buffer.get(from - 1);
+        if (prev == '\n' || (prev == '\r' && buffer.get(from) != '\n')) {
+            return from;
+        }
+        while (from < limit) {
+            byte chr = buffer.get(from);
+            from++;
+            if (chr == '\n') {
+                break;
+            }
+            if (chr == '\r') {
+                if (from < limit && buffer.get(from) == '\n') {
+                    from++;
+                }
+                break;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Releases a mapping through the JVM's internal cleaner.  Java 9 and later expose it through
+     * sun.misc.Unsafe.invokeCleaner(), and Java 8 through the cleaner() method of the buffer itself.
+     */
+    private static abstract class Unmapper {
+        /**
+         * Finds the way to unmap buffers on this JVM.
+         *
+         * @return Return an Unmapper, or null if buffers can not be unmapped.
+         */
+        private static Unmapper find() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                final Object unsafe = theUnsafe.get(null);
+                return new Unmapper() {
+                    @Override
+                    protected void clean(MappedByteBuffer buffer) throws Exception {
+                        invokeCleaner.invoke(unsafe, buffer);
+                    }
+                };
+            } catch (NoSuchMethodException e) {
+                return findJava8();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        private static Unmapper findJava8() {
+            try {
+                final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return new Unmapper() {
+                    @Override
+                    protected void clean(MappedByteBuffer buffer) throws Exception {
+                        clean.invoke(cleaner.invoke(buffer));
+                    }
+                };
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        private void unmap(MappedByteBuffer buffer) {
+            try {
+                clean(buffer);
+            } catch (Exception e) {
+                // The mapping is released when the buffer is garbage collected instead.
+            }
+        }
+
+        protected abstract void clean(MappedByteBuffer buffer) throws Exception;
+    }
+
+    /**
+     * A CharSequence backed by a region of the mapped buffer.
+     */
+    private class Line implements CharSequence {
+        private int offset;
+        private int length;
+
+        private void set(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            checkOpen();
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+            }
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            checkOpen();
+            char[] chars = new char[length];
+            for (int index = 0; index < length; index++) {
+                chars[index] = (char) (buffer.get(offset + index) & 0xFF);
+            }
+            return new String(chars);
+        }
+    }
+}
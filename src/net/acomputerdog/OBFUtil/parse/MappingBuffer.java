@@ -0,0 +1,40 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+/**
+ * Records mappings in the order they are added so that they can be replayed into another MappingSink later.
+ */
+class MappingBuffer implements MappingSink {
+    private TargetType[] types = new TargetType[256];
+    private String[] names = new String[256 * 3];
+    private int size = 0;
+
+    @Override
+    public void addMapping(TargetType type, String obfName, String seargeName, String deObfName) {
+        if (size == types.length) {
+            TargetType[] newTypes = new TargetType[size * 2];
+            System.arraycopy(types, 0, newTypes, 0, size);
+            types = newTypes;
+            String[] newNames = new String[size * 2 * 3];
+            System.arraycopy(names, 0, newNames, 0, size * 3);
+            names = newNames;
+        }
+        types[size] = type;
+        names[size * 3] = obfName;
+        names[size * 3 + 1] = seargeName;
+        names[size * 3 + 2] = deObfName;
+        size++;
+    }
+
+    /**
+     * Adds every recorded mapping to a sink, in the order they were recorded.
+     *
+     * @param sink The sink to add to.
+     */
+    void replay(MappingSink sink) {
+        for (int index = 0; index < size; index++) {
+            sink.addMapping(types[index], names[index * 3], names[index * 3 + 1], names[index * 3 + 2]);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.util.Set;
+
+/**
+ * Selects which mappings a parser loads, by TargetType and by the owner of the deobfuscated name.
+ * <p/>
+ * Parsers check a filter against the raw characters of each record before any Strings are created, so skipped records
+ * cost little more than finding their fields.  Owner prefixes match whole package or class names, with '/' and '.'
+ * treated as the same separator: "net/minecraft/client" matches "net.minecraft.client.Foo" and
+ * "net/minecraft/client/gui/Gui", but not "net.minecraft.clientx.Foo".  Prefixes are only checked for formats whose
+ * names include their owner; MCP CSV names do not, so only the type is checked for them.
+ * <p/>
+ * MappingFilters are immutable and can be shared between parsers and threads.  Sides are selected by each sided parser's
+ * own side setting.
+ */
+public class MappingFilter {
+    private final boolean[] types = new boolean[TargetType.values().length];
+    private final String[] prefixes;
+
+    /**
+     * Creates a new MappingFilter.
+     *
+     * @param types         The types of mappings to accept.
+     * @param ownerPrefixes The owners that the deobfuscated name of a mapping must start with, any one of which may
+     *                      match.  If none are given, mappings with any owner are accepted.
+     */
+    public MappingFilter(Set<TargetType> types, String... ownerPrefixes) {
+        if (types == null) {
+            throw new IllegalArgumentException("Types must not be null!");
+        }
+        for (TargetType type : types) {
+            this.types[type.ordinal()] = true;
+        }
+        prefixes = new String[ownerPrefixes.length];
+        for (int index = 0; index < ownerPrefixes.length; index++) {
+            String prefix = ownerPrefixes[index].replace('/', '.');
+            while (prefix.endsWith(".")) {
+                prefix = prefix.substring(0, prefix.length() - 1);
+            }
+            prefixes[index] = prefix;
+        }
+    }
+
+    /**
+     * Checks if mappings of a TargetType are accepted.
+     *
+     * @param type The type to check.
+     * @return Return true if the type is accepted.
+     */
+    public boolean acceptsType(TargetType type) {
+        return types[type.ordinal()];
+    }
+
+    /**
+     * Checks if a deobfuscated name is accepted.
+     *
+     * @param name The name to check.
+     * @return Return true if the name starts with one of the owner prefixes, or if there are none.
+     */
+    public boolean acceptsName(String name) {
+        return acceptsName(name, 0, name.length());
+    }
+
+    /**
+     * Checks if a region of a CharSequence containing a deobfuscated name is accepted.
+     *
+     * @param seq   The sequence containing the name.
+     * @param start The start of the name.
+     * @param end   The end of the name.
+     * @return Return true if the name starts with one of the owner prefixes, or if there are none.
+     */
+    public boolean acceptsName(CharSequence seq, int start, int end) {
+        if (prefixes.length == 0) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (hasPrefix(seq, start, end, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a mapping is accepted.
+     *
+     * @param type The type of the mapping.
+     * @param seq   The sequence containing the deobfuscated name.
+     * @param start The start of the name.
+     * @param end   The end of the name.
+     * @return Return true if both the type and the name are accepted.
+     */
+    public boolean accepts(TargetType type, CharSequence seq, int start, int end) {
+        return acceptsType(type) && acceptsName(seq, start, end);
+    }
+
+    private static boolean hasPrefix(CharSequence seq, int start, int end, String prefix) {
+        int length = prefix.length();
+        if (end - start < length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            char chr = seq.charAt(start + index);
+            if ((chr == '/' ? '.' : chr) != prefix.charAt(index)) {
+                return false;
+            }
+        }
+        if (end - start == length || length == 0) {
+            return true;
+        }
+        char next = seq.charAt(start + length);
+        return next == '.' || next == '/';
+    }
+}
@@ -0,0 +1,19 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+/**
+ * Receives mappings as they are decoded by a parser.
+ */
+public interface MappingSink {
+
+    /**
+     * Adds a decoded mapping.
+     *
+     * @param type       The type of the mapping.
+     * @param obfName    The obfuscated name.
+     * @param seargeName The searge name, or null if the format does not contain one.
+     * @param deObfName  The deobfuscated name.
+     */
+    public void addMapping(TargetType type, String obfName, String seargeName, String deObfName);
+}
@@ -0,0 +1,158 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.util.StringPool;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Parses a memory-mapped, one-record-per-line file on a ForkJoinPool.
+ * <p/>
+ * The file is split into ranges of whole lines that are decoded in parallel, each into it's own buffer of mappings.
+ * The buffers are then replayed into the target sink one after another in file order, so the sink sees exactly the
+ * same mappings in the same order as a sequential load would, and can apply overwrite checks as usual.
+ * <p/>
+ * If a range contains a malformed line, the ranges before it are replayed and the bad range is parsed again
+ * sequentially with the correct line numbers, so that the same FormatException is thrown and the same mappings are
+ * added as if the file had been read on one thread.
+ */
+public class ParallelLineLoader {
+    /**
+     * Number of ranges created per thread, so that threads that finish early can pick up more work.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final StringPool strings;
+    private final int maxParts;
+
+    /**
+     * Creates a new ParallelLineLoader.
+     *
+     * @param pool     The pool to parse on.
+     * @param strings  The StringPool for tokenizers to use, or null for none.
+     * @param maxParts The maximum number of parts a line can be split into.
+     */
+    public ParallelLineLoader(ForkJoinPool pool, StringPool strings, int maxParts) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null!");
+        }
+        this.pool = pool;
+        this.strings = strings;
+        this.maxParts = maxParts;
+    }
+
+    /**
+     * Parses every remaining line of a reader.
+     *
+     * @param in     The reader to parse.
+     * @param parser The parser to decode lines with.  Must be safe to call from several threads at once.
+     * @param target The sink to add the decoded mappings to.  Only called from the current thread.
+     * @throws IOException If a line could not be parsed.
+     */
+    public void load(MappedLineReader in, LineParser parser, MappingSink target) throws IOException {
+        MappedLineReader[] ranges = in.split(pool.getParallelism() * RANGES_PER_THREAD);
+        List<Callable<Range>> tasks = new ArrayList<Callable<Range>>(ranges.length);
+        for (MappedLineReader range : ranges) {
+            tasks.add(new Range(range, parser));
+        }
+        List<Future<Range>> results;
+        try {
+            results = pool.invokeAll(tasks);
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Parsing was rejected by the pool!", e);
+        }
+        int baseLine = 0;
+        for (Future<Range> result : results) {
+            Range range = get(result);
+            if (range.failed) {
+                range.in.rewind();
+                parseRange(range.in, parser, target, baseLine);
+                throw new IllegalStateException("Range failed to parse in parallel, but not sequentially!");
+            }
+            range.buffer.replay(target);
+            baseLine += range.lines;
+        }
+    }
+
+    private int parseRange(MappedLineReader in, LineParser parser, MappingSink sink, int baseLine) throws FormatException {
+        LineTokenizer tokens = new LineTokenizer(strings);
+        int[] parts = new int[maxParts * 2];
+        int line = baseLine;
+        CharSequence str;
+        while ((str = in.readLine()) != null) {
+            line++;
+            parser.parseLine(tokens.reset(str), parts, line, sink);
+        }
+        return line - baseLine;
+    }
+
+    private static Range get(Future<Range> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing!");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Exception while parsing!", cause);
+        }
+    }
+
+    /**
+     * Decodes single lines into mappings.
+     */
+    public interface LineParser {
+
+        /**
+         * Decodes a line, passing any mapping it defines to a sink.
+         *
+         * @param tokens The tokenizer containing the line.
+         * @param parts  A scratch array for the bounds of the parts of the line.
+         * @param line   The line number, for error messages.
+         * @param sink   The sink to add the mapping to.
+         * @throws FormatException If the line is malformed.
+         */
+        public void parseLine(LineTokenizer tokens, int[] parts, int line, MappingSink sink) throws FormatException;
+    }
+
+    /**
+     * Decodes one range of lines into a buffer.
+     */
+    private class Range implements Callable<Range> {
+        private final MappedLineReader in;
+        private final LineParser parser;
+        private final MappingBuffer buffer = new MappingBuffer();
+        private int lines;
+        private boolean failed;
+
+        private Range(MappedLineReader in, LineParser parser) {
+            this.in = in;
+            this.parser = parser;
+        }
+
+        @Override
+        public Range call() {
+            try {
+                // Line numbers are relative to the range, they are only needed if parsing fails.
+                lines = parseRange(in, parser, buffer, 0);
+            } catch (FormatException e) {
+                failed = true;
+            }
+            return this;
+        }
+    }
+}
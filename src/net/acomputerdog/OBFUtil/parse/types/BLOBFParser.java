@@ -2,15 +2,21 @@ package net.acomputerdog.OBFUtil.parse.types;
 
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingFilter;
+import net.acomputerdog.OBFUtil.parse.MappedLineReader;
+import net.acomputerdog.OBFUtil.parse.MappingSink;
+import net.acomputerdog.OBFUtil.parse.ParallelLineLoader;
 import net.acomputerdog.OBFUtil.parse.StreamParser;
-import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTableSRG;
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.StringPool;
 import net.acomputerdog.OBFUtil.util.TargetType;
-import net.acomputerdog.core.java.Patterns;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * BlazeLoader OBFuscation file.
@@ -19,7 +25,12 @@ import java.util.List;
  */
 public class BLOBFParser implements FileParser, StreamParser {
 
+    static final int MAX_PARTS = 7;
+
     private final boolean stripDescs;
+    private StringPool pool;
+    private MappingFilter filter;
+    private ForkJoinPool forkJoinPool;
 
     public BLOBFParser() {
         this(false);
@@ -30,7 +41,36 @@ public class BLOBFParser implements FileParser, StreamParser {
     }
 
     /**
-     * Loads all entries located in a File into an OBFTable.
+     * Sets the StringPool that loaded names are taken from.  Pooling makes equal names share one String instance.
+     *
+     * @param pool The pool to use, or null to create a new String for every name.
+     */
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the filter that selects which mappings are loaded.  Records that are filtered out are skipped before any
+     * Strings are created for them.
+     *
+     * @param filter The filter to use, or null to load every mapping.
+     */
+    public void setFilter(MappingFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets the ForkJoinPool that files are parsed on.  If a pool is set, files are split into ranges of lines that are
+     * decoded in parallel, and the results are added to the table in file order.  Streams are always read sequentially.
+     *
+     * @param forkJoinPool The pool to use, or null to parse on the calling thread.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Loads all entries located in a File into an OBFTable.  The file is memory-mapped and records are decoded directly from the mapped bytes.
      *
      * @param file      The file to load from.  Must exist.
      * @param table     The table to write to.
@@ -38,7 +78,40 @@ public class BLOBFParser implements FileParser, StreamParser {
      */
     @Override
     public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
-        loadEntries(new FileInputStream(file), table, overwrite);
+        final boolean srg = table instanceof OBFTableSRG;
+        MappingSink sink = tableSink(table, overwrite);
+        try (MappedLineReader in = new MappedLineReader(file)) {
+            if (forkJoinPool != null) {
+                ParallelLineLoader.LineParser lineParser = new ParallelLineLoader.LineParser() {
+                    @Override
+                    public void parseLine(LineTokenizer tokens, int[] parts, int line, MappingSink sink) throws FormatException {
+                        BLOBFParser.this.parseLine(tokens, parts, line, srg, sink);
+                    }
+                };
+                new ParallelLineLoader(forkJoinPool, pool, MAX_PARTS).load(in, lineParser, sink);
+                return;
+            }
+            LineTokenizer tokens = new LineTokenizer(pool);
+            int[] parts = new int[MAX_PARTS * 2];
+            int line = 0;
+            CharSequence str;
+            while ((str = in.readLine()) != null) {
+                line++;
+                parseLine(tokens.reset(str), parts, line, srg, sink);
+            }
+        }
+    }
+
+    /**
+     * Opens a File as a LazyBLOBFTable, which only decodes the mappings that are looked up.  The table uses this
+     * parser's method descriptor setting, StringPool, and filter.  Close the table to release the file.
+     *
+     * @param file The file to open.  Must exist.
+     * @return Return a read-only table of the mappings in the file.
+     * @throws IOException If the file could not be mapped or is not a valid BLOBF file.
+     */
+    public LazyBLOBFTable loadLazy(File file) throws IOException {
+        return new LazyBLOBFTable(file, stripDescs, pool, filter);
     }
 
     /**
@@ -68,12 +141,7 @@ public class BLOBFParser implements FileParser, StreamParser {
         BufferedReader in = null;
         try {
             in = new BufferedReader(new InputStreamReader(stream));
-            List<String> data = new ArrayList<String>();
-            String line;
-            while ((line = in.readLine()) != null) {
-                data.add(line);
-            }
-            parseStringArray(data.toArray(new String[data.size()]), table, overwrite);
+            parseLines(in, table, overwrite);
         } finally {
             if (in != null) {
                 in.close();
@@ -104,151 +172,166 @@ public class BLOBFParser implements FileParser, StreamParser {
         }
     }
 
-    private void parseStringArray(String[] lines, OBFTable table, boolean overwrite) throws FormatException {
-        if (table instanceof DirectOBFTableSRG) {
-            parseStringArraySRG(lines, (DirectOBFTableSRG) table, overwrite);
-        } else {
-            parseStringArrayNormal(lines, table, overwrite);
+    /**
+     * Parses lines from a reader one at a time, adding each mapping to the table as soon as it is read.
+     *
+     * @param in        The reader to read from.
+     * @param table     The table to write to.
+     * @param overwrite If true overwrite existing mappings.
+     */
+    private void parseLines(BufferedReader in, OBFTable table, boolean overwrite) throws IOException {
+        boolean srg = table instanceof OBFTableSRG;
+        MappingSink sink = tableSink(table, overwrite);
+        LineTokenizer tokens = new LineTokenizer(pool);
+        int[] parts = new int[MAX_PARTS * 2];
+        int line = 0;
+        String str;
+        while ((str = in.readLine()) != null) {
+            line++;
+            parseLine(tokens.reset(str), parts, line, srg, sink);
         }
     }
 
-    private void parseStringArraySRG(String[] lines, DirectOBFTableSRG table, boolean overwrite) throws FormatException {
-        int line = 0;
-        for (String str : lines) {
-            line++;
-            if (isCommentLine(str)) {
-                continue;
-            }
-            String[] parts = str.split(Patterns.COLON);
-            if (parts.length < 4) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-            }
-            TargetType type = TargetType.valueOf(parts[0]);
-            if (type == null) {
-                throw new FormatException("Illegal target type on line " + line + ": \"" + parts[0] + "\"");
-            }
-            if (type == TargetType.METHOD) {
-                if (parts.length < 7) {
-                    throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-                }
-                if (overwrite || !table.hasTypeObf(parts[1], type)) {
-                    if (stripDescs) {
-                        table.addTypeSRG(type, parts[1], parts[3], parts[5]);
+    /**
+     * Creates a sink that adds mappings to a table, skipping mappings whose obfuscated name (without descriptor) is
+     * already defined unless overwrite is set.  Searge names are kept if the table is an OBFTableSRG.
+     */
+    private MappingSink tableSink(final OBFTable table, final boolean overwrite) {
+        final OBFTableSRG tableSRG = (table instanceof OBFTableSRG) ? (OBFTableSRG) table : null;
+        return new MappingSink() {
+            @Override
+            public void addMapping(TargetType type, String obfName, String seargeName, String deObfName) {
+                if (overwrite || !table.hasTypeObf(stripDesc(obfName), type)) {
+                    if (tableSRG != null) {
+                        tableSRG.addTypeSRG(obfName, seargeName, deObfName, type);
                     } else {
-                        table.addTypeSRG(type, parts[1] + " " + parts[2], parts[3] + " " + parts[4], parts[5] + " " + parts[6]);
+                        table.addType(obfName, deObfName, type);
                     }
                 }
-            } else {
-                if (overwrite || !table.hasTypeObf(parts[1], type)) {
-                    table.addTypeSRG(type, parts[1], parts[2], parts[3]);
-                }
             }
-        }
+        };
     }
 
-    private void parseStringArrayNormal(String[] lines, OBFTable table, boolean overwrite) throws FormatException {
-        int line = 0;
-        for (String str : lines) {
-            line++;
-            if (isCommentLine(str)) {
-                continue;
-            }
-            String[] parts = str.split(Patterns.COLON);
-            if (parts.length < 4) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-            }
-            TargetType type = TargetType.valueOf(parts[0]);
-            if (type == null) {
-                throw new FormatException("Illegal target type on line " + line + ": \"" + parts[0] + "\"");
-            }
-            if (type == TargetType.METHOD) {
-                if (parts.length < 7) {
-                    throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-                }
-                if (overwrite || !table.hasTypeObf(parts[1], type)) {
-                    table.addType(parts[1] + " " + parts[2], parts[5] + " " + parts[6], type);
-                }
-            } else {
-                if (overwrite || !table.hasTypeObf(parts[1], type)) {
-                    table.addType(parts[1], parts[3], type);
-                }
-            }
-        }
+    private static String stripDesc(String name) {
+        int space = name.indexOf(' ');
+        return space < 0 ? name : name.substring(0, space);
     }
 
-    private void writeTable(Writer out, OBFTable table) throws IOException {
-        if (table instanceof DirectOBFTableSRG) {
-            writeTableSRG(out, (DirectOBFTableSRG) table);
+    private void parseLine(LineTokenizer tokens, int[] parts, int line, boolean srg, MappingSink sink) throws FormatException {
+        if (srg) {
+            parseLineSRG(tokens, parts, line, sink);
         } else {
-            writeTableNormal(out, table);
+            parseLineNormal(tokens, parts, line, sink);
         }
     }
 
-    private void writeTableNormal(Writer out, OBFTable table) throws IOException {
+    /**
+     * Splits a line into parts and identifies its type.
+     *
+     * @param tokens The tokenizer containing the line.
+     * @param parts  The array to store the bounds of each part in.
+     * @param line   The line number.
+     * @return Return the type of the line, or null if it is a comment.
+     */
+    static TargetType splitLine(LineTokenizer tokens, int[] parts, int line) throws FormatException {
+        if (tokens.isCommentLine()) {
+            return null;
+        }
+        int numParts = tokens.split(':', parts);
+        if (numParts < 4) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        TargetType type = tokens.getType(parts[0], parts[1]);
+        if (type == null) {
+            throw new FormatException("Illegal target type on line " + line + ": \"" + tokens.substring(parts[0], parts[1]) + "\"");
+        }
+        if (type == TargetType.METHOD && numParts < 7) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        return type;
+    }
 
-        for (TargetType type : TargetType.values()) {
-            for (String obf : table.getAllTypeObf(type)) {
-                out.write(type.name());
-                out.write(":");
-                String deobf = table.deobfType(obf, type);
-                if (type == TargetType.METHOD) {
-                    String[] obfParts = obf.split(Patterns.SPACE);
-                    String obfName = obfParts[0];
-                    String obfDesc = packageToPath(obfParts[1]);
-                    String[] mcpParts = deobf.split(Patterns.SPACE);
-                    String mcpName = mcpParts[0];
-                    String mcpDesc = packageToPath(mcpParts[1]);
-                    out.write(obfName);
-                    out.write(":");
-                    out.write(obfDesc);
-                    out.write(": : :");
-                    out.write(mcpName);
-                    out.write(":");
-                    out.write(mcpDesc);
-                } else {
-                    out.write(obf);
-                    out.write(":");
-                    out.write(" ");
-                    out.write(":");
-                    out.write(deobf);
-                }
-                out.write("\n");
+    /**
+     * Checks a line against the filter, using the MCP name as the deobfuscated name.
+     */
+    private boolean isAccepted(LineTokenizer tokens, int[] parts, TargetType type) {
+        if (filter == null) {
+            return true;
+        }
+        int mcpPart = type == TargetType.METHOD ? 5 : 3;
+        return filter.accepts(type, tokens.getLine(), parts[mcpPart * 2], parts[mcpPart * 2 + 1]);
+    }
+
+    private void parseLineSRG(LineTokenizer tokens, int[] parts, int line, MappingSink sink) throws FormatException {
+        TargetType type = splitLine(tokens, parts, line);
+        if (type == null) {
+            return;
+        }
+        if (!isAccepted(tokens, parts, type)) {
+            return;
+        }
+        if (type == TargetType.METHOD) {
+            if (stripDescs) {
+                sink.addMapping(type, tokens.substring(parts[2], parts[3]), tokens.substring(parts[6], parts[7]), tokens.substring(parts[10], parts[11]));
+            } else {
+                sink.addMapping(type, tokens.join(parts[2], parts[3], ' ', parts[4], parts[5]), tokens.join(parts[6], parts[7], ' ', parts[8], parts[9]), tokens.join(parts[10], parts[11], ' ', parts[12], parts[13]));
             }
+        } else {
+            sink.addMapping(type, tokens.substring(parts[2], parts[3]), tokens.substring(parts[4], parts[5]), tokens.substring(parts[6], parts[7]));
         }
     }
 
-    private void writeTableSRG(Writer out, DirectOBFTableSRG table) throws IOException {
+    private void parseLineNormal(LineTokenizer tokens, int[] parts, int line, MappingSink sink) throws FormatException {
+        TargetType type = splitLine(tokens, parts, line);
+        if (type == null) {
+            return;
+        }
+        if (!isAccepted(tokens, parts, type)) {
+            return;
+        }
+        if (type == TargetType.METHOD) {
+            sink.addMapping(type, tokens.join(parts[2], parts[3], ' ', parts[4], parts[5]), null, tokens.join(parts[10], parts[11], ' ', parts[12], parts[13]));
+        } else {
+            sink.addMapping(type, tokens.substring(parts[2], parts[3]), null, tokens.substring(parts[6], parts[7]));
+        }
+    }
+
+    /**
+     * Writes every mapping in a table.  Searge names are written for any table whose cursor has them, and are left
+     * blank otherwise.
+     */
+    private void writeTable(Writer out, OBFTable table) throws IOException {
         for (TargetType type : TargetType.values()) {
-            for (String obf : table.getAllTypeObf(type)) {
+            MappingCursor cursor = table.cursor(type);
+            while (cursor.next()) {
                 out.write(type.name());
                 out.write(":");
-                String srg = table.getSRGFromObfType(obf, type);
-                String deobf = table.deobfType(obf, type);
+                String obf = cursor.getObf();
+                String srg = cursor.getSRG();
+                String deobf = cursor.getDeobf();
                 if (type == TargetType.METHOD) {
-                    String[] obfParts = obf.split(Patterns.SPACE);
-                    String obfName = obfParts[0];
-                    String obfDesc = obfParts.length >= 2 ? packageToPath(obfParts[1]) : " ";
-                    String[] srgParts = srg.split(Patterns.SPACE);
-                    String srgName = srgParts[0];
-                    String srgDesc = srgParts.length >= 2 ? packageToPath(srgParts[1]) : " ";
-                    String[] mcpParts = deobf.split(Patterns.SPACE);
-                    String mcpName = mcpParts[0];
-                    String mcpDesc = mcpParts.length >= 2 ? packageToPath(mcpParts[1]) : " ";
-                    out.write(String.valueOf(obfName));
-                    out.write(":");
-                    out.write(String.valueOf(obfDesc));
+                    MemberKey obfKey = MemberKey.parse(obf);
+                    MemberKey mcpKey = MemberKey.parse(deobf);
+                    out.write(String.valueOf(obfKey.getQualifiedName()));
                     out.write(":");
-                    out.write(String.valueOf(srgName));
+                    out.write(descToPath(obfKey));
                     out.write(":");
-                    out.write(String.valueOf(srgDesc));
+                    if (srg != null) {
+                        MemberKey srgKey = MemberKey.parse(srg);
+                        out.write(String.valueOf(srgKey.getQualifiedName()));
+                        out.write(":");
+                        out.write(descToPath(srgKey));
+                    } else {
+                        out.write(" : ");
+                    }
                     out.write(":");
-                    out.write(String.valueOf(mcpName));
+                    out.write(String.valueOf(mcpKey.getQualifiedName()));
                     out.write(":");
-                    out.write(String.valueOf(mcpDesc));
+                    out.write(descToPath(mcpKey));
                 } else {
                     out.write(String.valueOf(obf));
                     out.write(":");
-                    out.write(String.valueOf(srg));
+                    out.write(srg != null ? srg : " ");
                     out.write(":");
                     out.write(String.valueOf(deobf));
                 }
@@ -257,15 +340,14 @@ public class BLOBFParser implements FileParser, StreamParser {
         }
     }
 
+    private String descToPath(MemberKey key) {
+        return key.hasDesc() ? packageToPath(key.getDesc()) : " ";
+    }
+
     private String packageToPath(String pkg) {
         if (pkg == null) {
             return null;
         }
         return pkg.replace('.', '/');
     }
-
-    private boolean isCommentLine(String str) {
-        String trimmed = str.trim();
-        return (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("//"));
-    }
 }
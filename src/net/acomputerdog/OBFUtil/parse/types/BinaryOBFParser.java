@@ -0,0 +1,275 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import net.acomputerdog.OBFUtil.parse.FileParser;
+import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.StreamParser;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTableSRG;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes a compact binary snapshot of an OBFTable.  Snapshots are loaded with a single bulk read and no line
+ * parsing, and keep the searge names of an OBFTableSRG.
+ * Layout, all integers big-endian:
+ *   int     magic ("OBFB")
+ *   short   version
+ *   byte    flags (bit 0 set if the searge column is present)
+ *   int     number of strings in the pool
+ *   string  pool entries, each an int byte length followed by UTF-8 bytes.  Every distinct name is stored once.
+ *   For each TargetType in declaration order, an index section:
+ *     int   number of mappings
+ *     int[] pool indexes of obf, [searge,] deobf names for each mapping, in table order
+ */
+public class BinaryOBFParser implements FileParser, StreamParser {
+    /**
+     * "OBFB" in ASCII
+     */
+    public static final int MAGIC = 0x4F424642;
+    public static final short VERSION = 1;
+
+    private static final int FLAG_SRG = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private StringPool pool;
+
+    /**
+     * Sets the StringPool that loaded names are taken from.  Pooling makes equal names share one String instance.
+     *
+     * @param pool The pool to use, or null to create a new String for every name.
+     */
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Loads all entries located in a File into an OBFTable.  The file is read in bulk and then decoded.  It is read
+     * rather than memory-mapped, so that it is released as soon as loading finishes instead of when the mapping is
+     * garbage collected.
+     *
+     * @param file      The file to load from.  Must exist.
+     * @param table     The table to write to.
+     * @param overwrite If true overwrite existing mappings.
+     */
+    @Override
+    public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null!");
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to load: " + file.getPath());
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("File ended early: " + file.getPath());
+                }
+            }
+            buffer.flip();
+            readTable(buffer, table, overwrite);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Saves all entries located in an OBFTable into a file.
+     *
+     * @param file  The file to write to.  Must exist.
+     * @param table The table to read from
+     * @throws java.io.IOException
+     */
+    @Override
+    public void storeEntries(File file, OBFTable table) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null!");
+        }
+        storeEntries(new FileOutputStream(file), table);
+    }
+
+    /**
+     * Loads all entries located in a stream into an OBFTable.  The stream is read fully in bulk and then decoded.
+     *
+     * @param stream    The stream to load from.
+     * @param table     The table to write to.
+     * @param overwrite If true overwrite existing mappings.
+     */
+    @Override
+    public void loadEntries(InputStream stream, OBFTable table, boolean overwrite) throws IOException {
+        if (stream == null) {
+            throw new NullPointerException("Stream cannot be null!");
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(stream.available(), 8192));
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            readTable(ByteBuffer.wrap(bytes.toByteArray()), table, overwrite);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Saves all entries located in an OBFTable into a stream.
+     *
+     * @param stream The stream to write to.
+     * @param table  The table to read from
+     * @throws java.io.IOException
+     */
+    @Override
+    public void storeEntries(OutputStream stream, OBFTable table) throws IOException {
+        if (stream == null) {
+            throw new NullPointerException("Stream cannot be null!");
+        }
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(stream));
+            writeTable(out, table);
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    private void readTable(ByteBuffer in, OBFTable table, boolean overwrite) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new FormatException("Not a binary OBF snapshot!");
+            }
+            short version = in.getShort();
+            if (version != VERSION) {
+                throw new FormatException("Unsupported snapshot version: " + version);
+            }
+            boolean hasSRG = (in.get() & FLAG_SRG) != 0;
+            String[] pool = readPool(in);
+            OBFTableSRG tableSRG = (table instanceof OBFTableSRG) ? (OBFTableSRG) table : null;
+            for (TargetType type : TargetType.values()) {
+                int count = in.getInt();
+                for (int index = 0; index < count; index++) {
+                    String obf = pool[in.getInt()];
+                    String srg = hasSRG ? pool[in.getInt()] : null;
+                    String deobf = pool[in.getInt()];
+                    if (overwrite || !table.hasTypeObf(obf, type)) {
+                        if (tableSRG != null) {
+                            tableSRG.addTypeSRG(obf, srg == null ? deobf : srg, deobf, type);
+                        } else {
+                            table.addType(obf, deobf, type);
+                        }
+                    }
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new FormatException("Snapshot is truncated!", e);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new FormatException("Snapshot references an undefined string!", e);
+        }
+    }
+
+    private String[] readPool(ByteBuffer in) throws FormatException {
+        int size = in.getInt();
+        if (size < 0 || size > in.remaining() / 4) {
+            throw new FormatException("Illegal string pool size: " + size);
+        }
+        String[] names = new String[size];
+        byte[] bytes = new byte[64];
+        for (int index = 0; index < size; index++) {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new FormatException("Illegal string length: " + length);
+            }
+            if (in.hasArray()) {
+                names[index] = intern(new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8));
+                in.position(in.position() + length);
+            } else {
+                if (bytes.length < length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                in.get(bytes, 0, length);
+                names[index] = intern(new String(bytes, 0, length, UTF_8));
+            }
+        }
+        return names;
+    }
+
+    private String intern(String str) {
+        return pool != null ? pool.intern(str) : str;
+    }
+
+    private void writeTable(DataOutputStream out, OBFTable table) throws IOException {
+        OBFTableSRG tableSRG = (table instanceof OBFTableSRG) ? (OBFTableSRG) table : null;
+        Map<String, Integer> poolIndexes = new HashMap<String, Integer>();
+        List<String> pool = new ArrayList<String>();
+        TargetType[] types = TargetType.values();
+        int width = tableSRG != null ? 3 : 2;
+        int[][] sections = new int[types.length][];
+        int[] counts = new int[types.length];
+        for (int typeNum = 0; typeNum < types.length; typeNum++) {
+            TargetType type = types[typeNum];
+            int[] section = new int[64 * width];
+            int index = 0;
+            MappingCursor cursor = table.cursor(type);
+            while (cursor.next()) {
+                if (index == section.length) {
+                    int[] newSection = new int[section.length * 2];
+                    System.arraycopy(section, 0, newSection, 0, index);
+                    section = newSection;
+                }
+                section[index++] = poolIndex(cursor.getObf(), poolIndexes, pool);
+                if (tableSRG != null) {
+                    String srg = cursor.getSRG();
+                    section[index++] = poolIndex(srg != null ? srg : cursor.getDeobf(), poolIndexes, pool);
+                }
+                section[index++] = poolIndex(cursor.getDeobf(), poolIndexes, pool);
+            }
+            sections[typeNum] = section;
+            counts[typeNum] = index / width;
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(tableSRG != null ? FLAG_SRG : 0);
+        out.writeInt(pool.size());
+        for (String str : pool) {
+            byte[] bytes = str.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        for (int typeNum = 0; typeNum < types.length; typeNum++) {
+            out.writeInt(counts[typeNum]);
+            int[] section = sections[typeNum];
+            for (int index = 0; index < counts[typeNum] * width; index++) {
+                out.writeInt(section[index]);
+            }
+        }
+    }
+
+    private int poolIndex(String str, Map<String, Integer> poolIndexes, List<String> pool) {
+        if (str == null) {
+            throw new IllegalArgumentException("Table contains a null name!");
+        }
+        Integer index = poolIndexes.get(str);
+        if (index == null) {
+            index = pool.size();
+            poolIndexes.put(str, index);
+            pool.add(str);
+        }
+        return index;
+    }
+}
@@ -1,41 +1,87 @@
 package net.acomputerdog.OBFUtil.parse.types;
 
+import net.acomputerdog.OBFUtil.parse.CSVReader;
+import net.acomputerdog.OBFUtil.parse.CSVWriter;
 import net.acomputerdog.OBFUtil.parse.FileParser;
+import net.acomputerdog.OBFUtil.parse.MappingFilter;
 import net.acomputerdog.OBFUtil.table.OBFTable;
-import net.acomputerdog.core.file.TextFileReader;
-import net.acomputerdog.core.java.Patterns;
+import net.acomputerdog.OBFUtil.util.StringPool;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Reads and writes obfuscation mappings to a .csv file.  Due to variations in CSV formats, this class is abstract so that subclasses can identify the correct data to read.
+ * <p/>
+ * Files are streamed: each row is passed to writeRowToTable() as soon as it is decoded, and rows are written straight
+ * to the output.  Rows are first checked with acceptsRecord() while still raw, so rejected rows never create Strings.  Quoted fields may contain commas, quotes, and line breaks (see CSVReader).
  */
 public abstract class CSVFileParser implements FileParser {
 
+    private StringPool pool;
+    private MappingFilter filter;
+
     /**
-     * Writes the data in a CSVFile to an OBFTable
+     * Sets the StringPool that loaded names are taken from.  Pooling makes equal names share one String instance.
      *
-     * @param source The file where the data originated from.
-     * @param csv    The CSVFile to read from
-     * @param table  The OBFTable to write to.
+     * @param pool The pool to use, or null to create a new String for every name.
      */
-    protected abstract void writeCSVToTable(File source, CSVFile csv, OBFTable table);
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the filter that selects which mappings are loaded.
+     *
+     * @param filter The filter to use, or null to load every mapping.
+     */
+    public void setFilter(MappingFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Gets the filter that selects which mappings are loaded.
+     *
+     * @return Return the filter, or null if every mapping is loaded.
+     */
+    protected MappingFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Checks if a row should be loaded, before any of its fields are turned into Strings.  Fields can be inspected with
+     * the reader's isBlank() and parseInt().  The default accepts every row.
+     *
+     * @param record The reader, positioned on the row.
+     * @return Return true if the row should be passed to writeRowToTable().
+     */
+    protected boolean acceptsRecord(CSVReader record) {
+        return true;
+    }
 
     /**
-     * Creates a CSVFile representing the data in an OBFTable
+     * Writes a single row of CSV data to an OBFTable.  Called once for each row as soon as it is read.
      *
-     * @param source The file where the data originated from.
+     * @param source     The file where the data originated from.
+     * @param categories The category names read from the header row.
+     * @param row        The items in the row, one per category.  The array is reused for the next row.
+     * @param table      The OBFTable to write to.
+     * @throws IOException If the row is invalid.
+     */
+    protected abstract void writeRowToTable(File source, String[] categories, String[] row, OBFTable table) throws IOException;
+
+    /**
+     * Writes the data in an OBFTable as CSV rows, including the header row.  The header should only be written if there
+     * is at least one row, so that an empty table is stored as an empty file.
+     *
+     * @param source The file the data will be written to.
      * @param table  The table containing the data.
-     * @return Return a CSVFile representing the data in the OBFTable
+     * @param out    The CSVWriter to write rows to.
+     * @throws IOException If an IO error occurs.
      */
-    protected abstract CSVFile readCSVFromTable(File source, OBFTable table);
+    protected abstract void writeTableToCSV(File source, OBFTable table, CSVWriter out) throws IOException;
 
     /**
-     * Loads all entries located in a File into an OBFTable.
+     * Loads all entries located in a File into an OBFTable.  Rows whose first item is blank are skipped.
      *
      * @param file      The file to load from.  Must exist.
      * @param table     The table to write to.
@@ -46,46 +92,33 @@ public abstract class CSVFileParser implements FileParser {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null!");
         }
-        TextFileReader reader = null;
+        CSVReader in = new CSVReader(new FileReader(file), pool);
         try {
-            CSVFile csv = new CSVFile();
-            reader = new TextFileReader(file);
-            String[] lines = reader.readAllLines();
-            int lineNum = 0;
-            int realLineNum = 0;
-            String[] categories = new String[0];
-            for (String line : lines) {
-                if (!isLineEmpty(line)) {
-                    String[] items = line.split(Patterns.COMMA);
-                    if (lineNum == 0) {
-                        categories = items;
-                        lineNum = 0;
+            String[] categories = null;
+            String[] row = null;
+            while (true) {
+                if (categories == null) {
+                    categories = in.readRecord();
+                    if (categories == null) {
+                        break;
+                    }
+                    if (isBlank(categories[0])) {
+                        categories = null;
                     } else {
-                        int itemNum = 0;
-                        for (String item : items) {
-                            if (itemNum < categories.length) {
-                                csv.addItem(categories[itemNum], item);
-                                itemNum++;
-                            } else {
-                                String newItem = csv.getItem(categories[itemNum - 1], csv.size() - 1) + "," + (item);
-                                csv.setItem(categories[itemNum - 1], csv.size() - 1, newItem);
-                            }
-                        }
-                        while (itemNum < categories.length) {
-                            csv.addItem(categories[itemNum], "");
-                            itemNum++;
-                        }
-
+                        row = new String[categories.length];
+                    }
+                } else {
+                    if (in.readRawRecord() < 0) {
+                        break;
+                    }
+                    if (!in.isBlank(0) && acceptsRecord(in)) {
+                        in.getRecord(row);
+                        this.writeRowToTable(file, categories, row, table);
                     }
-                    lineNum++;
                 }
-                realLineNum++;
             }
-            this.writeCSVToTable(file, csv, table);
         } finally {
-            if (reader != null) {
-                reader.close();
-            }
+            in.close();
         }
     }
 
@@ -101,125 +134,20 @@ public abstract class CSVFileParser implements FileParser {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null!");
         }
-        Writer out = null;
+        CSVWriter out = new CSVWriter(new BufferedWriter(new FileWriter(file)));
         try {
-            out = new BufferedWriter(new FileWriter(file));
-
-            CSVFile csv = this.readCSVFromTable(file, table);
-            out.write(csv.toString());
-
+            this.writeTableToCSV(file, table, out);
         } finally {
-            if (out != null) {
-                out.close();
-            }
+            out.close();
         }
     }
 
-
-    private boolean isLineEmpty(String line) {
-        if (line.isEmpty()) {
-            return true;
-        } else {
-            line = line.trim();
-            char[] chars = line.toCharArray();
-            if (chars[0] == ',') {
-                return true;
-            }
-            for (char chr : chars) {
-                if (chr != ',' && !Character.isWhitespace(chr)) {
-                    return false;
-                }
-            }
-            return true;
-        }
-    }
-
-    /**
-     * A code structure representing a CSV file
-     */
-    public static class CSVFile {
-        private final Map<String, List<String>> categories = new HashMap<String, List<String>>();
-        private final List<String> catNames = new ArrayList<String>();
-        private int size = 0;
-
-        private List<String> getCategory(String name) {
-            List<String> category = categories.get(name);
-            if (category == null) {
-                categories.put(name, category = new ArrayList<String>());
-                catNames.add(name);
-            }
-            return category;
-        }
-
-        public String[] getCategories() {
-            return catNames.toArray(new String[catNames.size()]);
-        }
-
-        public String getItem(String category, int index) {
-            return getCategory(category).get(index);
-        }
-
-        public void setItem(String category, int index, String item) {
-            getCategory(category).set(index, item);
-        }
-
-        public void addItem(String category, String item) {
-            List<String> catList = getCategory(category);
-            catList.add(item);
-            size = catList.size();
-        }
-
-        public int size() {
-            return size;
-        }
-
-        public String[] getRow(int row) {
-            if (row > size) {
-                throw new IllegalArgumentException("Row number " + row + " is greater than maximum " + size);
-            }
-            String[] rowData = new String[categories.size()];
-            int index = 0;
-            for (String str : getCategories()) {
-                List<String> category = getCategory(str);
-                rowData[index] = getRow(category, row);
-                index++;
-            }
-            return rowData;
-        }
-
-        private String getRow(List<String> category, int row) {
-            return category.get(row);
-        }
-
-        public void setRow(int row, String[] data) {
-            int index = 0;
-            String[] categoryIDs = getCategories();
-            for (String str : data) {
-                getCategory(categoryIDs[index]).set(row, str);
-                index++;
-            }
-        }
-
-        @Override
-        public String toString() {
-            StringBuilder builder = new StringBuilder();
-            mergeArray(getCategories(), builder);
-            int row = 0;
-            while (row < size()) {
-                builder.append("\n");
-                mergeArray(getRow(row), builder);
-                row++;
-            }
-            return builder.toString();
-        }
-
-        private void mergeArray(String[] strings, StringBuilder builder) {
-            for (int index = 0; index < strings.length; index++) {
-                builder.append(strings[index]);
-                if (index < strings.length - 1) {
-                    builder.append(",");
-                }
+    private boolean isBlank(String item) {
+        for (int index = 0; index < item.length(); index++) {
+            if (!Character.isWhitespace(item.charAt(index))) {
+                return false;
             }
         }
+        return true;
     }
 }
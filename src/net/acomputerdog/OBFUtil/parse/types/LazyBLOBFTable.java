@@ -0,0 +1,651 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappedLineReader;
+import net.acomputerdog.OBFUtil.parse.MappingFilter;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.Mapping;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTableSRG;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+/**
+ * A read-only OBFTableSRG that decodes the mappings of a BLOBF file only when they are looked up.
+ * <p/>
+ * Opening the table maps the file and scans it once, recording only the offset of each record and the hashes of it's
+ * obfuscated, searge, and deobfuscated names; no Strings are created by the scan.  The first lookup that hits a record
+ * decodes it, and the decoded names are cached so that later lookups of the same record are served from memory.  When
+ * only a few mappings are ever used, this is much faster and smaller than loading the whole file.
+ * <p/>
+ * Lookups return the same results as loading the file into a DirectOBFTableSRG with overwrite set, so if a name is
+ * mapped more than once the last mapping in the file wins and the names it replaced are no longer mapped.  Methods
+ * that list or copy the whole table (getAll*, getMembers*, writeToTable(), cursor(), and stream()) decode every record
+ * into a DirectOBFTableSRG the first time one of them is called, and use it from then on.
+ * <p/>
+ * The file must not be modified while the table is in use.  close() releases the file; lookups that still need to decode a
+ * record from it then throw an IllegalStateException.  A LazyBLOBFTable is thread-safe.
+ */
+public class LazyBLOBFTable implements OBFTableSRG, Closeable {
+    private static final int OBF = 0;
+    private static final int SRG = 1;
+    private static final int DEOBF = 2;
+
+    private final MappedLineReader in;
+    private final boolean stripDescs;
+    private final LineTokenizer tokens;
+    private final int[] parts = new int[BLOBFParser.MAX_PARTS * 2];
+    private final Section[] sections;
+    private DirectOBFTableSRG table;
+
+    /**
+     * Opens a BLOBF file as a lazy table.
+     *
+     * @param file The file to open.  Must exist.
+     * @throws IOException If the file could not be mapped or is not a valid BLOBF file.
+     */
+    public LazyBLOBFTable(File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Opens a BLOBF file as a lazy table.
+     *
+     * @param file                   The file to open.  Must exist.
+     * @param stripMethodDescriptors If true, methods are mapped by name only, as in BLOBFParser.
+     * @throws IOException If the file could not be mapped or is not a valid BLOBF file.
+     */
+    public LazyBLOBFTable(File file, boolean stripMethodDescriptors) throws IOException {
+        this(file, stripMethodDescriptors, null, null);
+    }
+
+    LazyBLOBFTable(File file, boolean stripDescs, StringPool pool, MappingFilter filter) throws IOException {
+        this.in = new MappedLineReader(file);
+        this.stripDescs = stripDescs;
+        this.tokens = new LineTokenizer(pool);
+        TargetType[] types = TargetType.values();
+        sections = new Section[types.length];
+        for (TargetType type : types) {
+            sections[type.ordinal()] = new Section(type);
+        }
+        try {
+            scan(filter);
+        } catch (FormatException e) {
+            in.close();
+            throw e;
+        }
+        for (Section section : sections) {
+            section.buildIndexes();
+        }
+    }
+
+    /**
+     * Releases the file.  Mappings that were already decoded can still be looked up.
+     */
+    @Override
+    public synchronized void close() {
+        in.close();
+    }
+
+    @Override
+    public String deobfPackage(String obfName) {
+        return deobfType(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String deobfClass(String obfName) {
+        return deobfType(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String deobfField(String obfName) {
+        return deobfType(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String deobfMethod(String obfName) {
+        return deobfType(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String deobfType(String obfName, TargetType type) {
+        return lookup(type, OBF, obfName, DEOBF);
+    }
+
+    @Override
+    public String obfPackage(String deobfName) {
+        return obfType(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String obfClass(String deobfName) {
+        return obfType(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String obfField(String deobfName) {
+        return obfType(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String obfMethod(String deobfName) {
+        return obfType(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String obfType(String deobfName, TargetType type) {
+        return lookup(type, DEOBF, deobfName, OBF);
+    }
+
+    @Override
+    public void addPackage(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addClass(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addField(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addMethod(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addType(String obfName, String deObfName, TargetType type) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addPackageSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addClassSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addFieldSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addMethodSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean hasPackageObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeObf(String obfName, TargetType type) {
+        return contains(type, OBF, obfName);
+    }
+
+    @Override
+    public boolean hasPackageDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeDeobf(String deobfName, TargetType type) {
+        return contains(type, DEOBF, deobfName);
+    }
+
+    @Override
+    public boolean hasPackageSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeSRG(String srgName, TargetType type) {
+        return contains(type, SRG, srgName);
+    }
+
+    @Override
+    public String getObfFromSRGPackage(String searge) {
+        return getObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getObfFromSRGClass(String searge) {
+        return getObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getObfFromSRGField(String searge) {
+        return getObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getObfFromSRGMethod(String searge) {
+        return getObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getObfFromSRGType(String searge, TargetType type) {
+        return lookup(type, SRG, searge, OBF);
+    }
+
+    @Override
+    public String getDeObfFromSRGPackage(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getDeObfFromSRGClass(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getDeObfFromSRGField(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getDeObfFromSRGMethod(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getDeObfFromSRGType(String searge, TargetType type) {
+        return deobfType(getObfFromSRGType(searge, type), type);
+    }
+
+    @Override
+    public String getSRGFromObfPackage(String obf) {
+        return getSRGFromObfType(obf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromObfClass(String obf) {
+        return getSRGFromObfType(obf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromObfField(String obf) {
+        return getSRGFromObfType(obf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromObfMethod(String obf) {
+        return getSRGFromObfType(obf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromObfType(String obf, TargetType type) {
+        return lookup(type, OBF, obf, SRG);
+    }
+
+    @Override
+    public String getSRGFromDeObfPackage(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromDeObfClass(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromDeObfField(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromDeObfMethod(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromDeObfType(String deobf, TargetType type) {
+        return getSRGFromObfType(obfType(deobf, type), type);
+    }
+
+    @Override
+    public String[] getAllPackagesObf() {
+        return getAllTypeObf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesObf() {
+        return getAllTypeObf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsObf() {
+        return getAllTypeObf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsObf() {
+        return getAllTypeObf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeObf(TargetType type) {
+        return table().getAllTypeObf(type);
+    }
+
+    @Override
+    public String[] getAllPackagesDeobf() {
+        return getAllTypeDeobf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesDeobf() {
+        return getAllTypeDeobf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsDeobf() {
+        return getAllTypeDeobf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsDeobf() {
+        return getAllTypeDeobf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeDeobf(TargetType type) {
+        return table().getAllTypeDeobf(type);
+    }
+
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        return table().getMembersObf(obfOwner, type);
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        return table().getMembersDeobf(deobfOwner, type);
+    }
+
+    @Override
+    public void writeToTable(OBFTable table, boolean overwrite) {
+        table().writeToTable(table, overwrite);
+    }
+
+    @Override
+    public MappingCursor cursor(TargetType type) {
+        return table().cursor(type);
+    }
+
+    @Override
+    public Stream<Mapping> stream(TargetType type) {
+        return table().stream(type);
+    }
+
+    /**
+     * Reads every line of the file once, recording the offset and name hashes of each accepted record.
+     */
+    private void scan(MappingFilter filter) throws FormatException {
+        int line = 0;
+        int offset = in.getPosition();
+        CharSequence str;
+        while ((str = in.readLine()) != null) {
+            line++;
+            TargetType type = BLOBFParser.splitLine(tokens.reset(str), parts, line);
+            if (type != null) {
+                int mcpPart = namePart(type, DEOBF);
+                if (filter == null || filter.accepts(type, str, parts[mcpPart * 2], parts[mcpPart * 2 + 1])) {
+                    sections[type.ordinal()].add(offset, hashName(type, OBF), hashName(type, SRG), hashName(type, DEOBF));
+                }
+            }
+            offset = in.getPosition();
+        }
+    }
+
+    private synchronized String lookup(TargetType type, int from, String name, int to) {
+        Section section = section(type);
+        int record = section.findCurrent(from, name);
+        return record < 0 ? null : section.getRecord(record)[to];
+    }
+
+    private synchronized boolean contains(TargetType type, int column, String name) {
+        return section(type).findCurrent(column, name) >= 0;
+    }
+
+    private synchronized DirectOBFTableSRG table() {
+        if (table == null) {
+            DirectOBFTableSRG all = new DirectOBFTableSRG();
+            for (Section section : sections) {
+                for (int record = 0; record < section.size; record++) {
+                    String[] names = section.records[record];
+                    if (names == null) {
+                        names = decode(section, record);
+                    }
+                    all.addTypeSRG(section.type, names[OBF], names[SRG], names[DEOBF]);
+                }
+            }
+            table = all;
+        }
+        return table;
+    }
+
+    private Section section(TargetType type) {
+        return sections[type.ordinal()];
+    }
+
+    /**
+     * Reads a record back from the file and builds it's obfuscated, searge, and deobfuscated names.
+     */
+    private String[] decode(Section section, int record) {
+        in.seek(section.offsets[record]);
+        tokens.reset(in.readLine()).split(':', parts);
+        TargetType type = section.type;
+        return new String[]{decodeName(type, OBF), decodeName(type, SRG), decodeName(type, DEOBF)};
+    }
+
+    private String decodeName(TargetType type, int column) {
+        int part = namePart(type, column);
+        if (hasDescPart(type)) {
+            return tokens.join(parts[part * 2], parts[part * 2 + 1], ' ', parts[part * 2 + 2], parts[part * 2 + 3]);
+        }
+        return tokens.substring(parts[part * 2], parts[part * 2 + 1]);
+    }
+
+    /**
+     * Computes the hash of a name in the current line, equal to the hashCode() of the String decodeName() would build.
+     */
+    private int hashName(TargetType type, int column) {
+        int part = namePart(type, column);
+        int hash = hashRegion(0, parts[part * 2], parts[part * 2 + 1]);
+        if (hasDescPart(type)) {
+            hash = hashRegion(31 * hash + ' ', parts[part * 2 + 2], parts[part * 2 + 3]);
+        }
+        return hash;
+    }
+
+    private int hashRegion(int hash, int start, int end) {
+        CharSequence line = tokens.getLine();
+        for (int index = start; index < end; index++) {
+            hash = 31 * hash + line.charAt(index);
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the part of a line that holds the name in a column.  Methods have a descriptor part after each name.
+     */
+    private static int namePart(TargetType type, int column) {
+        return type == TargetType.METHOD ? 1 + column * 2 : 1 + column;
+    }
+
+    private boolean hasDescPart(TargetType type) {
+        return type == TargetType.METHOD && !stripDescs;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("LazyBLOBFTable is read-only!");
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The records of one TargetType.  Each column has an open-addressed index from name hash to record numbers.
+     * Names that are mapped more than once have an index entry for every record, and lookups use the last one.
+     */
+    private class Section {
+        private final TargetType type;
+        private int size = 0;
+        private int[] offsets = new int[64];
+        private int[] hashes = new int[64 * 3];
+        private int[][] indexes;
+        private String[][] records;
+
+        private Section(TargetType type) {
+            this.type = type;
+        }
+
+        private void add(int offset, int obfHash, int srgHash, int deobfHash) {
+            if (size == offsets.length) {
+                int[] newOffsets = new int[size * 2];
+                System.arraycopy(offsets, 0, newOffsets, 0, size);
+                offsets = newOffsets;
+                int[] newHashes = new int[size * 2 * 3];
+                System.arraycopy(hashes, 0, newHashes, 0, size * 3);
+                hashes = newHashes;
+            }
+            offsets[size] = offset;
+            hashes[size * 3 + OBF] = obfHash;
+            hashes[size * 3 + SRG] = srgHash;
+            hashes[size * 3 + DEOBF] = deobfHash;
+            size++;
+        }
+
+        private void buildIndexes() {
+            int capacity = 16;
+            while (capacity < size * 2) {
+                capacity <<= 1;
+            }
+            int mask = capacity - 1;
+            indexes = new int[3][capacity];
+            for (int column = 0; column < 3; column++) {
+                int[] index = indexes[column];
+                for (int record = 0; record < size; record++) {
+                    int slot = mix(hashes[record * 3 + column]) & mask;
+                    while (index[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    index[slot] = record + 1;
+                }
+            }
+            records = new String[size][];
+        }
+
+        /**
+         * Finds the last record with a name in a column.  Records with a matching hash are decoded to compare names.
+         */
+        private int find(int column, String name) {
+            if (name == null || size == 0) {
+                return -1;
+            }
+            int hash = name.hashCode();
+            int[] index = indexes[column];
+            int mask = index.length - 1;
+            int slot = mix(hash) & mask;
+            int found = -1;
+            int entry;
+            while ((entry = index[slot]) != 0) {
+                int record = entry - 1;
+                if (record > found && hashes[record * 3 + column] == hash && name.equals(getRecord(record)[column])) {
+                    found = record;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return found;
+        }
+
+        /**
+         * Finds the last record with a name in a column, if it is still the last mapping of it's obfuscated name.  A
+         * searge or deobfuscated name whose obfuscated name is remapped later in the file is not mapped any more.
+         */
+        private int findCurrent(int column, String name) {
+            int record = find(column, name);
+            if (record >= 0 && column != OBF && find(OBF, getRecord(record)[OBF]) != record) {
+                return -1;
+            }
+            return record;
+        }
+
+        private String[] getRecord(int record) {
+            String[] names = records[record];
+            if (names == null) {
+                names = decode(this, record);
+                records[record] = names;
+            }
+            return names;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package net.acomputerdog.OBFUtil.parse.types;
 
+import net.acomputerdog.OBFUtil.parse.CSVReader;
+import net.acomputerdog.OBFUtil.parse.CSVWriter;
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 import net.acomputerdog.OBFUtil.util.TargetType;
 
@@ -36,41 +39,65 @@ public class MCPCSVFileParser extends CSVFileParser {
     }
 
     /**
-     * Writes the data in a CSVFile to an OBFTable
+     * Loads all entries located in a File into an OBFTable.  If the filter does not accept this parser's TargetType, the
+     * file is not read at all.
      *
-     * @param source The file where the data originated from.
-     * @param csv    The CSVFile to read from
-     * @param table  The OBFTable to write to.
+     * @param file      The file to load from.  Must exist.
+     * @param table     The table to write to.
+     * @param overwrite If true overwrite existing mappings.
      */
     @Override
-    public void writeCSVToTable(File source, CSVFile csv, OBFTable table) {
-        for (int rowNum = 0; rowNum < csv.size(); rowNum++) {
-            String[] row = csv.getRow(rowNum);
-            if (ignoreSides || Integer.parseInt(row[SIDE_INDEX]) == side) {
-                table.addType(row[OBFNAME_INDEX], row[DEOBFNAME_INDEX], type);
-            }
+    public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
+        if (getFilter() != null && !getFilter().acceptsType(type)) {
+            return;
         }
+        super.loadEntries(file, table, overwrite);
     }
 
     /**
-     * Creates a CSVFile representing the data in an OBFTable
+     * Checks the side column of a row before any Strings are created.  The side column is compared as a number, so " 1"
+     * and "01" match side 1.
      *
-     * @param source The file where the data originated from.
-     * @param table  The table containing the data.
-     * @return Return a CSVFile representing the data in the OBFTable
+     * @param record The reader, positioned on the row.
+     * @return Return true if sides are ignored or the row is for this parser's side.
      */
     @Override
-    public CSVFile readCSVFromTable(File source, OBFTable table) {
-        CSVFile csv = new CSVFile();
+    protected boolean acceptsRecord(CSVReader record) {
+        return ignoreSides || record.parseInt(SIDE_INDEX) == side;
+    }
 
-        String[] obfs = table.getAllTypeObf(type);
-        for (String obf : obfs) {
-            csv.addItem("searge", obf);
-            csv.addItem("name", table.deobfType(obf, type));
-            csv.addItem("side", Integer.toString(ignoreSides ? 0 : side));
-            csv.addItem("desc", "");
+    /**
+     * Writes a single row of CSV data to an OBFTable.  Only rows accepted by acceptsRecord() are passed in.
+     *
+     * @param source     The file where the data originated from.
+     * @param categories The category names read from the header row.
+     * @param row        The items in the row, one per category.
+     * @param table      The OBFTable to write to.
+     */
+    @Override
+    protected void writeRowToTable(File source, String[] categories, String[] row, OBFTable table) {
+        table.addType(row[OBFNAME_INDEX], row[DEOBFNAME_INDEX], type);
+    }
+
+    /**
+     * Writes the data in an OBFTable as MCP CSV rows.  Nothing is written for a table with no mappings of this parser's
+     * type, not even the header.
+     *
+     * @param source The file the data will be written to.
+     * @param table  The table containing the data.
+     * @param out    The CSVWriter to write rows to.
+     */
+    @Override
+    protected void writeTableToCSV(File source, OBFTable table, CSVWriter out) throws IOException {
+        MappingCursor cursor = table.cursor(type);
+        if (!cursor.next()) {
+            return;
         }
-        return csv;
+        out.writeRecord("searge", "name", "side", "desc");
+        String sideName = Integer.toString(ignoreSides ? 0 : side);
+        do {
+            out.writeRecord(cursor.getObf(), cursor.getDeobf(), sideName, "");
+        } while (cursor.next());
     }
 
     public static void main(String[] args) {
@@ -2,15 +2,15 @@ package net.acomputerdog.OBFUtil.parse.types;
 
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingFilter;
 import net.acomputerdog.OBFUtil.parse.StreamParser;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.util.StringPool;
 import net.acomputerdog.OBFUtil.util.TargetType;
-import net.acomputerdog.core.file.TextFileReader;
-import net.acomputerdog.core.java.Patterns;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Reads and write obfuscation mappings to a .obf file.
@@ -21,20 +21,34 @@ import java.util.List;
  */
 public class OBFParser implements FileParser, StreamParser {
 
+    private StringPool pool;
+    private MappingFilter filter;
+
+    /**
+     * Sets the StringPool that loaded names are taken from.  Pooling makes equal names share one String instance.
+     *
+     * @param pool The pool to use, or null to create a new String for every name.
+     */
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the filter that selects which mappings are loaded.  Records that are filtered out are skipped before any
+     * Strings are created for them.
+     *
+     * @param filter The filter to use, or null to load every mapping.
+     */
+    public void setFilter(MappingFilter filter) {
+        this.filter = filter;
+    }
+
     @Override
     public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null!");
         }
-        TextFileReader reader = null;
-        try {
-            reader = new TextFileReader(file);
-            parseStringArray(reader.readAllLines(), table, overwrite);
-        } finally {
-            if (reader != null) {
-                reader.close();
-            }
-        }
+        loadEntries(new FileInputStream(file), table, overwrite);
     }
 
     @Override
@@ -68,12 +82,7 @@ public class OBFParser implements FileParser, StreamParser {
         BufferedReader in = null;
         try {
             in = new BufferedReader(new InputStreamReader(stream));
-            List<String> data = new ArrayList<String>();
-            String line;
-            while ((line = in.readLine()) != null) {
-                data.add(line);
-            }
-            parseStringArray(data.toArray(new String[data.size()]), table, overwrite);
+            parseLines(in, table, overwrite);
         } finally {
             if (in != null) {
                 in.close();
@@ -104,46 +113,64 @@ public class OBFParser implements FileParser, StreamParser {
         }
     }
 
-    private boolean isCommentLine(String str) {
-        String trimmed = str.trim();
-        return (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("//"));
-    }
-
-    private int parseStringArray(String[] lines, OBFTable table, boolean overwrite) throws FormatException {
+    /**
+     * Parses lines from a reader one at a time, adding each mapping to the table as soon as it is read.
+     *
+     * @param in        The reader to read from.
+     * @param table     The table to write to.
+     * @param overwrite If true overwrite existing mappings.
+     * @return Return the number of lines read.
+     */
+    private int parseLines(BufferedReader in, OBFTable table, boolean overwrite) throws IOException {
+        LineTokenizer tokens = new LineTokenizer(pool);
         int line = 0;
-        for (String str : lines) {
+        String str;
+        while ((str = in.readLine()) != null) {
             line++;
-            if (isCommentLine(str)) {
-                continue;
-            }
-            String[] typeParts = str.split(Patterns.COLON);
-            if (typeParts.length < 2) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-            }
-            TargetType type = TargetType.valueOf(typeParts[0]);
-            if (type == null) {
-                throw new FormatException("Illegal target type on line " + line + ": \"" + typeParts[0] + "\"");
-            }
-            String[] obfParts = typeParts[1].split(Patterns.EQUALS);
-            if (obfParts.length < 2) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-            }
-            if (overwrite || !table.hasTypeDeobf(obfParts[0], type)) {
-                table.addType(obfParts[0], obfParts[1], type);
-            }
+            parseLine(tokens.reset(str), line, table, overwrite);
         }
         return line;
     }
 
+    private void parseLine(LineTokenizer tokens, int line, OBFTable table, boolean overwrite) throws FormatException {
+        if (tokens.isCommentLine()) {
+            return;
+        }
+        if (!tokens.next(':')) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        int typeStart = tokens.start();
+        int typeEnd = tokens.end();
+        if (!tokens.next('=')) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        int obfStart = tokens.start();
+        int obfEnd = tokens.end();
+        if (!tokens.next('=')) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        TargetType type = tokens.getType(typeStart, typeEnd);
+        if (type == null) {
+            throw new FormatException("Illegal target type on line " + line + ": \"" + tokens.substring(typeStart, typeEnd) + "\"");
+        }
+        if (filter != null && !filter.accepts(type, tokens.getLine(), tokens.start(), tokens.end())) {
+            return;
+        }
+        String obf = tokens.substring(obfStart, obfEnd);
+        if (overwrite || !table.hasTypeDeobf(obf, type)) {
+            table.addType(obf, tokens.token(), type);
+        }
+    }
+
     private void writeTable(Writer out, OBFTable table) throws IOException {
         for (TargetType type : TargetType.values()) {
-            for (String obf : table.getAllTypeObf(type)) {
-                String deobf = table.deobfType(obf, type);
+            MappingCursor cursor = table.cursor(type);
+            while (cursor.next()) {
                 out.write(type.name());
                 out.write(":");
-                out.write(obf);
+                out.write(cursor.getObf());
                 out.write("=");
-                out.write(deobf);
+                out.write(cursor.getDeobf());
                 out.write("\n");
             }
         }
@@ -2,10 +2,13 @@ package net.acomputerdog.OBFUtil.parse.types;
 
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingFilter;
+import net.acomputerdog.OBFUtil.parse.StreamParser;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.util.StringPool;
 import net.acomputerdog.OBFUtil.util.TargetType;
-import net.acomputerdog.core.file.TextFileReader;
-import net.acomputerdog.core.java.Patterns;
 
 import java.io.*;
 
@@ -16,9 +19,11 @@ import java.io.*;
  * // Comment type 2
  * <TYPE>.<SIDE>:<OBF>=<DEOBF>
  */
-public class SOBFFileParser implements FileParser {
+public class SOBFFileParser implements FileParser, StreamParser {
 
     private final int side;
+    private StringPool pool;
+    private MappingFilter filter;
 
     /**
      * Creates a new SOBFFileParser.
@@ -29,6 +34,25 @@ public class SOBFFileParser implements FileParser {
         this.side = side;
     }
 
+    /**
+     * Sets the StringPool that loaded names are taken from.  Pooling makes equal names share one String instance.
+     *
+     * @param pool The pool to use, or null to create a new String for every name.
+     */
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the filter that selects which mappings are loaded.  Records that are filtered out are skipped before any
+     * Strings are created for them.
+     *
+     * @param filter The filter to use, or null to load every mapping.
+     */
+    public void setFilter(MappingFilter filter) {
+        this.filter = filter;
+    }
+
     /**
      * Loads all entries located in a File into an OBFTable.
      *
@@ -41,68 +65,78 @@ public class SOBFFileParser implements FileParser {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null!");
         }
-        TextFileReader reader = null;
+        loadEntries(new FileInputStream(file), table, overwrite);
+    }
+
+    /**
+     * Saves all entries located in an OBFTable into a file.
+     *
+     * @param file  The file to write to.  Must exist.
+     * @param table The table to read from
+     * @throws java.io.IOException
+     */
+    @Override
+    public void storeEntries(File file, OBFTable table) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null!");
+        }
+        storeEntries(new FileOutputStream(file), table);
+    }
+
+    /**
+     * Loads all entries located in a stream into an OBFTable.  Each mapping is added to the table as soon as its line is read.
+     *
+     * @param stream    The stream to load from.
+     * @param table     The table to write to.
+     * @param overwrite If true overwrite existing mappings.
+     */
+    @Override
+    public void loadEntries(InputStream stream, OBFTable table, boolean overwrite) throws IOException {
+        if (stream == null) {
+            throw new NullPointerException("Stream cannot be null!");
+        }
+        BufferedReader in = null;
         try {
-            reader = new TextFileReader(file);
+            in = new BufferedReader(new InputStreamReader(stream));
+            LineTokenizer tokens = new LineTokenizer(pool);
             int line = 0;
-            for (String str : reader.readAllLines()) {
+            String str;
+            while ((str = in.readLine()) != null) {
                 line++;
-                if (isCommentLine(str)) {
-                    continue;
-                }
-                String[] typeParts = str.split(Patterns.COLON);
-                if (typeParts.length < 2) {
-                    throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-                }
-                String[] sideParts = typeParts[0].split(Patterns.PERIOD);
-                if (sideParts.length < 2) {
-                    throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-                }
-                TargetType type = TargetType.valueOf(sideParts[0]);
-                int side = Integer.parseInt(sideParts[1]);
-                if (type == null) {
-                    throw new FormatException("Illegal target type on line " + line + ": \"" + typeParts[0] + "\"");
-                }
-                String[] obfParts = typeParts[1].split(Patterns.EQUALS);
-                if (obfParts.length < 2) {
-                    throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-                }
-                if ((overwrite || !table.hasTypeDeobf(obfParts[0], type)) && (side == this.side)) {
-                    table.addType(obfParts[0], obfParts[1], type);
-                }
+                parseLine(tokens.reset(str), line, table, overwrite);
             }
         } finally {
-            if (reader != null) {
-                reader.close();
+            if (in != null) {
+                in.close();
             }
         }
     }
 
     /**
-     * Saves all entries located in an OBFTable into a file.
+     * Saves all entries located in an OBFTable into a stream.
      *
-     * @param file  The file to write to.  Must exist.
-     * @param table The table to read from
+     * @param stream The stream to write to.
+     * @param table  The table to read from
      * @throws java.io.IOException
      */
     @Override
-    public void storeEntries(File file, OBFTable table) throws IOException {
-        if (file == null) {
-            throw new IllegalArgumentException("File must not be null!");
+    public void storeEntries(OutputStream stream, OBFTable table) throws IOException {
+        if (stream == null) {
+            throw new NullPointerException("Stream cannot be null!");
         }
         Writer out = null;
         try {
-            out = new BufferedWriter(new FileWriter(file));
+            out = new BufferedWriter(new OutputStreamWriter(stream));
             for (TargetType type : TargetType.values()) {
-                for (String obf : table.getAllTypeObf(type)) {
-                    String deobf = table.deobfType(obf, type);
+                MappingCursor cursor = table.cursor(type);
+                while (cursor.next()) {
                     out.write(type.name());
                     out.write(".");
-                    out.write(this.side);
+                    out.write(String.valueOf(this.side));
                     out.write(":");
-                    out.write(obf);
+                    out.write(cursor.getObf());
                     out.write("=");
-                    out.write(deobf);
+                    out.write(cursor.getDeobf());
                     out.write("\n");
                 }
             }
@@ -113,8 +147,50 @@ public class SOBFFileParser implements FileParser {
         }
     }
 
-    private boolean isCommentLine(String str) {
-        String trimmed = str.trim();
-        return (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("//"));
+    private void parseLine(LineTokenizer tokens, int line, OBFTable table, boolean overwrite) throws FormatException {
+        if (tokens.isCommentLine()) {
+            return;
+        }
+        if (!tokens.next(':')) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        int typeStart = tokens.start();
+        int typeEnd = tokens.end();
+        int sideStart = tokens.indexOf('.', typeStart, typeEnd) + 1;
+        if (sideStart == 0 || sideStart == typeEnd) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        int sideEnd = tokens.indexOf('.', sideStart, typeEnd);
+        if (sideEnd < 0) {
+            sideEnd = typeEnd;
+        }
+        TargetType type = tokens.getType(typeStart, sideStart - 1);
+        if (type == null) {
+            throw new FormatException("Illegal target type on line " + line + ": \"" + tokens.substring(typeStart, typeEnd) + "\"");
+        }
+        int side;
+        try {
+            side = tokens.parseInt(sideStart, sideEnd);
+        } catch (NumberFormatException e) {
+            throw new FormatException("Illegal side on line " + line + ": \"" + tokens.substring(typeStart, typeEnd) + "\"", e);
+        }
+        if (!tokens.next('=')) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        int obfStart = tokens.start();
+        int obfEnd = tokens.end();
+        if (!tokens.next('=')) {
+            throw new FormatException("Format error on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        if (side != this.side) {
+            return;
+        }
+        if (filter != null && !filter.accepts(type, tokens.getLine(), tokens.start(), tokens.end())) {
+            return;
+        }
+        String obf = tokens.substring(obfStart, obfEnd);
+        if (overwrite || !table.hasTypeDeobf(obf, type)) {
+            table.addType(obf, tokens.token(), type);
+        }
     }
 }
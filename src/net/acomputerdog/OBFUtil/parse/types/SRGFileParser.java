@@ -2,20 +2,38 @@ package net.acomputerdog.OBFUtil.parse.types;
 
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingFilter;
+import net.acomputerdog.OBFUtil.parse.MappedLineReader;
+import net.acomputerdog.OBFUtil.parse.MappingSink;
+import net.acomputerdog.OBFUtil.parse.ParallelLineLoader;
+import net.acomputerdog.OBFUtil.parse.StreamParser;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.util.StringPool;
 import net.acomputerdog.OBFUtil.util.TargetType;
-import net.acomputerdog.core.file.TextFileReader;
-import net.acomputerdog.core.java.Patterns;
 
 import java.io.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Reads and writes obfuscation data to an MCP .srg file.
  */
-public class SRGFileParser implements FileParser {
+public class SRGFileParser implements FileParser, StreamParser {
+
+    private static final int MAX_SECTIONS = 6;
 
     private final String side;
     private final boolean stripDescs;
+    private final ParallelLineLoader.LineParser lineParser = new ParallelLineLoader.LineParser() {
+        @Override
+        public void parseLine(LineTokenizer tokens, int[] parts, int line, MappingSink sink) throws FormatException {
+            SRGFileParser.this.parseLine(tokens, parts, line, sink);
+        }
+    };
+    private StringPool pool;
+    private MappingFilter filter;
+    private ForkJoinPool forkJoinPool;
 
     /**
      * Creates a new SRGFileParser
@@ -29,7 +47,36 @@ public class SRGFileParser implements FileParser {
     }
 
     /**
-     * Loads all entries located in a File into an OBFTable.
+     * Sets the StringPool that loaded names are taken from.  Pooling makes equal names share one String instance.
+     *
+     * @param pool The pool to use, or null to create a new String for every name.
+     */
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the filter that selects which mappings are loaded.  Records that are filtered out are skipped before any
+     * Strings are created for them.
+     *
+     * @param filter The filter to use, or null to load every mapping.
+     */
+    public void setFilter(MappingFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets the ForkJoinPool that files are parsed on.  If a pool is set, files are split into ranges of lines that are
+     * decoded in parallel, and the results are added to the table in file order.  Streams are always read sequentially.
+     *
+     * @param forkJoinPool The pool to use, or null to parse on the calling thread.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Loads all entries located in a File into an OBFTable.  The file is memory-mapped and records are decoded directly from the mapped bytes.
      *
      * @param file      The file to load from.  Must exist.
      * @param table     The table to write to.
@@ -40,50 +87,19 @@ public class SRGFileParser implements FileParser {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null!");
         }
-        TextFileReader reader = null;
-        try {
-            reader = new TextFileReader(file);
+        MappingSink sink = tableSink(table, overwrite);
+        try (MappedLineReader in = new MappedLineReader(file)) {
+            if (forkJoinPool != null) {
+                new ParallelLineLoader(forkJoinPool, pool, MAX_SECTIONS).load(in, lineParser, sink);
+                return;
+            }
+            LineTokenizer tokens = new LineTokenizer(pool);
+            int[] sections = new int[MAX_SECTIONS * 2];
             int line = 0;
-            for (String str : reader.readAllLines()) {
+            CharSequence str;
+            while ((str = in.readLine()) != null) {
                 line++;
-                String[] sections = str.split(Patterns.SPACE);
-                if (sections.length < 3) {
-                    throw new FormatException("Not enough sections on line " + line + ": \"" + str + "\"");
-                }
-                TargetType type = TargetType.getType(sections[0].replace(":", ""));
-                if (type == null) {
-                    throw new FormatException("Illegal target type on line " + line + ": \"" + sections[0] + "\"");
-                }
-                String obf;
-                String deobf;
-                String side;
-                if (type == TargetType.METHOD) {
-                    if (sections.length < 5) {
-                        throw new FormatException("Not enough sections on line " + line + ": \"" + str + "\"");
-                    }
-                    if (stripDescs) {
-                        obf = sections[1].replace('/', '.');
-                        deobf = sections[3].replace('/', '.');
-                    } else {
-                        obf = sections[1].replace('/', '.').concat(" ").concat(sections[2].replace('/', '.'));
-                        deobf = sections[3].replace('/', '.').concat(" ").concat(sections[4].replace('/', '.'));
-                    }
-                    side = (sections.length >= 6) ? sections[5].replace("#", "") : "";
-                } else {
-                    obf = sections[1].replace('/', '.');
-                    deobf = sections[2].replace('/', '.');
-                    side = (sections.length >= 4) ? sections[3].replace("#", "") : "";
-
-
-                }
-                if ((overwrite || !table.hasTypeDeobf(obf, type)) && (side.isEmpty() || side.equals(this.side))) {
-                    table.addType(obf, deobf, type);
-                }
-
-            }
-        } finally {
-            if (reader != null) {
-                reader.close();
+                parseLine(tokens.reset(str), sections, line, sink);
             }
         }
     }
@@ -100,17 +116,63 @@ public class SRGFileParser implements FileParser {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null!");
         }
+        storeEntries(new FileOutputStream(file), table);
+    }
+
+    /**
+     * Loads all entries located in a stream into an OBFTable.  Each mapping is added to the table as soon as its line is read.
+     *
+     * @param stream    The stream to load from.
+     * @param table     The table to write to.
+     * @param overwrite If true overwrite existing mappings.
+     */
+    @Override
+    public void loadEntries(InputStream stream, OBFTable table, boolean overwrite) throws IOException {
+        if (stream == null) {
+            throw new NullPointerException("Stream cannot be null!");
+        }
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader(new InputStreamReader(stream));
+            MappingSink sink = tableSink(table, overwrite);
+            LineTokenizer tokens = new LineTokenizer(pool);
+            int[] sections = new int[MAX_SECTIONS * 2];
+            int line = 0;
+            String str;
+            while ((str = in.readLine()) != null) {
+                line++;
+                parseLine(tokens.reset(str), sections, line, sink);
+            }
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Saves all entries located in an OBFTable into a stream.
+     *
+     * @param stream The stream to write to.
+     * @param table  The table to read from
+     * @throws java.io.IOException
+     */
+    @Override
+    public void storeEntries(OutputStream stream, OBFTable table) throws IOException {
+        if (stream == null) {
+            throw new NullPointerException("Stream cannot be null!");
+        }
         Writer out = null;
         try {
-            out = new BufferedWriter(new FileWriter(file));
+            out = new BufferedWriter(new OutputStreamWriter(stream));
             for (TargetType type : TargetType.values()) {
-                for (String obf : table.getAllTypeObf(type)) {
-                    String deobf = table.deobfType(obf, type);
+                MappingCursor cursor = table.cursor(type);
+                while (cursor.next()) {
                     out.write(getPrefix(type));
                     out.write(": ");
-                    out.write(obf);
+                    out.write(cursor.getObf());
                     out.write(" ");
-                    out.write(deobf);
+                    out.write(cursor.getDeobf());
                     out.write(" #");
                     out.write(side);
                     out.write("\n");
@@ -123,6 +185,78 @@ public class SRGFileParser implements FileParser {
         }
     }
 
+    /**
+     * Creates a sink that adds mappings to a table, skipping mappings that are already defined unless overwrite is set.
+     */
+    private MappingSink tableSink(final OBFTable table, final boolean overwrite) {
+        return new MappingSink() {
+            @Override
+            public void addMapping(TargetType type, String obfName, String seargeName, String deObfName) {
+                if (overwrite || !table.hasTypeDeobf(obfName, type)) {
+                    table.addType(obfName, deObfName, type);
+                }
+            }
+        };
+    }
+
+    private void parseLine(LineTokenizer tokens, int[] sections, int line, MappingSink sink) throws FormatException {
+        int numSections = tokens.split(' ', sections);
+        if (numSections < 3) {
+            throw new FormatException("Not enough sections on line " + line + ": \"" + tokens.getLine() + "\"");
+        }
+        int typeEnd = sections[1];
+        if (typeEnd > sections[0] && tokens.getLine().charAt(typeEnd - 1) == ':') {
+            typeEnd--;
+        }
+        TargetType type = tokens.getType(sections[0], typeEnd);
+        if (type == null) {
+            throw new FormatException("Illegal target type on line " + line + ": \"" + tokens.substring(sections[0], sections[1]) + "\"");
+        }
+        int sideSection;
+        if (type == TargetType.METHOD) {
+            if (numSections < 5) {
+                throw new FormatException("Not enough sections on line " + line + ": \"" + tokens.getLine() + "\"");
+            }
+            sideSection = 5;
+        } else {
+            sideSection = 3;
+        }
+        if (numSections > sideSection && !isSide(tokens, sections[sideSection * 2], sections[sideSection * 2 + 1])) {
+            return;
+        }
+        int nameSection = type == TargetType.METHOD ? 3 : 2;
+        if (filter != null && !filter.accepts(type, tokens.getLine(), sections[nameSection * 2], sections[nameSection * 2 + 1])) {
+            return;
+        }
+        String obf;
+        if (type == TargetType.METHOD && !stripDescs) {
+            obf = tokens.join(sections[2], sections[3], ' ', sections[4], sections[5], '/', '.');
+        } else {
+            obf = tokens.substring(sections[2], sections[3], '/', '.');
+        }
+        String deobf;
+        if (type == TargetType.METHOD) {
+            if (stripDescs) {
+                deobf = tokens.substring(sections[6], sections[7], '/', '.');
+            } else {
+                deobf = tokens.join(sections[6], sections[7], ' ', sections[8], sections[9], '/', '.');
+            }
+        } else {
+            deobf = tokens.substring(sections[4], sections[5], '/', '.');
+        }
+        sink.addMapping(type, obf, null, deobf);
+    }
+
+    /**
+     * Checks if a side marker such as "#C" is unsided or matches the side being read.
+     */
+    private boolean isSide(LineTokenizer tokens, int start, int end) {
+        while (start < end && tokens.getLine().charAt(start) == '#') {
+            start++;
+        }
+        return start == end || tokens.regionEquals(start, end, side);
+    }
+
     private String getPrefix(TargetType type) {
         switch (type) {
             case PACKAGE:
@@ -0,0 +1,513 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * An OBFTable that caches the lookups of another table.  Useful in front of tables where a single lookup is expensive,
+ * such as layered, composed, or lazily decoded tables.
+ * <p/>
+ * Each TargetType has a separate cache for each direction, holding up to a fixed number of names.  Names that are not
+ * mapped are cached as well.  When a cache is full, entries are evicted by the chosen EvictionPolicy.  Writes go
+ * through to the backing table and invalidate every cached entry they could change.  Methods that list or copy the
+ * whole table are not cached.
+ * <p/>
+ * The backing table should not be modified except through this table, or the cache must be cleared afterwards.  A
+ * CachingOBFTable is thread-safe if the backing table is.
+ */
+public class CachingOBFTable implements OBFTable {
+    /**
+     * Marks a cached lookup of a name that is not mapped.
+     */
+    private static final Object NONE = new Object();
+
+    private final OBFTable table;
+    private final Partition[] deobfCaches;
+    private final Partition[] obfCaches;
+    private final Object writeLock = new Object();
+
+    /**
+     * Creates a new CachingOBFTable that evicts the least recently used names.
+     *
+     * @param table   The table to cache.
+     * @param maxSize The maximum number of names cached for each TargetType and direction.
+     */
+    public CachingOBFTable(OBFTable table, int maxSize) {
+        this(table, maxSize, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Creates a new CachingOBFTable.
+     *
+     * @param table   The table to cache.
+     * @param maxSize The maximum number of names cached for each TargetType and direction.
+     * @param policy  The policy used to choose which names to evict.
+     */
+    public CachingOBFTable(OBFTable table, int maxSize, EvictionPolicy policy) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table must not be null!");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Max size must be at least 1!");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null!");
+        }
+        this.table = table;
+        TargetType[] types = TargetType.values();
+        deobfCaches = new Partition[types.length];
+        obfCaches = new Partition[types.length];
+        for (TargetType type : types) {
+            deobfCaches[type.ordinal()] = new Partition(true, maxSize, policy);
+            obfCaches[type.ordinal()] = new Partition(false, maxSize, policy);
+        }
+    }
+
+    /**
+     * Gets the table that this table caches.
+     *
+     * @return Return the backing table.
+     */
+    public OBFTable getTable() {
+        return table;
+    }
+
+    /**
+     * Removes every cached name.  Must be called if the backing table was modified directly.
+     */
+    public void clearCache() {
+        for (Partition cache : deobfCaches) {
+            cache.clear();
+        }
+        for (Partition cache : obfCaches) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Gets the number of lookups that were answered from the cache.
+     *
+     * @return Return the total number of cache hits.
+     */
+    public long getHitCount() {
+        long hits = 0;
+        for (Partition cache : deobfCaches) {
+            hits += cache.getHits();
+        }
+        for (Partition cache : obfCaches) {
+            hits += cache.getHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to go to the backing table.
+     *
+     * @return Return the total number of cache misses.
+     */
+    public long getMissCount() {
+        long misses = 0;
+        for (Partition cache : deobfCaches) {
+            misses += cache.getMisses();
+        }
+        for (Partition cache : obfCaches) {
+            misses += cache.getMisses();
+        }
+        return misses;
+    }
+
+    /**
+     * Gets the number of names that were removed to make room for others.
+     *
+     * @return Return the total number of evictions.
+     */
+    public long getEvictionCount() {
+        long evictions = 0;
+        for (Partition cache : deobfCaches) {
+            evictions += cache.getEvictions();
+        }
+        for (Partition cache : obfCaches) {
+            evictions += cache.getEvictions();
+        }
+        return evictions;
+    }
+
+    @Override
+    public String deobfPackage(String obfName) {
+        return deobfType(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String deobfClass(String obfName) {
+        return deobfType(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String deobfField(String obfName) {
+        return deobfType(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String deobfMethod(String obfName) {
+        return deobfType(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String deobfType(String obfName, TargetType type) {
+        return lookup(deobfCaches[type.ordinal()], obfName, type);
+    }
+
+    @Override
+    public String obfPackage(String deobfName) {
+        return obfType(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String obfClass(String deobfName) {
+        return obfType(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String obfField(String deobfName) {
+        return obfType(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String obfMethod(String deobfName) {
+        return obfType(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String obfType(String deobfName, TargetType type) {
+        return lookup(obfCaches[type.ordinal()], deobfName, type);
+    }
+
+    @Override
+    public void addPackage(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public void addClass(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.CLASS);
+    }
+
+    @Override
+    public void addField(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.FIELD);
+    }
+
+    @Override
+    public void addMethod(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.METHOD);
+    }
+
+    @Override
+    public void addType(String obfName, String deObfName, TargetType type) {
+        Partition deobfCache = deobfCaches[type.ordinal()];
+        Partition obfCache = obfCaches[type.ordinal()];
+        synchronized (writeLock) {
+            String oldDeobf = table.deobfType(obfName, type);
+            String oldObf = table.obfType(deObfName, type);
+            table.addType(obfName, deObfName, type);
+            deobfCache.invalidate(obfName, oldObf);
+            obfCache.invalidate(deObfName, oldDeobf);
+        }
+    }
+
+    @Override
+    public boolean hasPackageObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeObf(String obfName, TargetType type) {
+        return deobfType(obfName, type) != null;
+    }
+
+    @Override
+    public boolean hasPackageDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeDeobf(String deobfName, TargetType type) {
+        return obfType(deobfName, type) != null;
+    }
+
+    @Override
+    public String[] getAllPackagesObf() {
+        return getAllTypeObf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesObf() {
+        return getAllTypeObf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsObf() {
+        return getAllTypeObf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsObf() {
+        return getAllTypeObf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeObf(TargetType type) {
+        return table.getAllTypeObf(type);
+    }
+
+    @Override
+    public String[] getAllPackagesDeobf() {
+        return getAllTypeDeobf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesDeobf() {
+        return getAllTypeDeobf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsDeobf() {
+        return getAllTypeDeobf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsDeobf() {
+        return getAllTypeDeobf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeDeobf(TargetType type) {
+        return table.getAllTypeDeobf(type);
+    }
+
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        return table.getMembersObf(obfOwner, type);
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        return table.getMembersDeobf(deobfOwner, type);
+    }
+
+    @Override
+    public void writeToTable(OBFTable table, boolean overwrite) {
+        this.table.writeToTable(table, overwrite);
+    }
+
+    @Override
+    public MappingCursor cursor(TargetType type) {
+        return table.cursor(type);
+    }
+
+    @Override
+    public Stream<Mapping> stream(TargetType type) {
+        return table.stream(type);
+    }
+
+    private String lookup(Partition cache, String name, TargetType type) {
+        if (name == null) {
+            return cache.load(table, null, type);
+        }
+        Object cached;
+        long generation;
+        synchronized (cache) {
+            cached = cache.get(name);
+            generation = cache.generation;
+        }
+        if (cached != null) {
+            return cached == NONE ? null : (String) cached;
+        }
+        String result = cache.load(table, name, type);
+        synchronized (cache) {
+            if (cache.generation == generation) {
+                cache.put(name, result == null ? NONE : result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Policies for choosing which names to evict from a full cache.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used name.
+         */
+        LRU,
+        /**
+         * Keeps the names that are used most often.  Access counts are estimated with a small sketch that is aged over
+         * time, and a new name only replaces the least recently used name if it has been looked up more often.  This
+         * keeps a hot set of names cached even when many names are looked up once.
+         */
+        FREQUENCY
+    }
+
+    /**
+     * The cache of one TargetType in one direction.  Must be accessed while synchronized on the partition.
+     */
+    private static class Partition {
+        private final boolean toDeobf;
+        private final int maxSize;
+        private final Map<String, Object> entries = new LinkedHashMap<String, Object>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private long generation = 0;
+        private long hits = 0;
+        private long misses = 0;
+        private long evictions = 0;
+
+        private Partition(boolean toDeobf, int maxSize, EvictionPolicy policy) {
+            this.toDeobf = toDeobf;
+            this.maxSize = maxSize;
+            this.sketch = policy == EvictionPolicy.FREQUENCY ? new FrequencySketch(maxSize) : null;
+        }
+
+        private String load(OBFTable table, String name, TargetType type) {
+            return toDeobf ? table.deobfType(name, type) : table.obfType(name, type);
+        }
+
+        private Object get(String name) {
+            if (sketch != null) {
+                sketch.increment(name);
+            }
+            Object value = entries.get(name);
+            if (value != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return value;
+        }
+
+        private void put(String name, Object value) {
+            if (entries.size() >= maxSize && !entries.containsKey(name)) {
+                Iterator<String> names = entries.keySet().iterator();
+                String eldest = names.next();
+                if (sketch != null && sketch.frequency(name) <= sketch.frequency(eldest)) {
+                    return;
+                }
+                names.remove();
+                evictions++;
+            }
+            entries.put(name, value);
+        }
+
+        private synchronized void invalidate(String name1, String name2) {
+            entries.remove(name1);
+            if (name2 != null) {
+                entries.remove(name2);
+            }
+            generation++;
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+            generation++;
+        }
+
+        private synchronized long getHits() {
+            return hits;
+        }
+
+        private synchronized long getMisses() {
+            return misses;
+        }
+
+        private synchronized long getEvictions() {
+            return evictions;
+        }
+    }
+
+    /**
+     * Estimates how often names are looked up using a count-min sketch of 4-bit counters.  Counters are halved after a
+     * number of increments proportional to the cache size, so that names that are no longer used are eventually
+     * forgotten.
+     */
+    private static class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int increments = 0;
+
+        private FrequencySketch(int maxSize) {
+            int size = 64;
+            while (size < maxSize * 4 && size < (1 << 26)) {
+                size <<= 1;
+            }
+            this.counters = new byte[size];
+            this.mask = size - 1;
+            this.sampleSize = (int) Math.min(Integer.MAX_VALUE, maxSize * 10L);
+        }
+
+        private void increment(String name) {
+            int hash = name.hashCode() * 0x9E3779B9;
+            for (int row = 0; row < 4; row++) {
+                int index = index(hash, row);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                }
+            }
+            if (++increments >= sampleSize) {
+                for (int index = 0; index < counters.length; index++) {
+                    counters[index] >>= 1;
+                }
+                increments = 0;
+            }
+        }
+
+        private int frequency(String name) {
+            int hash = name.hashCode() * 0x9E3779B9;
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < 4; row++) {
+                frequency = Math.min(frequency, counters[index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int rowHash = (hash + row * 0x85EBCA6B) * 0xC2B2AE35;
+            return (rowHash ^ (rowHash >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,682 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A read-only view of two tables chained together, such as an obfuscated -> searge table followed by a searge -> MCP
+ * table.  Nothing is joined up front; each lookup goes through both tables and the result is memoized.
+ * <p/>
+ * A name is deobfuscated by the first table, and the result is then renamed by the second table.  If the second table
+ * does not map the whole name, it is rewritten piece by piece, the same way BLConfigGen joins SRG and MCP names: the
+ * owner is renamed through the second table's class (or package) mappings, and for fields and methods the simple name
+ * is looked up on it's own, as in MCP CSV tables, and class names in the descriptor are renamed.  Parts that the second
+ * table does not map are kept, so names that only the first table maps pass through unchanged.
+ * <p/>
+ * Reverse lookups undo the second table by looking for the member of the owner that rewrites to the name, so simple names
+ * that the second table maps ambiguously are still resolved exactly.  The names between the two tables are exposed as
+ * searge names.
+ * <p/>
+ * Each TargetType memoizes up to a fixed number of names in each direction, evicting the least recently used.  Names
+ * that are not mapped are not memoized.  Memoized results are not updated if either table changes; call clearCache()
+ * after modifying them.  A ComposedOBFTable is thread-safe if both tables are.
+ */
+public class ComposedOBFTable implements OBFTableSRG {
+    /**
+     * The number of names memoized for each TargetType and direction by compose(first, second).
+     */
+    public static final int DEFAULT_MEMO_SIZE = 4096;
+
+    private final OBFTable first;
+    private final OBFTable second;
+    private final Memo[] deobfMemos;
+    private final Memo[] obfMemos;
+
+    private ComposedOBFTable(OBFTable first, OBFTable second, int memoSize) {
+        this.first = first;
+        this.second = second;
+        TargetType[] types = TargetType.values();
+        deobfMemos = new Memo[types.length];
+        obfMemos = new Memo[types.length];
+        for (TargetType type : types) {
+            deobfMemos[type.ordinal()] = new Memo(memoSize);
+            obfMemos[type.ordinal()] = new Memo(memoSize);
+        }
+    }
+
+    /**
+     * Chains two tables.  Deobfuscating a name with the returned table is the same as deobfuscating it with first, and
+     * then renaming the result with second.
+     *
+     * @param first  The table that maps obfuscated names to intermediate names.
+     * @param second The table that maps intermediate names to deobfuscated names.
+     * @return Return a view of the two tables chained together.
+     */
+    public static ComposedOBFTable compose(OBFTable first, OBFTable second) {
+        return compose(first, second, DEFAULT_MEMO_SIZE);
+    }
+
+    /**
+     * Chains two tables, memoizing up to memoSize names for each TargetType and direction.
+     *
+     * @param first    The table that maps obfuscated names to intermediate names.
+     * @param second   The table that maps intermediate names to deobfuscated names.
+     * @param memoSize The maximum number of names memoized for each TargetType and direction.
+     * @return Return a view of the two tables chained together.
+     */
+    public static ComposedOBFTable compose(OBFTable first, OBFTable second, int memoSize) {
+        if (first == null || second == null) {
+            throw new IllegalArgumentException("Tables must not be null!");
+        }
+        if (memoSize < 1) {
+            throw new IllegalArgumentException("Memo size must be at least 1!");
+        }
+        return new ComposedOBFTable(first, second, memoSize);
+    }
+
+    /**
+     * Gets the table that maps obfuscated names to intermediate names.
+     *
+     * @return Return the first table.
+     */
+    public OBFTable getFirst() {
+        return first;
+    }
+
+    /**
+     * Gets the table that maps intermediate names to deobfuscated names.
+     *
+     * @return Return the second table.
+     */
+    public OBFTable getSecond() {
+        return second;
+    }
+
+    /**
+     * Forgets all memoized lookups.  Must be called if either table was modified.
+     */
+    public void clearCache() {
+        for (Memo memo : deobfMemos) {
+            memo.clear();
+        }
+        for (Memo memo : obfMemos) {
+            memo.clear();
+        }
+    }
+
+    @Override
+    public String deobfPackage(String obfName) {
+        return deobfType(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String deobfClass(String obfName) {
+        return deobfType(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String deobfField(String obfName) {
+        return deobfType(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String deobfMethod(String obfName) {
+        return deobfType(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String deobfType(String obfName, TargetType type) {
+        if (obfName == null) {
+            return null;
+        }
+        Memo memo = deobfMemos[type.ordinal()];
+        String deobfName;
+        long generation;
+        synchronized (memo) {
+            deobfName = memo.entries.get(obfName);
+            generation = memo.generation;
+        }
+        if (deobfName == null) {
+            String searge = first.deobfType(obfName, type);
+            deobfName = searge == null ? null : rewrite(searge, type);
+            if (deobfName != null) {
+                memo.put(obfName, deobfName, generation);
+            }
+        }
+        return deobfName;
+    }
+
+    @Override
+    public String obfPackage(String deobfName) {
+        return obfType(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String obfClass(String deobfName) {
+        return obfType(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String obfField(String deobfName) {
+        return obfType(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String obfMethod(String deobfName) {
+        return obfType(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String obfType(String deobfName, TargetType type) {
+        if (deobfName == null) {
+            return null;
+        }
+        Memo memo = obfMemos[type.ordinal()];
+        String obfName;
+        long generation;
+        synchronized (memo) {
+            obfName = memo.entries.get(deobfName);
+            generation = memo.generation;
+        }
+        if (obfName == null) {
+            String searge = unrewrite(deobfName, type);
+            obfName = searge == null ? null : first.obfType(searge, type);
+            if (obfName != null && deobfName.equals(deobfType(obfName, type))) {
+                memo.put(deobfName, obfName, generation);
+            } else {
+                obfName = null;
+            }
+        }
+        return obfName;
+    }
+
+    @Override
+    public void addPackage(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addClass(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addField(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addMethod(String obfName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addType(String obfName, String deObfName, TargetType type) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addPackageSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addClassSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addFieldSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addMethodSRG(String obfName, String seargeName, String deObfName) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean hasPackageObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeObf(String obfName, TargetType type) {
+        return first.hasTypeObf(obfName, type);
+    }
+
+    @Override
+    public boolean hasPackageDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeDeobf(String deobfName, TargetType type) {
+        return obfType(deobfName, type) != null;
+    }
+
+    @Override
+    public boolean hasPackageSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeSRG(String srgName, TargetType type) {
+        return first.hasTypeDeobf(srgName, type);
+    }
+
+    @Override
+    public String getObfFromSRGPackage(String searge) {
+        return getObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getObfFromSRGClass(String searge) {
+        return getObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getObfFromSRGField(String searge) {
+        return getObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getObfFromSRGMethod(String searge) {
+        return getObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getObfFromSRGType(String searge, TargetType type) {
+        return first.obfType(searge, type);
+    }
+
+    @Override
+    public String getDeObfFromSRGPackage(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getDeObfFromSRGClass(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getDeObfFromSRGField(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getDeObfFromSRGMethod(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getDeObfFromSRGType(String searge, TargetType type) {
+        return deobfType(first.obfType(searge, type), type);
+    }
+
+    @Override
+    public String getSRGFromObfPackage(String obf) {
+        return getSRGFromObfType(obf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromObfClass(String obf) {
+        return getSRGFromObfType(obf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromObfField(String obf) {
+        return getSRGFromObfType(obf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromObfMethod(String obf) {
+        return getSRGFromObfType(obf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromObfType(String obf, TargetType type) {
+        return first.deobfType(obf, type);
+    }
+
+    @Override
+    public String getSRGFromDeObfPackage(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromDeObfClass(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromDeObfField(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromDeObfMethod(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromDeObfType(String deobf, TargetType type) {
+        return first.deobfType(obfType(deobf, type), type);
+    }
+
+    @Override
+    public String[] getAllPackagesObf() {
+        return getAllTypeObf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesObf() {
+        return getAllTypeObf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsObf() {
+        return getAllTypeObf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsObf() {
+        return getAllTypeObf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeObf(TargetType type) {
+        return first.getAllTypeObf(type);
+    }
+
+    @Override
+    public String[] getAllPackagesDeobf() {
+        return getAllTypeDeobf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesDeobf() {
+        return getAllTypeDeobf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsDeobf() {
+        return getAllTypeDeobf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsDeobf() {
+        return getAllTypeDeobf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeDeobf(TargetType type) {
+        String[] names = first.getAllTypeObf(type).clone();
+        for (int index = 0; index < names.length; index++) {
+            names[index] = deobfType(names[index], type);
+        }
+        return names;
+    }
+
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        return first.getMembersObf(obfOwner, type);
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        Set<String> members = new LinkedHashSet<String>();
+        for (String searge : first.getMembersDeobf(unrewriteOwner(deobfOwner, type), type)) {
+            String member = rewrite(searge, type);
+            if (MemberKey.ownerOf(member).equals(deobfOwner)) {
+                members.add(member);
+            }
+        }
+        return members.toArray(new String[members.size()]);
+    }
+
+    @Override
+    public void writeToTable(OBFTable table, boolean overwrite) {
+        OBFTableSRG tableSRG = (table instanceof OBFTableSRG) ? (OBFTableSRG) table : null;
+        for (TargetType type : TargetType.values()) {
+            MappingCursor cursor = cursor(type);
+            while (cursor.next()) {
+                if (overwrite || !table.hasTypeObf(cursor.getObf(), type)) {
+                    if (tableSRG != null) {
+                        tableSRG.addTypeSRG(cursor.getObf(), cursor.getSRG(), cursor.getDeobf(), type);
+                    } else {
+                        table.addType(cursor.getObf(), cursor.getDeobf(), type);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public MappingCursor cursor(final TargetType type) {
+        final MappingCursor cursor = first.cursor(type);
+        return new MappingCursor() {
+            @Override
+            public boolean next() {
+                return cursor.next();
+            }
+
+            @Override
+            public String getObf() {
+                return cursor.getObf();
+            }
+
+            @Override
+            public String getSRG() {
+                return cursor.getDeobf();
+            }
+
+            @Override
+            public String getDeobf() {
+                return deobfType(cursor.getObf(), type);
+            }
+        };
+    }
+
+    @Override
+    public Stream<Mapping> stream(final TargetType type) {
+        return first.stream(type).map(new Function<Mapping, Mapping>() {
+            @Override
+            public Mapping apply(Mapping mapping) {
+                return new Mapping(type, mapping.getObf(), mapping.getDeobf(), deobfType(mapping.getObf(), type));
+            }
+        });
+    }
+
+    /**
+     * Renames an intermediate name with the second table.
+     */
+    private String rewrite(String name, TargetType type) {
+        String renamed = second.deobfType(name, type);
+        if (renamed != null) {
+            return renamed;
+        }
+        MemberKey key = MemberKey.parse(name);
+        String owner = key.getOwner();
+        if (!owner.isEmpty()) {
+            String renamedOwner = second.deobfType(owner, ownerType(type));
+            if (renamedOwner != null) {
+                owner = renamedOwner;
+            }
+        }
+        String simpleName = key.getName();
+        String desc = key.getDesc();
+        if (type == TargetType.FIELD || type == TargetType.METHOD) {
+            String renamedName = second.deobfType(simpleName, type);
+            if (renamedName != null) {
+                simpleName = renamedName;
+            }
+            if (desc != null) {
+                desc = rewriteDesc(desc);
+            }
+        }
+        if (owner == key.getOwner() && simpleName == key.getName() && desc == key.getDesc()) {
+            return name;
+        }
+        return new MemberKey(owner, simpleName, desc).toString();
+    }
+
+    /**
+     * Finds the intermediate name that rewrite() turns into a deobfuscated name.
+     */
+    private String unrewrite(String name, TargetType type) {
+        String searge = second.obfType(name, type);
+        if (searge != null && name.equals(rewrite(searge, type))) {
+            return searge;
+        }
+        for (String member : first.getMembersDeobf(unrewriteOwner(MemberKey.ownerOf(name), type), type)) {
+            if (name.equals(rewrite(member, type))) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    private String unrewriteOwner(String owner, TargetType type) {
+        if (owner.isEmpty()) {
+            return owner;
+        }
+        String renamed = second.obfType(owner, ownerType(type));
+        return renamed == null ? owner : renamed;
+    }
+
+    /**
+     * Renames the classes in a descriptor with the second table.
+     */
+    private String rewriteDesc(String desc) {
+        StringBuilder builder = null;
+        int last = 0;
+        int start = desc.indexOf('L');
+        while (start >= 0) {
+            int end = desc.indexOf(';', start);
+            if (end < 0) {
+                break;
+            }
+            String renamed = second.deobfClass(desc.substring(start + 1, end));
+            if (renamed != null) {
+                if (builder == null) {
+                    builder = new StringBuilder(desc.length() + 16);
+                }
+                builder.append(desc, last, start + 1);
+                builder.append(renamed);
+                last = end;
+            }
+            start = desc.indexOf('L', end);
+        }
+        if (builder == null) {
+            return desc;
+        }
+        builder.append(desc, last, desc.length());
+        return builder.toString();
+    }
+
+    /**
+     * Gets the type of the owner of a name: fields and methods are owned by classes, and classes and packages by
+     * packages.
+     */
+    private static TargetType ownerType(TargetType type) {
+        return (type == TargetType.FIELD || type == TargetType.METHOD) ? TargetType.CLASS : TargetType.PACKAGE;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("ComposedOBFTable is read-only!");
+    }
+
+    /**
+     * The memoized lookups of one TargetType in one direction, in least recently used order.  Must be accessed while
+     * synchronized on the memo.
+     */
+    private static class Memo {
+        private final Map<String, String> entries = new LinkedHashMap<String, String>(16, 0.75f, true);
+        private final int maxSize;
+        private long generation = 0;
+
+        private Memo(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Memoizes a lookup, unless the memo was cleared since the lookup started.
+         */
+        private synchronized void put(String name, String value, long generation) {
+            if (this.generation != generation) {
+                return;
+            }
+            if (entries.size() >= maxSize && !entries.containsKey(name)) {
+                Iterator<String> names = entries.keySet().iterator();
+                names.next();
+                names.remove();
+            }
+            entries.put(name, value);
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+            generation++;
+        }
+    }
+}
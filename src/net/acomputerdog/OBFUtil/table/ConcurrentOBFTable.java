@@ -0,0 +1,508 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+/**
+ * A thread-safe OBFTableSRG for tables that are read by many threads and modified while they do.
+ * <p/>
+ * The mappings are kept in a PersistentOBFTable.  Reads are lock-free: every read goes to the current version of that
+ * table through a volatile field, and versions never change once published.  Writes are serialized.  A single add*()
+ * call publishes a new version that shares all but O(log n) nodes with the old one, so adding mappings one at a time,
+ * as a hot reload does, never copies the table.  Bulk changes should be made through update(), which applies any
+ * number of changes to a fork of the table and publishes them together, so readers see either none or all of them.
+ * <p/>
+ * Like DirectOBFTableSRG, mappings are iterated in the order they were added, so loading a file into the table and
+ * writing it back keeps the order of the file.
+ */
+public class ConcurrentOBFTable implements OBFTableSRG {
+    private final Object writeLock = new Object();
+    private volatile PersistentOBFTable current;
+
+    /**
+     * Creates a new, empty ConcurrentOBFTable that stores names as they are given.
+     */
+    public ConcurrentOBFTable() {
+        this((StringPool) null);
+    }
+
+    /**
+     * Creates a new, empty ConcurrentOBFTable.
+     *
+     * @param pool The StringPool to canonicalize added names through, or null to store names as they are given.  The
+     *             pool is used from every thread that writes to the table, and must be thread-safe.
+     */
+    public ConcurrentOBFTable(StringPool pool) {
+        current = new PersistentOBFTable(pool);
+    }
+
+    /**
+     * Creates a new ConcurrentOBFTable containing the mappings of another table.
+     *
+     * @param source The table to copy mappings from.
+     */
+    public ConcurrentOBFTable(OBFTable source) {
+        this(source, null);
+    }
+
+    /**
+     * Creates a new ConcurrentOBFTable containing the mappings of another table.
+     *
+     * @param source The table to copy mappings from.
+     * @param pool   The StringPool to canonicalize added names through, or null to store names as they are given.  The
+     *               pool is used from every thread that writes to the table, and must be thread-safe.
+     */
+    public ConcurrentOBFTable(OBFTable source, StringPool pool) {
+        PersistentOBFTable initial = new PersistentOBFTable(pool);
+        copyInto(source, initial);
+        current = initial;
+    }
+
+    /**
+     * Atomically applies a group of changes.  The changes are made to a fork of the table, which replaces the visible
+     * table only once the update completes, so readers see either none or all of the changes.  Forking takes constant
+     * time, and each change only copies the part of the table it modifies.  If the update throws an exception, none of
+     * its changes are applied.  Updates are serialized with all other writes.
+     *
+     * @param update The changes to make.
+     * @throws IOException If the update throws an IOException.
+     */
+    public void update(Update update) throws IOException {
+        synchronized (writeLock) {
+            PersistentOBFTable next = current.fork();
+            update.apply(next);
+            current = next;
+        }
+    }
+
+    /**
+     * Gets a read-only snapshot of the current mappings in constant time.  The snapshot is not affected by later
+     * writes.
+     *
+     * @return Return a read-only PersistentOBFTable.
+     */
+    public PersistentOBFTable snapshot() {
+        return current.snapshot();
+    }
+
+    @Override
+    public String deobfPackage(String obfName) {
+        return current.deobfPackage(obfName);
+    }
+
+    @Override
+    public String deobfClass(String obfName) {
+        return current.deobfClass(obfName);
+    }
+
+    @Override
+    public String deobfField(String obfName) {
+        return current.deobfField(obfName);
+    }
+
+    @Override
+    public String deobfMethod(String obfName) {
+        return current.deobfMethod(obfName);
+    }
+
+    @Override
+    public String deobfType(String obfName, TargetType type) {
+        return current.deobfType(obfName, type);
+    }
+
+    @Override
+    public String obfPackage(String deobfName) {
+        return current.obfPackage(deobfName);
+    }
+
+    @Override
+    public String obfClass(String deobfName) {
+        return current.obfClass(deobfName);
+    }
+
+    @Override
+    public String obfField(String deobfName) {
+        return current.obfField(deobfName);
+    }
+
+    @Override
+    public String obfMethod(String deobfName) {
+        return current.obfMethod(deobfName);
+    }
+
+    @Override
+    public String obfType(String deobfName, TargetType type) {
+        return current.obfType(deobfName, type);
+    }
+
+    @Override
+    public MemberKey deobfMember(MemberKey obfKey, TargetType type) {
+        return current.deobfMember(obfKey, type);
+    }
+
+    @Override
+    public MemberKey obfMember(MemberKey deobfKey, TargetType type) {
+        return current.obfMember(deobfKey, type);
+    }
+
+    @Override
+    public boolean hasPackageObf(String obfName) {
+        return current.hasPackageObf(obfName);
+    }
+
+    @Override
+    public boolean hasClassObf(String obfName) {
+        return current.hasClassObf(obfName);
+    }
+
+    @Override
+    public boolean hasFieldObf(String obfName) {
+        return current.hasFieldObf(obfName);
+    }
+
+    @Override
+    public boolean hasMethodObf(String obfName) {
+        return current.hasMethodObf(obfName);
+    }
+
+    @Override
+    public boolean hasTypeObf(String obfName, TargetType type) {
+        return current.hasTypeObf(obfName, type);
+    }
+
+    @Override
+    public boolean hasPackageDeobf(String deobfName) {
+        return current.hasPackageDeobf(deobfName);
+    }
+
+    @Override
+    public boolean hasClassDeobf(String deobfName) {
+        return current.hasClassDeobf(deobfName);
+    }
+
+    @Override
+    public boolean hasFieldDeobf(String deobfName) {
+        return current.hasFieldDeobf(deobfName);
+    }
+
+    @Override
+    public boolean hasMethodDeobf(String deobfName) {
+        return current.hasMethodDeobf(deobfName);
+    }
+
+    @Override
+    public boolean hasTypeDeobf(String deobfName, TargetType type) {
+        return current.hasTypeDeobf(deobfName, type);
+    }
+
+    @Override
+    public String[] getAllPackagesObf() {
+        return current.getAllPackagesObf();
+    }
+
+    @Override
+    public String[] getAllClassesObf() {
+        return current.getAllClassesObf();
+    }
+
+    @Override
+    public String[] getAllFieldsObf() {
+        return current.getAllFieldsObf();
+    }
+
+    @Override
+    public String[] getAllMethodsObf() {
+        return current.getAllMethodsObf();
+    }
+
+    @Override
+    public String[] getAllTypeObf(TargetType type) {
+        return current.getAllTypeObf(type);
+    }
+
+    @Override
+    public String[] getAllPackagesDeobf() {
+        return current.getAllPackagesDeobf();
+    }
+
+    @Override
+    public String[] getAllClassesDeobf() {
+        return current.getAllClassesDeobf();
+    }
+
+    @Override
+    public String[] getAllFieldsDeobf() {
+        return current.getAllFieldsDeobf();
+    }
+
+    @Override
+    public String[] getAllMethodsDeobf() {
+        return current.getAllMethodsDeobf();
+    }
+
+    @Override
+    public String[] getAllTypeDeobf(TargetType type) {
+        return current.getAllTypeDeobf(type);
+    }
+
+    @Override
+    public String getObfFromSRGPackage(String searge) {
+        return current.getObfFromSRGPackage(searge);
+    }
+
+    @Override
+    public String getObfFromSRGClass(String searge) {
+        return current.getObfFromSRGClass(searge);
+    }
+
+    @Override
+    public String getObfFromSRGField(String searge) {
+        return current.getObfFromSRGField(searge);
+    }
+
+    @Override
+    public String getObfFromSRGMethod(String searge) {
+        return current.getObfFromSRGMethod(searge);
+    }
+
+    @Override
+    public String getObfFromSRGType(String searge, TargetType type) {
+        return current.getObfFromSRGType(searge, type);
+    }
+
+    @Override
+    public String getDeObfFromSRGPackage(String searge) {
+        return current.getDeObfFromSRGPackage(searge);
+    }
+
+    @Override
+    public String getDeObfFromSRGClass(String searge) {
+        return current.getDeObfFromSRGClass(searge);
+    }
+
+    @Override
+    public String getDeObfFromSRGField(String searge) {
+        return current.getDeObfFromSRGField(searge);
+    }
+
+    @Override
+    public String getDeObfFromSRGMethod(String searge) {
+        return current.getDeObfFromSRGMethod(searge);
+    }
+
+    @Override
+    public String getDeObfFromSRGType(String searge, TargetType type) {
+        return current.getDeObfFromSRGType(searge, type);
+    }
+
+    @Override
+    public String getSRGFromObfPackage(String obf) {
+        return current.getSRGFromObfPackage(obf);
+    }
+
+    @Override
+    public String getSRGFromObfClass(String obf) {
+        return current.getSRGFromObfClass(obf);
+    }
+
+    @Override
+    public String getSRGFromObfField(String obf) {
+        return current.getSRGFromObfField(obf);
+    }
+
+    @Override
+    public String getSRGFromObfMethod(String obf) {
+        return current.getSRGFromObfMethod(obf);
+    }
+
+    @Override
+    public String getSRGFromObfType(String obf, TargetType type) {
+        return current.getSRGFromObfType(obf, type);
+    }
+
+    @Override
+    public String getSRGFromDeObfPackage(String deobf) {
+        return current.getSRGFromDeObfPackage(deobf);
+    }
+
+    @Override
+    public String getSRGFromDeObfClass(String deobf) {
+        return current.getSRGFromDeObfClass(deobf);
+    }
+
+    @Override
+    public String getSRGFromDeObfField(String deobf) {
+        return current.getSRGFromDeObfField(deobf);
+    }
+
+    @Override
+    public String getSRGFromDeObfMethod(String deobf) {
+        return current.getSRGFromDeObfMethod(deobf);
+    }
+
+    @Override
+    public String getSRGFromDeObfType(String deobf, TargetType type) {
+        return current.getSRGFromDeObfType(deobf, type);
+    }
+
+    @Override
+    public boolean hasPackageSRG(String srgName) {
+        return current.hasPackageSRG(srgName);
+    }
+
+    @Override
+    public boolean hasClassSRG(String srgName) {
+        return current.hasClassSRG(srgName);
+    }
+
+    @Override
+    public boolean hasMethodSRG(String srgName) {
+        return current.hasMethodSRG(srgName);
+    }
+
+    @Override
+    public boolean hasFieldSRG(String srgName) {
+        return current.hasFieldSRG(srgName);
+    }
+
+    @Override
+    public boolean hasTypeSRG(String srgName, TargetType type) {
+        return current.hasTypeSRG(srgName, type);
+    }
+
+    @Override
+    public void addPackage(String obfName, String deObfName) {
+        synchronized (writeLock) {
+            current.addPackage(obfName, deObfName);
+        }
+    }
+
+    @Override
+    public void addClass(String obfName, String deObfName) {
+        synchronized (writeLock) {
+            current.addClass(obfName, deObfName);
+        }
+    }
+
+    @Override
+    public void addField(String obfName, String deObfName) {
+        synchronized (writeLock) {
+            current.addField(obfName, deObfName);
+        }
+    }
+
+    @Override
+    public void addMethod(String obfName, String deObfName) {
+        synchronized (writeLock) {
+            current.addMethod(obfName, deObfName);
+        }
+    }
+
+    @Override
+    public void addType(String obfName, String deObfName, TargetType type) {
+        synchronized (writeLock) {
+            current.addType(obfName, deObfName, type);
+        }
+    }
+
+    @Override
+    public void addPackageSRG(String obfName, String seargeName, String deObfName) {
+        synchronized (writeLock) {
+            current.addPackageSRG(obfName, seargeName, deObfName);
+        }
+    }
+
+    @Override
+    public void addClassSRG(String obfName, String seargeName, String deObfName) {
+        synchronized (writeLock) {
+            current.addClassSRG(obfName, seargeName, deObfName);
+        }
+    }
+
+    @Override
+    public void addFieldSRG(String obfName, String seargeName, String deObfName) {
+        synchronized (writeLock) {
+            current.addFieldSRG(obfName, seargeName, deObfName);
+        }
+    }
+
+    @Override
+    public void addMethodSRG(String obfName, String seargeName, String deObfName) {
+        synchronized (writeLock) {
+            current.addMethodSRG(obfName, seargeName, deObfName);
+        }
+    }
+
+    @Override
+    public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+        synchronized (writeLock) {
+            current.addTypeSRG(obfName, seargeName, deObfName, type);
+        }
+    }
+
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        return current.getMembersObf(obfOwner, type);
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        return current.getMembersDeobf(deobfOwner, type);
+    }
+
+    @Override
+    public void writeToTable(OBFTable table, boolean overwrite) {
+        current.writeToTable(table, overwrite);
+    }
+
+    /**
+     * Creates a cursor over the mappings of a TargetType.  The cursor walks the snapshot of the table that was current
+     * when it was created, so it is not affected by later writes.
+     *
+     * @param type The type of mappings to walk.
+     * @return Return a new cursor positioned before the first mapping.
+     */
+    @Override
+    public MappingCursor cursor(TargetType type) {
+        return current.cursor(type);
+    }
+
+    /**
+     * Creates a stream of the mappings of a TargetType.  Like cursor(), the stream covers the snapshot of the table that
+     * was current when it was created.
+     *
+     * @param type The type of mappings to stream.
+     * @return Return a new sequential stream of the mappings.
+     */
+    @Override
+    public Stream<Mapping> stream(TargetType type) {
+        return current.stream(type);
+    }
+
+    private static void copyInto(OBFTable source, OBFTableSRG dest) {
+        for (TargetType type : TargetType.values()) {
+            MappingCursor cursor = source.cursor(type);
+            while (cursor.next()) {
+                String srg = cursor.getSRG();
+                dest.addTypeSRG(cursor.getObf(), srg != null ? srg : cursor.getDeobf(), cursor.getDeobf(), type);
+            }
+        }
+    }
+
+    /**
+     * A group of changes to apply atomically with update().
+     */
+    public interface Update {
+        /**
+         * Makes changes to a table.
+         *
+         * @param table The private fork of the table to modify.  Must not be used after this method returns.
+         * @throws IOException If an IO error occurs, such as while loading a file into the table.
+         */
+        public void apply(OBFTableSRG table) throws IOException;
+    }
+}
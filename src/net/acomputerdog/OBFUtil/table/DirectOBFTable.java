@@ -1,48 +1,278 @@
 package net.acomputerdog.OBFUtil.table;
 
+import net.acomputerdog.OBFUtil.util.BloomFilter;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.MemberKey;
 import net.acomputerdog.OBFUtil.util.TargetType;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * A simple, direct implementation of OBFTable.  Uses HashMaps and ArrayLists to store data.
+ * A simple, direct implementation of OBFTable.  Uses insertion-ordered LinkedHashMaps to store data, so that
+ * lookups, membership checks, and ordered iteration are all backed by the same hash index.
+ * <p/>
+ * Every mapping is also indexed by it's owner in both directions, so that getMembersObf() and getMembersDeobf() do
+ * not have to scan the whole table.
+ * <p/>
+ * Adding a mapping for an obfuscated name that is already mapped replaces the old mapping, and removes the old
+ * deobfuscated name from the reverse map and owner index.  Re-adding the same mappings therefore never grows the table.
+ * If several obfuscated names are mapped to the same deobfuscated name, reverse lookups return the one added last, and
+ * the reverse mapping is removed once that one is remapped.
+ * <p/>
+ * If a StringPool is provided, every added name is canonicalized through it so that equal names share one String.
+ * <p/>
+ * Bloom filters of the names of each TargetType can be enabled with enableBloomFilters().  Lookups and membership checks
+ * of names that a filter rules out then return without probing the maps.  Filters are disabled by default, because a
+ * HashMap miss on a String with a cached hash is already about as cheap as a filter check, and a hit pays for both.
+ * <p/>
+ * An index of the mappings by MemberKey can be enabled with enableMemberKeyIndex().  deobfMember() and obfMember() then
+ * look keys up directly and return the stored keys, instead of converting them to Strings and parsing the result.  The
+ * index is disabled by default, because it keeps a second pair of maps for every TargetType.
  */
 public class DirectOBFTable implements OBFTable {
-    private final Map<String, String> packageMapObf = new HashMap<String, String>();
-    private final List<String> packageListObf = new ArrayList<String>();
-    private final Map<String, String> classMapObf = new HashMap<String, String>();
-    private final List<String> classListObf = new ArrayList<String>();
-    private final Map<String, String> fieldMapObf = new HashMap<String, String>();
-    private final List<String> fieldListObf = new ArrayList<String>();
-    private final Map<String, String> methodMapObf = new HashMap<String, String>();
-    private final List<String> methodListObf = new ArrayList<String>();
-    private final Map<String, String> packageMapDeobf = new HashMap<String, String>();
-    private final List<String> packageListDeobf = new ArrayList<String>();
-    private final Map<String, String> classMapDeobf = new HashMap<String, String>();
-    private final List<String> classListDeobf = new ArrayList<String>();
-    private final Map<String, String> fieldMapDeobf = new HashMap<String, String>();
-    private final List<String> fieldListDeobf = new ArrayList<String>();
-    private final Map<String, String> methodMapDeobf = new HashMap<String, String>();
-    private final List<String> methodListDeobf = new ArrayList<String>();
+    private static final int MIN_FILTER_CAPACITY = 64;
+
+    private final Map<String, String> packageMapObf;
+    private final Map<String, String> classMapObf;
+    private final Map<String, String> fieldMapObf;
+    private final Map<String, String> methodMapObf;
+    private final Map<String, String> packageMapDeobf;
+    private final Map<String, String> classMapDeobf;
+    private final Map<String, String> fieldMapDeobf;
+    private final Map<String, String> methodMapDeobf;
+    private final Map<String, Set<String>> packageOwnersObf = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> classOwnersObf = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> fieldOwnersObf = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> methodOwnersObf = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> packageOwnersDeobf = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> classOwnersDeobf = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> fieldOwnersDeobf = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> methodOwnersDeobf = new HashMap<String, Set<String>>();
+    private final StringPool pool;
+    private double filterRate;
+    private BloomFilter[] obfFilters;
+    private BloomFilter[] deobfFilters;
+    private MemberKeyIndex[] memberKeyIndexes;
 
+    /**
+     * Creates a new, empty DirectOBFTable that stores names as they are given.
+     */
+    public DirectOBFTable() {
+        this(null);
+    }
+
+    /**
+     * Creates a new, empty DirectOBFTable.
+     *
+     * @param pool The StringPool to canonicalize added names through, or null to store names as they are given.
+     */
+    public DirectOBFTable(StringPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Creates a new, empty DirectOBFTable with room for a known number of mappings, so that it's maps do not have to
+     * grow while it is filled.
+     *
+     * @param pool          The StringPool to canonicalize added names through, or null to store names as they are given.
+     * @param expectedSizes The expected number of mappings of each TargetType, indexed by ordinal, or null to use the
+     *                      default sizes.
+     */
+    public DirectOBFTable(StringPool pool, int[] expectedSizes) {
+        this.pool = pool;
+        packageMapObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.PACKAGE));
+        packageMapDeobf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.PACKAGE));
+        classMapObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.CLASS));
+        classMapDeobf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.CLASS));
+        fieldMapObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.FIELD));
+        fieldMapDeobf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.FIELD));
+        methodMapObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.METHOD));
+        methodMapDeobf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.METHOD));
+    }
+
+    /**
+     * Gets the initial capacity of a HashMap that holds the expected number of mappings of a TargetType without growing.
+     *
+     * @param expectedSizes The expected number of mappings of each TargetType, indexed by ordinal, or null.
+     * @param type          The type to get the capacity for.
+     * @return Return the initial capacity to use.
+     */
+    protected static int capacityFor(int[] expectedSizes, TargetType type) {
+        if (expectedSizes == null) {
+            return 16;
+        }
+        return Math.max(16, (int) (expectedSizes[type.ordinal()] / 0.75f) + 1);
+    }
+
+    /**
+     * Gets the canonical instance of a name from this table's StringPool.
+     *
+     * @param name The name to canonicalize.
+     * @return Return the pooled name, or name itself if this table has no pool.
+     */
+    protected String intern(String name) {
+        return pool == null ? name : pool.intern(name);
+    }
+
+    /**
+     * Enables Bloom filters of the obfuscated and deobfuscated names of every TargetType.  The filters are built from
+     * the current mappings and kept up to date as mappings are added, growing when they fill up.  If filters are already
+     * enabled, they are rebuilt with the new rate.
+     *
+     * @param falsePositiveRate The rate at which names that are not mapped still probe the maps.  Must be between 0 and 1.
+     */
+    public void enableBloomFilters(double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1!");
+        }
+        filterRate = falsePositiveRate;
+        TargetType[] types = TargetType.values();
+        BloomFilter[] newObfFilters = new BloomFilter[types.length];
+        BloomFilter[] newDeobfFilters = new BloomFilter[types.length];
+        for (TargetType type : types) {
+            newObfFilters[type.ordinal()] = createFilter(getObfMap(type).keySet());
+            newDeobfFilters[type.ordinal()] = createFilter(getDeobfMap(type).keySet());
+        }
+        obfFilters = newObfFilters;
+        deobfFilters = newDeobfFilters;
+    }
+
+    /**
+     * Disables Bloom filters, so that every lookup probes the maps.
+     */
+    public void disableBloomFilters() {
+        obfFilters = null;
+        deobfFilters = null;
+    }
+
+    /**
+     * Checks if Bloom filters are enabled.
+     *
+     * @return Return true if enableBloomFilters() has been called and filters have not been disabled since.
+     */
+    public boolean hasBloomFilters() {
+        return obfFilters != null;
+    }
+
+    /**
+     * Creates a Bloom filter containing a set of names, sized for twice as many names at the enabled rate.
+     *
+     * @param names The names to add.
+     * @return Return a new BloomFilter.
+     */
+    protected BloomFilter createFilter(Set<String> names) {
+        BloomFilter filter = new BloomFilter(Math.max(MIN_FILTER_CAPACITY, names.size() * 2), filterRate);
+        for (String name : names) {
+            filter.add(name);
+        }
+        return filter;
+    }
+
+    /**
+     * Adds a name to a Bloom filter, or rebuilds the filter from a set of names if it is full.
+     *
+     * @param filter The filter to add to.
+     * @param names  The names the filter is built from, already including name.
+     * @param name   The name to add.
+     * @return Return the filter containing name, which is a new filter if the old one was rebuilt.
+     */
+    protected BloomFilter updateFilter(BloomFilter filter, Set<String> names, String name) {
+        if (filter.size() >= filter.getCapacity()) {
+            return createFilter(names);
+        }
+        filter.add(name);
+        return filter;
+    }
+
+    /**
+     * Checks an obfuscated name against the Bloom filter of a TargetType.
+     *
+     * @param type    The type of the name.
+     * @param obfName The obfuscated name.
+     * @return Return false if the name is definitely not mapped, true if it may be or if filters are disabled.
+     */
+    protected boolean mightContainObf(TargetType type, String obfName) {
+        BloomFilter[] filters = obfFilters;
+        return filters == null || filters[type.ordinal()].mightContain(obfName);
+    }
+
+    /**
+     * Checks a deobfuscated name against the Bloom filter of a TargetType.
+     *
+     * @param type      The type of the name.
+     * @param deobfName The deobfuscated name.
+     * @return Return false if the name is definitely not mapped, true if it may be or if filters are disabled.
+     */
+    protected boolean mightContainDeobf(TargetType type, String deobfName) {
+        BloomFilter[] filters = deobfFilters;
+        return filters == null || filters[type.ordinal()].mightContain(deobfName);
+    }
+
+    private void updateFilters(TargetType type, String obfName, String deObfName) {
+        if (obfFilters != null) {
+            int index = type.ordinal();
+            obfFilters[index] = updateFilter(obfFilters[index], getObfMap(type).keySet(), obfName);
+            deobfFilters[index] = updateFilter(deobfFilters[index], getDeobfMap(type).keySet(), deObfName);
+        }
+    }
+
+    /**
+     * Enables indexes of the mappings of every TargetType by MemberKey, for deobfMember() and obfMember().  The indexes
+     * are built from the current mappings and kept up to date as mappings are added.
+     */
+    public void enableMemberKeyIndex() {
+        TargetType[] types = TargetType.values();
+        MemberKeyIndex[] indexes = new MemberKeyIndex[types.length];
+        for (TargetType type : types) {
+            indexes[type.ordinal()] = new MemberKeyIndex(getObfMap(type), getDeobfMap(type));
+        }
+        memberKeyIndexes = indexes;
+    }
+
+    /**
+     * Disables the MemberKey indexes, so that deobfMember() and obfMember() look up the String forms of keys.
+     */
+    public void disableMemberKeyIndex() {
+        memberKeyIndexes = null;
+    }
+
+    /**
+     * Checks if MemberKey indexes are enabled.
+     *
+     * @return Return true if enableMemberKeyIndex() has been called and the indexes have not been disabled since.
+     */
+    public boolean hasMemberKeyIndex() {
+        return memberKeyIndexes != null;
+    }
+
+    private void updateMemberKeys(TargetType type, Map<String, String> mapDeobf, String obfName, String oldDeobfName, String deObfName) {
+        if (memberKeyIndexes != null) {
+            memberKeyIndexes[type.ordinal()].update(mapDeobf, obfName, oldDeobfName, deObfName);
+        }
+    }
 
     public String deobfPackage(String obfName) {
-        return packageMapObf.get(obfName);
+        return mightContainObf(TargetType.PACKAGE, obfName) ? packageMapObf.get(obfName) : null;
     }
 
     public String deobfClass(String obfName) {
-        return classMapObf.get(obfName);
+        return mightContainObf(TargetType.CLASS, obfName) ? classMapObf.get(obfName) : null;
     }
 
     public String deobfField(String obfName) {
-        return fieldMapObf.get(obfName);
+        return mightContainObf(TargetType.FIELD, obfName) ? fieldMapObf.get(obfName) : null;
     }
 
     public String deobfMethod(String obfName) {
-        return methodMapObf.get(obfName);
+        return mightContainObf(TargetType.METHOD, obfName) ? methodMapObf.get(obfName) : null;
     }
 
     @Override
@@ -66,6 +296,15 @@ public class DirectOBFTable implements OBFTable {
         }
     }
 
+    @Override
+    public MemberKey deobfMember(MemberKey obfKey, TargetType type) {
+        MemberKeyIndex[] indexes = memberKeyIndexes;
+        if (indexes == null) {
+            return OBFTable.super.deobfMember(obfKey, type);
+        }
+        return obfKey == null ? null : indexes[type.ordinal()].obfToDeobf.get(obfKey);
+    }
+
     /**
      * Gets the obfuscated name of a package.
      *
@@ -74,7 +313,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String obfPackage(String deobfName) {
-        return packageMapDeobf.get(deobfName);
+        return mightContainDeobf(TargetType.PACKAGE, deobfName) ? packageMapDeobf.get(deobfName) : null;
     }
 
     /**
@@ -85,7 +324,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String obfClass(String deobfName) {
-        return classMapDeobf.get(deobfName);
+        return mightContainDeobf(TargetType.CLASS, deobfName) ? classMapDeobf.get(deobfName) : null;
     }
 
     /**
@@ -96,7 +335,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String obfField(String deobfName) {
-        return fieldMapDeobf.get(deobfName);
+        return mightContainDeobf(TargetType.FIELD, deobfName) ? fieldMapDeobf.get(deobfName) : null;
     }
 
     /**
@@ -107,7 +346,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String obfMethod(String deobfName) {
-        return methodMapDeobf.get(deobfName);
+        return mightContainDeobf(TargetType.METHOD, deobfName) ? methodMapDeobf.get(deobfName) : null;
     }
 
     /**
@@ -138,32 +377,29 @@ public class DirectOBFTable implements OBFTable {
         }
     }
 
+    @Override
+    public MemberKey obfMember(MemberKey deobfKey, TargetType type) {
+        MemberKeyIndex[] indexes = memberKeyIndexes;
+        if (indexes == null) {
+            return OBFTable.super.obfMember(deobfKey, type);
+        }
+        return deobfKey == null ? null : indexes[type.ordinal()].deobfToObf.get(deobfKey);
+    }
+
     public void addPackage(String obfName, String deObfName) {
-        packageMapObf.put(obfName, deObfName);
-        packageListObf.add(obfName);
-        packageMapDeobf.put(deObfName, obfName);
-        packageListDeobf.add(deObfName);
+        putMapping(TargetType.PACKAGE, packageMapObf, packageMapDeobf, packageOwnersObf, packageOwnersDeobf, intern(obfName), intern(deObfName));
     }
 
     public void addClass(String obfName, String deObfName) {
-        classMapObf.put(obfName, deObfName);
-        classListObf.add(obfName);
-        classMapDeobf.put(deObfName, obfName);
-        classListDeobf.add(deObfName);
+        putMapping(TargetType.CLASS, classMapObf, classMapDeobf, classOwnersObf, classOwnersDeobf, intern(obfName), intern(deObfName));
     }
 
     public void addField(String obfName, String deObfName) {
-        fieldMapObf.put(obfName, deObfName);
-        fieldListObf.add(obfName);
-        fieldMapDeobf.put(deObfName, obfName);
-        fieldListDeobf.add(deObfName);
+        putMapping(TargetType.FIELD, fieldMapObf, fieldMapDeobf, fieldOwnersObf, fieldOwnersDeobf, intern(obfName), intern(deObfName));
     }
 
     public void addMethod(String obfName, String deObfName) {
-        methodMapObf.put(obfName, deObfName);
-        methodListObf.add(obfName);
-        methodMapDeobf.put(deObfName, obfName);
-        methodListDeobf.add(deObfName);
+        putMapping(TargetType.METHOD, methodMapObf, methodMapDeobf, methodOwnersObf, methodOwnersDeobf, intern(obfName), intern(deObfName));
     }
 
     @Override
@@ -199,7 +435,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public boolean hasPackageObf(String obfName) {
-        return packageListObf.contains(obfName);
+        return mightContainObf(TargetType.PACKAGE, obfName) && packageMapObf.containsKey(obfName);
     }
 
     /**
@@ -210,7 +446,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public boolean hasClassObf(String obfName) {
-        return classListObf.contains(obfName);
+        return mightContainObf(TargetType.CLASS, obfName) && classMapObf.containsKey(obfName);
     }
 
     /**
@@ -221,7 +457,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public boolean hasFieldObf(String obfName) {
-        return fieldListObf.contains(obfName);
+        return mightContainObf(TargetType.FIELD, obfName) && fieldMapObf.containsKey(obfName);
     }
 
     /**
@@ -232,7 +468,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public boolean hasMethodObf(String obfName) {
-        return methodListObf.contains(obfName);
+        return mightContainObf(TargetType.METHOD, obfName) && methodMapObf.containsKey(obfName);
     }
 
     /**
@@ -265,22 +501,22 @@ public class DirectOBFTable implements OBFTable {
 
     @Override
     public boolean hasPackageDeobf(String deobfName) {
-        return packageListDeobf.contains(deobfName);
+        return mightContainDeobf(TargetType.PACKAGE, deobfName) && packageMapDeobf.containsKey(deobfName);
     }
 
     @Override
     public boolean hasClassDeobf(String deobfName) {
-        return classListDeobf.contains(deobfName);
+        return mightContainDeobf(TargetType.CLASS, deobfName) && classMapDeobf.containsKey(deobfName);
     }
 
     @Override
     public boolean hasFieldDeobf(String deobfName) {
-        return fieldListDeobf.contains(deobfName);
+        return mightContainDeobf(TargetType.FIELD, deobfName) && fieldMapDeobf.containsKey(deobfName);
     }
 
     @Override
     public boolean hasMethodDeobf(String deobfName) {
-        return methodListDeobf.contains(deobfName);
+        return mightContainDeobf(TargetType.METHOD, deobfName) && methodMapDeobf.containsKey(deobfName);
     }
 
     @Override
@@ -306,22 +542,22 @@ public class DirectOBFTable implements OBFTable {
 
     @Override
     public String[] getAllPackagesObf() {
-        return packageListObf.toArray(new String[packageListObf.size()]);
+        return packageMapObf.keySet().toArray(new String[packageMapObf.size()]);
     }
 
     @Override
     public String[] getAllClassesObf() {
-        return classListObf.toArray(new String[classListObf.size()]);
+        return classMapObf.keySet().toArray(new String[classMapObf.size()]);
     }
 
     @Override
     public String[] getAllFieldsObf() {
-        return fieldListObf.toArray(new String[fieldListObf.size()]);
+        return fieldMapObf.keySet().toArray(new String[fieldMapObf.size()]);
     }
 
     @Override
     public String[] getAllMethodsObf() {
-        return methodListObf.toArray(new String[methodListObf.size()]);
+        return methodMapObf.keySet().toArray(new String[methodMapObf.size()]);
     }
 
     @Override
@@ -352,7 +588,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String[] getAllPackagesDeobf() {
-        return packageListDeobf.toArray(new String[packageListDeobf.size()]);
+        return packageMapObf.values().toArray(new String[packageMapObf.size()]);
     }
 
     /**
@@ -362,7 +598,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String[] getAllClassesDeobf() {
-        return classListDeobf.toArray(new String[classListDeobf.size()]);
+        return classMapObf.values().toArray(new String[classMapObf.size()]);
     }
 
     /**
@@ -372,7 +608,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String[] getAllFieldsDeobf() {
-        return fieldListDeobf.toArray(new String[fieldListDeobf.size()]);
+        return fieldMapObf.values().toArray(new String[fieldMapObf.size()]);
     }
 
     /**
@@ -382,7 +618,7 @@ public class DirectOBFTable implements OBFTable {
      */
     @Override
     public String[] getAllMethodsDeobf() {
-        return methodListDeobf.toArray(new String[methodListDeobf.size()]);
+        return methodMapObf.values().toArray(new String[methodMapObf.size()]);
     }
 
     /**
@@ -412,28 +648,268 @@ public class DirectOBFTable implements OBFTable {
         }
     }
 
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        switch (type) {
+            case PACKAGE: {
+                return getMembers(packageOwnersObf, obfOwner);
+            }
+            case CLASS: {
+                return getMembers(classOwnersObf, obfOwner);
+            }
+            case FIELD: {
+                return getMembers(fieldOwnersObf, obfOwner);
+            }
+            case METHOD: {
+                return getMembers(methodOwnersObf, obfOwner);
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown target type: " + type.name());
+            }
+        }
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        switch (type) {
+            case PACKAGE: {
+                return getMembers(packageOwnersDeobf, deobfOwner);
+            }
+            case CLASS: {
+                return getMembers(classOwnersDeobf, deobfOwner);
+            }
+            case FIELD: {
+                return getMembers(fieldOwnersDeobf, deobfOwner);
+            }
+            case METHOD: {
+                return getMembers(methodOwnersDeobf, deobfOwner);
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown target type: " + type.name());
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces a mapping.  If the obfuscated name was mapped to a different name before, the old reverse
+     * mapping and owner index entry are removed, so that re-adding mappings never leaves stale entries behind.
+     */
+    private void putMapping(TargetType type, Map<String, String> mapObf, Map<String, String> mapDeobf, Map<String, Set<String>> ownersObf, Map<String, Set<String>> ownersDeobf, String obfName, String deObfName) {
+        String oldDeobfName = mapObf.put(obfName, deObfName);
+        if (oldDeobfName == null) {
+            addOwner(ownersObf, obfName);
+        } else if (oldDeobfName.equals(deObfName)) {
+            // Another obfuscated name may have taken the reverse mapping and then given it up since.
+            if (mapDeobf.put(deObfName, obfName) == null) {
+                addOwner(ownersDeobf, deObfName);
+            }
+            updateMemberKeys(type, mapDeobf, obfName, oldDeobfName, deObfName);
+            return;
+        } else if (obfName.equals(mapDeobf.get(oldDeobfName))) {
+            mapDeobf.remove(oldDeobfName);
+            removeOwner(ownersDeobf, oldDeobfName);
+        }
+        if (mapDeobf.put(deObfName, obfName) == null) {
+            addOwner(ownersDeobf, deObfName);
+        }
+        updateFilters(type, obfName, deObfName);
+        updateMemberKeys(type, mapDeobf, obfName, oldDeobfName, deObfName);
+    }
+
+    private static void addOwner(Map<String, Set<String>> owners, String member) {
+        String owner = MemberKey.ownerOf(member);
+        Set<String> members = owners.get(owner);
+        if (members == null) {
+            members = new LinkedHashSet<String>();
+            owners.put(owner, members);
+        }
+        members.add(member);
+    }
+
+    private static void removeOwner(Map<String, Set<String>> owners, String member) {
+        String owner = MemberKey.ownerOf(member);
+        Set<String> members = owners.get(owner);
+        if (members != null && members.remove(member) && members.isEmpty()) {
+            owners.remove(owner);
+        }
+    }
+
+    private static String[] getMembers(Map<String, Set<String>> owners, String owner) {
+        Set<String> members = owners.get(owner);
+        if (members == null) {
+            return new String[0];
+        }
+        return members.toArray(new String[members.size()]);
+    }
+
     @Override
     public void writeToTable(OBFTable table, boolean overwrite) {
-        for (String obfName : packageListObf) {
-            if (overwrite || !table.hasPackageObf(obfName)) {
-                table.addPackage(obfName, packageMapObf.get(obfName));
+        for (TargetType type : TargetType.values()) {
+            MappingCursor cursor = cursor(type);
+            while (cursor.next()) {
+                if (overwrite || !table.hasTypeObf(cursor.getObf(), type)) {
+                    table.addType(cursor.getObf(), cursor.getDeobf(), type);
+                }
             }
         }
-        for (String obfName : classListObf) {
-            if (overwrite || !table.hasClassObf(obfName)) {
-                table.addClass(obfName, classMapObf.get(obfName));
+    }
+
+    @Override
+    public MappingCursor cursor(TargetType type) {
+        return new MapCursor(getObfMap(type), type);
+    }
+
+    @Override
+    public Stream<Mapping> stream(final TargetType type) {
+        return StreamSupport.stream(getObfMap(type).entrySet().spliterator(), false).map(new Function<Map.Entry<String, String>, Mapping>() {
+            @Override
+            public Mapping apply(Map.Entry<String, String> entry) {
+                return createMapping(type, entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    /**
+     * Creates the Mapping returned by stream() for an entry of this table.
+     *
+     * @param type  The type of the mapping.
+     * @param obf   The obfuscated name.
+     * @param deobf The deobfuscated name.
+     * @return Return a new Mapping.
+     */
+    protected Mapping createMapping(TargetType type, String obf, String deobf) {
+        return new Mapping(type, obf, null, deobf);
+    }
+
+    /**
+     * Gets the map from obfuscated to deobfuscated names of a TargetType.
+     *
+     * @param type The type of map to get.
+     * @return Return the map.  Must not be modified.
+     */
+    protected Map<String, String> getObfMap(TargetType type) {
+        switch (type) {
+            case PACKAGE: {
+                return packageMapObf;
+            }
+            case CLASS: {
+                return classMapObf;
+            }
+            case FIELD: {
+                return fieldMapObf;
+            }
+            case METHOD: {
+                return methodMapObf;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown target type: " + type.name());
             }
         }
-        for (String obfName : fieldListObf) {
-            if (overwrite || !table.hasFieldObf(obfName)) {
-                table.addField(obfName, fieldMapObf.get(obfName));
+    }
+
+    private Map<String, String> getDeobfMap(TargetType type) {
+        switch (type) {
+            case PACKAGE: {
+                return packageMapDeobf;
+            }
+            case CLASS: {
+                return classMapDeobf;
+            }
+            case FIELD: {
+                return fieldMapDeobf;
+            }
+            case METHOD: {
+                return methodMapDeobf;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown target type: " + type.name());
             }
         }
-        for (String obfName : methodListObf) {
-            if (overwrite || !table.hasMethodObf(obfName)) {
-                table.addMethod(obfName, methodMapObf.get(obfName));
+    }
+
+    /**
+     * A MappingCursor over the entries of one of this table's maps.
+     */
+    protected class MapCursor implements MappingCursor {
+        protected final TargetType type;
+        private final Iterator<Map.Entry<String, String>> entries;
+        private Map.Entry<String, String> entry;
+
+        protected MapCursor(Map<String, String> map, TargetType type) {
+            this.type = type;
+            this.entries = map.entrySet().iterator();
+        }
+
+        @Override
+        public boolean next() {
+            entry = entries.hasNext() ? entries.next() : null;
+            return entry != null;
+        }
+
+        @Override
+        public String getObf() {
+            return current().getKey();
+        }
+
+        @Override
+        public String getSRG() {
+            return null;
+        }
+
+        @Override
+        public String getDeobf() {
+            return current().getValue();
+        }
+
+        private Map.Entry<String, String> current() {
+            if (entry == null) {
+                throw new IllegalStateException("Cursor is not on a mapping!");
             }
+            return entry;
         }
     }
 
+    /**
+     * The mappings of one TargetType, keyed by MemberKey in both directions.
+     */
+    private static class MemberKeyIndex {
+        private final Map<MemberKey, MemberKey> obfToDeobf;
+        private final Map<MemberKey, MemberKey> deobfToObf;
+
+        private MemberKeyIndex(Map<String, String> mapObf, Map<String, String> mapDeobf) {
+            obfToDeobf = new HashMap<MemberKey, MemberKey>(Math.max(16, (int) (mapObf.size() / 0.75f) + 1));
+            deobfToObf = new HashMap<MemberKey, MemberKey>(Math.max(16, (int) (mapDeobf.size() / 0.75f) + 1));
+            // Share one key per name between both maps.
+            Map<String, MemberKey> keys = new HashMap<String, MemberKey>();
+            for (Map.Entry<String, String> entry : mapObf.entrySet()) {
+                obfToDeobf.put(keyOf(keys, entry.getKey()), keyOf(keys, entry.getValue()));
+            }
+            for (Map.Entry<String, String> entry : mapDeobf.entrySet()) {
+                deobfToObf.put(keyOf(keys, entry.getKey()), keyOf(keys, entry.getValue()));
+            }
+        }
+
+        private static MemberKey keyOf(Map<String, MemberKey> keys, String name) {
+            MemberKey key = keys.get(name);
+            if (key == null) {
+                key = MemberKey.parse(name);
+                keys.put(name, key);
+            }
+            return key;
+        }
+
+        /**
+         * Mirrors a call to putMapping().  Afterwards deObfName always maps back to obfName, and oldDeobfName maps back
+         * to nothing if putMapping() removed it's reverse mapping.
+         */
+        private void update(Map<String, String> mapDeobf, String obfName, String oldDeobfName, String deObfName) {
+            MemberKey obfKey = MemberKey.parse(obfName);
+            MemberKey deobfKey = MemberKey.parse(deObfName);
+            obfToDeobf.put(obfKey, deobfKey);
+            deobfToObf.put(deobfKey, obfKey);
+            if (oldDeobfName != null && !oldDeobfName.equals(deObfName) && !mapDeobf.containsKey(oldDeobfName)) {
+                deobfToObf.remove(MemberKey.parse(oldDeobfName));
+            }
+        }
+    }
 }
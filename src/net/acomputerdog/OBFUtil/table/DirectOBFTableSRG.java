@@ -1,16 +1,140 @@
 package net.acomputerdog.OBFUtil.table;
 
+import net.acomputerdog.OBFUtil.util.BloomFilter;
+import net.acomputerdog.OBFUtil.util.StringPool;
 import net.acomputerdog.OBFUtil.util.TargetType;
-import net.acomputerdog.core.storage.TripleStringMap;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * OBFTable that adds support for a third "searge" obfuscation name.  Based on DirectOBFTable.
+ * Only the obfuscated <-> searge links are stored here; deobfuscated names are resolved through the superclass maps
+ * instead of being stored a second time.
+ * <p/>
+ * The obfuscated -> searge maps are insertion-ordered, and every add puts the same obfuscated name into them and into
+ * the superclass maps, so both hold their keys in the same order.  Cursors walk them in step instead of looking up the
+ * searge name of every mapping.
+ * <p/>
+ * When Bloom filters are enabled, searge names are filtered as well.
  */
 public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
-    private final TripleStringMap packages = new TripleStringMap();
-    private final TripleStringMap classes = new TripleStringMap();
-    private final TripleStringMap fields = new TripleStringMap();
-    private final TripleStringMap methods = new TripleStringMap();
+    private final Map<String, String> packageSRGFromObf;
+    private final Map<String, String> packageObfFromSRG;
+    private final Map<String, String> classSRGFromObf;
+    private final Map<String, String> classObfFromSRG;
+    private final Map<String, String> fieldSRGFromObf;
+    private final Map<String, String> fieldObfFromSRG;
+    private final Map<String, String> methodSRGFromObf;
+    private final Map<String, String> methodObfFromSRG;
+    private BloomFilter[] srgFilters;
+
+    /**
+     * Creates a new, empty DirectOBFTableSRG that stores names as they are given.
+     */
+    public DirectOBFTableSRG() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a new, empty DirectOBFTableSRG.
+     *
+     * @param pool The StringPool to canonicalize added names through, or null to store names as they are given.
+     */
+    public DirectOBFTableSRG(StringPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Creates a new, empty DirectOBFTableSRG with room for a known number of mappings.
+     *
+     * @param pool          The StringPool to canonicalize added names through, or null to store names as they are given.
+     * @param expectedSizes The expected number of mappings of each TargetType, indexed by ordinal, or null to use the
+     *                      default sizes.
+     */
+    public DirectOBFTableSRG(StringPool pool, int[] expectedSizes) {
+        super(pool, expectedSizes);
+        packageSRGFromObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.PACKAGE));
+        packageObfFromSRG = new HashMap<String, String>(capacityFor(expectedSizes, TargetType.PACKAGE));
+        classSRGFromObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.CLASS));
+        classObfFromSRG = new HashMap<String, String>(capacityFor(expectedSizes, TargetType.CLASS));
+        fieldSRGFromObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.FIELD));
+        fieldObfFromSRG = new HashMap<String, String>(capacityFor(expectedSizes, TargetType.FIELD));
+        methodSRGFromObf = new LinkedHashMap<String, String>(capacityFor(expectedSizes, TargetType.METHOD));
+        methodObfFromSRG = new HashMap<String, String>(capacityFor(expectedSizes, TargetType.METHOD));
+    }
+
+    @Override
+    public void enableBloomFilters(double falsePositiveRate) {
+        super.enableBloomFilters(falsePositiveRate);
+        TargetType[] types = TargetType.values();
+        BloomFilter[] newSRGFilters = new BloomFilter[types.length];
+        for (TargetType type : types) {
+            newSRGFilters[type.ordinal()] = createFilter(getSRGMap(type).keySet());
+        }
+        srgFilters = newSRGFilters;
+    }
+
+    @Override
+    public void disableBloomFilters() {
+        super.disableBloomFilters();
+        srgFilters = null;
+    }
+
+    /**
+     * Checks a searge name against the Bloom filter of a TargetType.
+     *
+     * @param type    The type of the name.
+     * @param srgName The searge name.
+     * @return Return false if the name is definitely not mapped, true if it may be or if filters are disabled.
+     */
+    protected boolean mightContainSRG(TargetType type, String srgName) {
+        BloomFilter[] filters = srgFilters;
+        return filters == null || filters[type.ordinal()].mightContain(srgName);
+    }
+
+    private void updateSRGFilter(TargetType type, String seargeName) {
+        if (srgFilters != null) {
+            int index = type.ordinal();
+            srgFilters[index] = updateFilter(srgFilters[index], getSRGMap(type).keySet(), seargeName);
+        }
+    }
+
+    /**
+     * Adds or replaces the searge name of an obfuscated name, removing the reverse mapping of the old searge name.
+     */
+    private void putSRG(TargetType type, Map<String, String> srgFromObf, Map<String, String> obfFromSRG, String obfName, String seargeName) {
+        String oldSeargeName = srgFromObf.put(obfName, seargeName);
+        if (oldSeargeName != null && !oldSeargeName.equals(seargeName) && obfName.equals(obfFromSRG.get(oldSeargeName))) {
+            obfFromSRG.remove(oldSeargeName);
+        }
+        obfFromSRG.put(seargeName, obfName);
+        if (oldSeargeName == null || !oldSeargeName.equals(seargeName)) {
+            updateSRGFilter(type, seargeName);
+        }
+    }
+
+    private Map<String, String> getSRGMap(TargetType type) {
+        switch (type) {
+            case PACKAGE: {
+                return packageObfFromSRG;
+            }
+            case CLASS: {
+                return classObfFromSRG;
+            }
+            case FIELD: {
+                return fieldObfFromSRG;
+            }
+            case METHOD: {
+                return methodObfFromSRG;
+            }
+            default: {
+                throw new IllegalArgumentException("Invalid TargetType!");
+            }
+        }
+    }
 
     @Override
     public void addPackage(String obfName, String deObfName) {
@@ -59,23 +183,31 @@ public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
     }
 
     public void addPackageSRG(String obfName, String seargeName, String deObfName) {
+        obfName = intern(obfName);
+        seargeName = intern(seargeName);
         super.addPackage(obfName, deObfName);
-        packages.addItems(obfName, seargeName, deObfName);
+        putSRG(TargetType.PACKAGE, packageSRGFromObf, packageObfFromSRG, obfName, seargeName);
     }
 
     public void addClassSRG(String obfName, String seargeName, String deObfName) {
+        obfName = intern(obfName);
+        seargeName = intern(seargeName);
         super.addClass(obfName, deObfName);
-        classes.addItems(obfName, seargeName, deObfName);
+        putSRG(TargetType.CLASS, classSRGFromObf, classObfFromSRG, obfName, seargeName);
     }
 
     public void addFieldSRG(String obfName, String seargeName, String deObfName) {
+        obfName = intern(obfName);
+        seargeName = intern(seargeName);
         super.addField(obfName, deObfName);
-        fields.addItems(obfName, seargeName, deObfName);
+        putSRG(TargetType.FIELD, fieldSRGFromObf, fieldObfFromSRG, obfName, seargeName);
     }
 
     public void addMethodSRG(String obfName, String seargeName, String deObfName) {
+        obfName = intern(obfName);
+        seargeName = intern(seargeName);
         super.addMethod(obfName, deObfName);
-        methods.addItems(obfName, seargeName, deObfName);
+        putSRG(TargetType.METHOD, methodSRGFromObf, methodObfFromSRG, obfName, seargeName);
     }
 
     @Override
@@ -105,19 +237,19 @@ public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
 
 
     public String getObfFromSRGPackage(String searge) {
-        return packages.getFrom2(searge).getItem1();
+        return mightContainSRG(TargetType.PACKAGE, searge) ? packageObfFromSRG.get(searge) : null;
     }
 
     public String getObfFromSRGClass(String searge) {
-        return classes.getFrom2(searge).getItem1();
+        return mightContainSRG(TargetType.CLASS, searge) ? classObfFromSRG.get(searge) : null;
     }
 
     public String getObfFromSRGField(String searge) {
-        return fields.getFrom2(searge).getItem1();
+        return mightContainSRG(TargetType.FIELD, searge) ? fieldObfFromSRG.get(searge) : null;
     }
 
     public String getObfFromSRGMethod(String searge) {
-        return methods.getFrom2(searge).getItem1();
+        return mightContainSRG(TargetType.METHOD, searge) ? methodObfFromSRG.get(searge) : null;
     }
 
     public String getObfFromSRGType(String searge, TargetType type) {
@@ -141,19 +273,19 @@ public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
     }
 
     public String getDeObfFromSRGPackage(String searge) {
-        return packages.getFrom2(searge).getItem3();
+        return deobfPackage(getObfFromSRGPackage(searge));
     }
 
     public String getDeObfFromSRGClass(String searge) {
-        return classes.getFrom2(searge).getItem3();
+        return deobfClass(getObfFromSRGClass(searge));
     }
 
     public String getDeObfFromSRGField(String searge) {
-        return fields.getFrom2(searge).getItem3();
+        return deobfField(getObfFromSRGField(searge));
     }
 
     public String getDeObfFromSRGMethod(String searge) {
-        return methods.getFrom2(searge).getItem3();
+        return deobfMethod(getObfFromSRGMethod(searge));
     }
 
     public String getDeObfFromSRGType(String searge, TargetType type) {
@@ -177,19 +309,19 @@ public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
     }
 
     public String getSRGFromObfPackage(String obf) {
-        return packages.getFrom1(obf).getItem2();
+        return mightContainObf(TargetType.PACKAGE, obf) ? packageSRGFromObf.get(obf) : null;
     }
 
     public String getSRGFromObfClass(String obf) {
-        return classes.getFrom1(obf).getItem2();
+        return mightContainObf(TargetType.CLASS, obf) ? classSRGFromObf.get(obf) : null;
     }
 
     public String getSRGFromObfField(String obf) {
-        return fields.getFrom1(obf).getItem2();
+        return mightContainObf(TargetType.FIELD, obf) ? fieldSRGFromObf.get(obf) : null;
     }
 
     public String getSRGFromObfMethod(String obf) {
-        return methods.getFrom1(obf).getItem2();
+        return mightContainObf(TargetType.METHOD, obf) ? methodSRGFromObf.get(obf) : null;
     }
 
     public String getSRGFromObfType(String obf, TargetType type) {
@@ -213,19 +345,19 @@ public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
     }
 
     public String getSRGFromDeObfPackage(String deobf) {
-        return packages.getFrom3(deobf).getItem2();
+        return packageSRGFromObf.get(obfPackage(deobf));
     }
 
     public String getSRGFromDeObfClass(String deobf) {
-        return classes.getFrom3(deobf).getItem2();
+        return classSRGFromObf.get(obfClass(deobf));
     }
 
     public String getSRGFromDeObfField(String deobf) {
-        return fields.getFrom3(deobf).getItem2();
+        return fieldSRGFromObf.get(obfField(deobf));
     }
 
     public String getSRGFromDeObfMethod(String deobf) {
-        return methods.getFrom3(deobf).getItem2();
+        return methodSRGFromObf.get(obfMethod(deobf));
     }
 
     public String getSRGFromDeObfType(String deobf, TargetType type) {
@@ -250,22 +382,22 @@ public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
 
     @Override
     public boolean hasPackageSRG(String srgName) {
-        return packages.hasItem2(srgName);
+        return mightContainSRG(TargetType.PACKAGE, srgName) && packageObfFromSRG.containsKey(srgName);
     }
 
     @Override
     public boolean hasClassSRG(String srgName) {
-        return classes.hasItem2(srgName);
+        return mightContainSRG(TargetType.CLASS, srgName) && classObfFromSRG.containsKey(srgName);
     }
 
     @Override
     public boolean hasMethodSRG(String srgName) {
-        return methods.hasItem2(srgName);
+        return mightContainSRG(TargetType.METHOD, srgName) && methodObfFromSRG.containsKey(srgName);
     }
 
     @Override
     public boolean hasFieldSRG(String srgName) {
-        return fields.hasItem2(srgName);
+        return mightContainSRG(TargetType.FIELD, srgName) && fieldObfFromSRG.containsKey(srgName);
     }
 
     @Override
@@ -312,4 +444,51 @@ public class DirectOBFTableSRG extends DirectOBFTable implements OBFTableSRG {
             }
         }
     }
+
+    @Override
+    public MappingCursor cursor(TargetType type) {
+        final Iterator<Map.Entry<String, String>> srgEntries = getSRGFromObfMap(type).entrySet().iterator();
+        return new MapCursor(getObfMap(type), type) {
+            private Map.Entry<String, String> srgEntry;
+
+            @Override
+            public boolean next() {
+                boolean hasNext = super.next();
+                srgEntry = hasNext && srgEntries.hasNext() ? srgEntries.next() : null;
+                return hasNext;
+            }
+
+            @Override
+            public String getSRG() {
+                String obf = getObf();
+                // The maps share their key order, so this only falls back to a lookup if that is ever broken.
+                return srgEntry != null && srgEntry.getKey() == obf ? srgEntry.getValue() : getSRGFromObfType(obf, type);
+            }
+        };
+    }
+
+    private Map<String, String> getSRGFromObfMap(TargetType type) {
+        switch (type) {
+            case PACKAGE: {
+                return packageSRGFromObf;
+            }
+            case CLASS: {
+                return classSRGFromObf;
+            }
+            case FIELD: {
+                return fieldSRGFromObf;
+            }
+            case METHOD: {
+                return methodSRGFromObf;
+            }
+            default: {
+                throw new IllegalArgumentException("Invalid TargetType!");
+            }
+        }
+    }
+
+    @Override
+    protected Mapping createMapping(TargetType type, String obf, String deobf) {
+        return new Mapping(type, obf, getSRGFromObfType(obf, type), deobf);
+    }
 }
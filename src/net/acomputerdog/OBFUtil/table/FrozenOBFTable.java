@@ -0,0 +1,680 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable, compact OBFTableSRG for tables that are finished loading.  Create one with freeze().
+ * <p/>
+ * Each TargetType is stored as parallel arrays of obfuscated, searge, and deobfuscated names in table order, with
+ * open-addressing hash indexes into them.  This uses far less memory than the maps of DirectOBFTable and keeps lookups
+ * cache-friendly.  Since nothing can change after construction, a FrozenOBFTable can be shared between any number of
+ * threads without synchronization.
+ * <p/>
+ * The getAll*() and getMembers*() methods return the internal arrays without copying them.  They must not be modified.
+ */
+public class FrozenOBFTable implements OBFTableSRG {
+    private static final String[] NO_NAMES = new String[0];
+
+    private final Section[] sections;
+
+    private FrozenOBFTable(OBFTable source) {
+        TargetType[] types = TargetType.values();
+        sections = new Section[types.length];
+        for (TargetType type : types) {
+            sections[type.ordinal()] = new Section(source, type);
+        }
+    }
+
+    /**
+     * Creates an immutable copy of an OBFTable.  The mappings are read through the table's cursors, so searge names are
+     * kept whenever the cursor provides them, even if the table is not an OBFTableSRG.  Where a cursor has no searge
+     * name, the deobfuscated name is used, as in DirectOBFTableSRG.
+     *
+     * @param table The table to copy.
+     * @return Return a FrozenOBFTable containing the same mappings as table, or table itself if it is already frozen.
+     */
+    public static FrozenOBFTable freeze(OBFTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table must not be null!");
+        }
+        if (table instanceof FrozenOBFTable) {
+            return (FrozenOBFTable) table;
+        }
+        return new FrozenOBFTable(table);
+    }
+
+    private Section section(TargetType type) {
+        return sections[type.ordinal()];
+    }
+
+    @Override
+    public String deobfPackage(String obfName) {
+        return deobfType(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String deobfClass(String obfName) {
+        return deobfType(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String deobfField(String obfName) {
+        return deobfType(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String deobfMethod(String obfName) {
+        return deobfType(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String deobfType(String obfName, TargetType type) {
+        Section section = section(type);
+        int index = section.obfIndex.get(obfName);
+        return index < 0 ? null : section.deobfNames[index];
+    }
+
+    @Override
+    public String obfPackage(String deobfName) {
+        return obfType(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String obfClass(String deobfName) {
+        return obfType(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String obfField(String deobfName) {
+        return obfType(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String obfMethod(String deobfName) {
+        return obfType(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String obfType(String deobfName, TargetType type) {
+        Section section = section(type);
+        int index = section.reverseIndex(deobfName);
+        return index < 0 ? null : section.obfNames[index];
+    }
+
+    @Override
+    public void addPackage(String obfName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addClass(String obfName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addField(String obfName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addMethod(String obfName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addType(String obfName, String deObfName, TargetType type) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addPackageSRG(String obfName, String seargeName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addClassSRG(String obfName, String seargeName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addFieldSRG(String obfName, String seargeName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addMethodSRG(String obfName, String seargeName, String deObfName) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+        throw new UnsupportedOperationException("FrozenOBFTable is immutable!");
+    }
+
+    @Override
+    public boolean hasPackageObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeObf(String obfName, TargetType type) {
+        return section(type).obfIndex.get(obfName) >= 0;
+    }
+
+    @Override
+    public boolean hasPackageDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeDeobf(String deobfName, TargetType type) {
+        return section(type).deobfIndex.get(deobfName) >= 0;
+    }
+
+    @Override
+    public boolean hasPackageSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeSRG(String srgName, TargetType type) {
+        return section(type).srgReverseIndex(srgName) >= 0;
+    }
+
+    @Override
+    public String getObfFromSRGPackage(String searge) {
+        return getObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getObfFromSRGClass(String searge) {
+        return getObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getObfFromSRGField(String searge) {
+        return getObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getObfFromSRGMethod(String searge) {
+        return getObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getObfFromSRGType(String searge, TargetType type) {
+        Section section = section(type);
+        int index = section.srgReverseIndex(searge);
+        return index < 0 ? null : section.obfNames[index];
+    }
+
+    @Override
+    public String getDeObfFromSRGPackage(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getDeObfFromSRGClass(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getDeObfFromSRGField(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getDeObfFromSRGMethod(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getDeObfFromSRGType(String searge, TargetType type) {
+        Section section = section(type);
+        int index = section.srgReverseIndex(searge);
+        return index < 0 ? null : section.deobfNames[index];
+    }
+
+    @Override
+    public String getSRGFromObfPackage(String obf) {
+        return getSRGFromObfType(obf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromObfClass(String obf) {
+        return getSRGFromObfType(obf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromObfField(String obf) {
+        return getSRGFromObfType(obf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromObfMethod(String obf) {
+        return getSRGFromObfType(obf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromObfType(String obf, TargetType type) {
+        Section section = section(type);
+        int index = section.obfIndex.get(obf);
+        return index < 0 ? null : section.srgNames[index];
+    }
+
+    @Override
+    public String getSRGFromDeObfPackage(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromDeObfClass(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromDeObfField(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromDeObfMethod(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromDeObfType(String deobf, TargetType type) {
+        Section section = section(type);
+        int index = section.reverseIndex(deobf);
+        return index < 0 ? null : section.srgNames[index];
+    }
+
+    @Override
+    public String[] getAllPackagesObf() {
+        return getAllTypeObf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesObf() {
+        return getAllTypeObf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsObf() {
+        return getAllTypeObf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsObf() {
+        return getAllTypeObf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeObf(TargetType type) {
+        return section(type).obfNames;
+    }
+
+    @Override
+    public String[] getAllPackagesDeobf() {
+        return getAllTypeDeobf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesDeobf() {
+        return getAllTypeDeobf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsDeobf() {
+        return getAllTypeDeobf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsDeobf() {
+        return getAllTypeDeobf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeDeobf(TargetType type) {
+        return section(type).deobfNames;
+    }
+
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        String[] members = section(type).obfOwners.get(obfOwner);
+        return members == null ? NO_NAMES : members;
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        String[] members = section(type).deobfOwners.get(deobfOwner);
+        return members == null ? NO_NAMES : members;
+    }
+
+    @Override
+    public void writeToTable(OBFTable table, boolean overwrite) {
+        OBFTableSRG tableSRG = (table instanceof OBFTableSRG) ? (OBFTableSRG) table : null;
+        for (Section section : sections) {
+            for (int index = 0; index < section.obfNames.length; index++) {
+                String obf = section.obfNames[index];
+                if (overwrite || !table.hasTypeObf(obf, section.type)) {
+                    if (tableSRG != null) {
+                        tableSRG.addTypeSRG(obf, section.srgNames[index], section.deobfNames[index], section.type);
+                    } else {
+                        table.addType(obf, section.deobfNames[index], section.type);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public MappingCursor cursor(final TargetType type) {
+        final Section section = section(type);
+        return new MappingCursor() {
+            private int index = -1;
+
+            @Override
+            public boolean next() {
+                if (index < section.obfNames.length) {
+                    index++;
+                }
+                return index < section.obfNames.length;
+            }
+
+            @Override
+            public String getObf() {
+                return section.obfNames[checkIndex()];
+            }
+
+            @Override
+            public String getSRG() {
+                return section.srgNames[checkIndex()];
+            }
+
+            @Override
+            public String getDeobf() {
+                return section.deobfNames[checkIndex()];
+            }
+
+            private int checkIndex() {
+                if (index < 0 || index >= section.obfNames.length) {
+                    throw new IllegalStateException("Cursor is not on a mapping!");
+                }
+                return index;
+            }
+        };
+    }
+
+    @Override
+    public Stream<Mapping> stream(TargetType type) {
+        Section section = section(type);
+        return StreamSupport.stream(new SectionSpliterator(section, 0, section.obfNames.length), false);
+    }
+
+    /**
+     * A Spliterator over a range of a Section's arrays.  Splits in half, so every part knows its exact size.
+     */
+    private static class SectionSpliterator implements Spliterator<Mapping> {
+        private final Section section;
+        private int index;
+        private final int fence;
+
+        private SectionSpliterator(Section section, int index, int fence) {
+            this.section = section;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Mapping> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(section.getMapping(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Mapping> action) {
+            for (; index < fence; index++) {
+                action.accept(section.getMapping(index));
+            }
+        }
+
+        @Override
+        public Spliterator<Mapping> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            Spliterator<Mapping> prefix = new SectionSpliterator(section, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * The mappings of a single TargetType.
+     */
+    private static class Section {
+        private final TargetType type;
+        private final String[] obfNames;
+        private final String[] srgNames;
+        private final String[] deobfNames;
+        private final String[] srgKeys;
+        private final int[] srgTargets;
+        private final String[] deobfKeys;
+        private final int[] deobfTargets;
+        private final Index obfIndex;
+        private final Index srgIndex;
+        private final Index deobfIndex;
+        private final Map<String, String[]> obfOwners;
+        private final Map<String, String[]> deobfOwners;
+
+        private Section(OBFTable source, TargetType type) {
+            this.type = type;
+            List<String> obfList = new ArrayList<String>();
+            List<String> srgList = new ArrayList<String>();
+            List<String> deobfList = new ArrayList<String>();
+            MappingCursor cursor = source.cursor(type);
+            while (cursor.next()) {
+                String srg = cursor.getSRG();
+                obfList.add(cursor.getObf());
+                srgList.add(srg != null ? srg : cursor.getDeobf());
+                deobfList.add(cursor.getDeobf());
+            }
+            obfNames = obfList.toArray(new String[obfList.size()]);
+            srgNames = srgList.toArray(new String[srgList.size()]);
+            deobfNames = deobfList.toArray(new String[deobfList.size()]);
+            obfIndex = new Index(obfNames);
+            // Searge lookups follow the source table when it is an OBFTableSRG.  Otherwise a name maps to its last position.
+            OBFTableSRG sourceSRG = (source instanceof OBFTableSRG) ? (OBFTableSRG) source : null;
+            Index srgPositions = new Index(srgNames);
+            Set<String> reverseSRGNames = new LinkedHashSet<String>();
+            for (String srgName : srgNames) {
+                if (srgName != null && (sourceSRG == null || sourceSRG.hasTypeSRG(srgName, type))) {
+                    reverseSRGNames.add(srgName);
+                }
+            }
+            srgKeys = reverseSRGNames.toArray(new String[reverseSRGNames.size()]);
+            srgTargets = new int[srgKeys.length];
+            for (int index = 0; index < srgKeys.length; index++) {
+                srgTargets[index] = sourceSRG != null ? obfIndex.get(sourceSRG.getObfFromSRGType(srgKeys[index], type)) : srgPositions.get(srgKeys[index]);
+            }
+            srgIndex = new Index(srgKeys);
+            // Reverse lookups follow the source table, which may map several obfuscated names to the same deobfuscated one.
+            Set<String> reverseNames = new LinkedHashSet<String>();
+            for (String deobfName : deobfNames) {
+                if (deobfName != null && source.hasTypeDeobf(deobfName, type)) {
+                    reverseNames.add(deobfName);
+                }
+            }
+            deobfKeys = reverseNames.toArray(new String[reverseNames.size()]);
+            deobfTargets = new int[deobfKeys.length];
+            for (int index = 0; index < deobfKeys.length; index++) {
+                deobfTargets[index] = obfIndex.get(source.obfType(deobfKeys[index], type));
+            }
+            deobfIndex = new Index(deobfKeys);
+            obfOwners = groupByOwner(obfNames);
+            deobfOwners = groupByOwner(deobfKeys);
+        }
+
+        private static Map<String, String[]> groupByOwner(String[] names) {
+            Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+            for (String name : names) {
+                String owner = MemberKey.ownerOf(name);
+                List<String> group = groups.get(owner);
+                if (group == null) {
+                    group = new ArrayList<String>();
+                    groups.put(owner, group);
+                }
+                group.add(name);
+            }
+            Map<String, String[]> owners = new HashMap<String, String[]>(groups.size() * 2);
+            for (Map.Entry<String, List<String>> entry : groups.entrySet()) {
+                owners.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+            }
+            return owners;
+        }
+
+        private Mapping getMapping(int index) {
+            return new Mapping(type, obfNames[index], srgNames[index], deobfNames[index]);
+        }
+
+        /**
+         * Gets the position of the mapping that a deobfuscated name maps back to.
+         */
+        private int reverseIndex(String deobf) {
+            int index = deobfIndex.get(deobf);
+            return index < 0 ? -1 : deobfTargets[index];
+        }
+
+        /**
+         * Gets the position of the mapping that a searge name maps back to.
+         */
+        private int srgReverseIndex(String srg) {
+            int index = srgIndex.get(srg);
+            return index < 0 ? -1 : srgTargets[index];
+        }
+    }
+
+    /**
+     * An open-addressing hash index from the names in an array to their positions.  If a name appears more than once,
+     * it's last position is used.
+     */
+    private static class Index {
+        private final String[] keys;
+        private final int[] slots;
+        private final int mask;
+
+        private Index(String[] keys) {
+            this.keys = keys;
+            int capacity = Integer.highestOneBit(Math.max(keys.length, 1) * 2 - 1) << 1;
+            slots = new int[capacity];
+            mask = capacity - 1;
+            for (int index = 0; index < keys.length; index++) {
+                if (keys[index] != null) {
+                    put(keys[index], index);
+                }
+            }
+        }
+
+        private int get(String key) {
+            if (key == null) {
+                return -1;
+            }
+            int slot = hash(key) & mask;
+            int value;
+            while ((value = slots[slot]) != 0) {
+                if (keys[value - 1].equals(key)) {
+                    return value - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void put(String key, int index) {
+            int slot = hash(key) & mask;
+            int value;
+            while ((value = slots[slot]) != 0 && !keys[value - 1].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+
+        private static int hash(String key) {
+            int hash = key.hashCode();
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
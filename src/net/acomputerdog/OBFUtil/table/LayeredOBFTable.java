@@ -0,0 +1,404 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * An OBFTable that overlays an ordered stack of other tables, without copying them.
+ * <p/>
+ * Layers are ordered from bottom to top, and a mapping in a higher layer overrides the mapping of the same obfuscated
+ * name in every lower layer, just as if each layer was copied into one table with writeToTable(table, true).  Reverse
+ * lookups only return mappings that are not overridden, so deobfType(obfType(name)) always maps back to name.  If a layer
+ * maps several obfuscated names to the same deobfuscated name, only the one returned by that layer's obfType() is
+ * considered.  Since lookups go through the layers every time, changes to a layer are visible immediately and nothing
+ * has to be rebuilt.
+ * <p/>
+ * New mappings are added to the top layer.  Once the stack no longer changes, flatten() can merge it into a
+ * FrozenOBFTable for faster lookups.
+ * <p/>
+ * Layers can be pushed and removed while other threads read the table.  Lookups are thread-safe if the layers are.
+ */
+public class LayeredOBFTable implements OBFTable {
+    private final Object writeLock = new Object();
+    private volatile OBFTable[] layers;
+
+    /**
+     * Creates a new LayeredOBFTable.
+     *
+     * @param layers The layers of the table, from bottom to top.
+     */
+    public LayeredOBFTable(OBFTable... layers) {
+        for (OBFTable layer : layers) {
+            if (layer == null) {
+                throw new IllegalArgumentException("Layers must not be null!");
+            }
+        }
+        this.layers = layers.clone();
+    }
+
+    /**
+     * Adds a layer on top of the stack, overriding all current layers.
+     *
+     * @param layer The layer to add.
+     */
+    public void pushLayer(OBFTable layer) {
+        if (layer == null) {
+            throw new IllegalArgumentException("Layer must not be null!");
+        }
+        synchronized (writeLock) {
+            OBFTable[] newLayers = Arrays.copyOf(layers, layers.length + 1);
+            newLayers[layers.length] = layer;
+            layers = newLayers;
+        }
+    }
+
+    /**
+     * Removes a layer from the stack.
+     *
+     * @param layer The layer to remove.
+     * @return Return true if the layer was part of the stack.
+     */
+    public boolean removeLayer(OBFTable layer) {
+        synchronized (writeLock) {
+            List<OBFTable> newLayers = new ArrayList<OBFTable>(Arrays.asList(layers));
+            if (!newLayers.remove(layer)) {
+                return false;
+            }
+            layers = newLayers.toArray(new OBFTable[newLayers.size()]);
+            return true;
+        }
+    }
+
+    /**
+     * Gets the layers of this table.
+     *
+     * @return Return a new list of the layers, from bottom to top.
+     */
+    public List<OBFTable> getLayers() {
+        return Arrays.asList(layers.clone());
+    }
+
+    /**
+     * Merges the current layers into an immutable table.  Searge names are taken from the layer that defines each
+     * mapping, and the deobfuscated name is used for mappings from layers that are not OBFTableSRGs.
+     *
+     * @return Return a FrozenOBFTable containing the mappings visible through this table.
+     */
+    public FrozenOBFTable flatten() {
+        return FrozenOBFTable.freeze(this);
+    }
+
+    @Override
+    public String deobfPackage(String obfName) {
+        return deobfType(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String deobfClass(String obfName) {
+        return deobfType(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String deobfField(String obfName) {
+        return deobfType(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String deobfMethod(String obfName) {
+        return deobfType(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String deobfType(String obfName, TargetType type) {
+        OBFTable[] layers = this.layers;
+        for (int index = layers.length - 1; index >= 0; index--) {
+            String deobfName = layers[index].deobfType(obfName, type);
+            if (deobfName != null || layers[index].hasTypeObf(obfName, type)) {
+                return deobfName;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String obfPackage(String deobfName) {
+        return obfType(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String obfClass(String deobfName) {
+        return obfType(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String obfField(String deobfName) {
+        return obfType(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String obfMethod(String deobfName) {
+        return obfType(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String obfType(String deobfName, TargetType type) {
+        OBFTable[] layers = this.layers;
+        for (int index = layers.length - 1; index >= 0; index--) {
+            String obfName = layers[index].obfType(deobfName, type);
+            // The mapping is hidden if a higher layer maps the same obfuscated name to something else.
+            if (obfName != null && deobfName.equals(deobfType(obfName, type))) {
+                return obfName;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void addPackage(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public void addClass(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.CLASS);
+    }
+
+    @Override
+    public void addField(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.FIELD);
+    }
+
+    @Override
+    public void addMethod(String obfName, String deObfName) {
+        addType(obfName, deObfName, TargetType.METHOD);
+    }
+
+    @Override
+    public void addType(String obfName, String deObfName, TargetType type) {
+        getTopLayer().addType(obfName, deObfName, type);
+    }
+
+    @Override
+    public boolean hasPackageObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeObf(String obfName, TargetType type) {
+        for (OBFTable layer : layers) {
+            if (layer.hasTypeObf(obfName, type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasPackageDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeDeobf(String deobfName, TargetType type) {
+        return obfType(deobfName, type) != null;
+    }
+
+    @Override
+    public String[] getAllPackagesObf() {
+        return getAllTypeObf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesObf() {
+        return getAllTypeObf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsObf() {
+        return getAllTypeObf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsObf() {
+        return getAllTypeObf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeObf(TargetType type) {
+        Set<String> names = new LinkedHashSet<String>();
+        for (OBFTable layer : layers) {
+            Collections.addAll(names, layer.getAllTypeObf(type));
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    @Override
+    public String[] getAllPackagesDeobf() {
+        return getAllTypeDeobf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesDeobf() {
+        return getAllTypeDeobf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsDeobf() {
+        return getAllTypeDeobf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsDeobf() {
+        return getAllTypeDeobf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeDeobf(TargetType type) {
+        String[] names = getAllTypeObf(type);
+        for (int index = 0; index < names.length; index++) {
+            names[index] = deobfType(names[index], type);
+        }
+        return names;
+    }
+
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        Set<String> members = new LinkedHashSet<String>();
+        for (OBFTable layer : layers) {
+            Collections.addAll(members, layer.getMembersObf(obfOwner, type));
+        }
+        return members.toArray(new String[members.size()]);
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        Set<String> members = new LinkedHashSet<String>();
+        for (OBFTable layer : layers) {
+            for (String member : layer.getMembersDeobf(deobfOwner, type)) {
+                if (!members.contains(member) && hasTypeDeobf(member, type)) {
+                    members.add(member);
+                }
+            }
+        }
+        return members.toArray(new String[members.size()]);
+    }
+
+    @Override
+    public void writeToTable(OBFTable table, boolean overwrite) {
+        for (TargetType type : TargetType.values()) {
+            MappingCursor cursor = cursor(type);
+            while (cursor.next()) {
+                if (overwrite || !table.hasTypeObf(cursor.getObf(), type)) {
+                    table.addType(cursor.getObf(), cursor.getDeobf(), type);
+                }
+            }
+        }
+    }
+
+    @Override
+    public MappingCursor cursor(final TargetType type) {
+        final String[] obfNames = getAllTypeObf(type);
+        return new MappingCursor() {
+            private int index = -1;
+
+            @Override
+            public boolean next() {
+                if (index < obfNames.length) {
+                    index++;
+                }
+                return index < obfNames.length;
+            }
+
+            @Override
+            public String getObf() {
+                return obfNames[checkIndex()];
+            }
+
+            @Override
+            public String getSRG() {
+                return findSRG(obfNames[checkIndex()], type);
+            }
+
+            @Override
+            public String getDeobf() {
+                return deobfType(obfNames[checkIndex()], type);
+            }
+
+            private int checkIndex() {
+                if (index < 0 || index >= obfNames.length) {
+                    throw new IllegalStateException("Cursor is not on a mapping!");
+                }
+                return index;
+            }
+        };
+    }
+
+    @Override
+    public Stream<Mapping> stream(final TargetType type) {
+        return Arrays.stream(getAllTypeObf(type)).map(new Function<String, Mapping>() {
+            @Override
+            public Mapping apply(String obfName) {
+                return new Mapping(type, obfName, findSRG(obfName, type), deobfType(obfName, type));
+            }
+        });
+    }
+
+    private OBFTable getTopLayer() {
+        OBFTable[] layers = this.layers;
+        if (layers.length == 0) {
+            throw new IllegalStateException("Table has no layers!");
+        }
+        return layers[layers.length - 1];
+    }
+
+    /**
+     * Gets the searge name of a mapping from the layer that defines it.
+     */
+    private String findSRG(String obfName, TargetType type) {
+        OBFTable[] layers = this.layers;
+        for (int index = layers.length - 1; index >= 0; index--) {
+            if (layers[index].hasTypeObf(obfName, type)) {
+                return layers[index] instanceof OBFTableSRG ? ((OBFTableSRG) layers[index]).getSRGFromObfType(obfName, type) : null;
+            }
+        }
+        return null;
+    }
+}
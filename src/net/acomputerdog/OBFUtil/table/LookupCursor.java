@@ -0,0 +1,57 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+/**
+ * A cursor over a copy of a table's obfuscated names, which looks up the other names of each mapping in the table.
+ * This is what OBFTable.cursor() returns for tables that do not provide a cursor over their own storage.
+ */
+class LookupCursor implements MappingCursor {
+    private final OBFTable table;
+    private final TargetType type;
+    private final String[] obfNames;
+    private int index = -1;
+
+    LookupCursor(OBFTable table, TargetType type) {
+        this.table = table;
+        this.type = type;
+        this.obfNames = table.getAllTypeObf(type);
+    }
+
+    /**
+     * Gets the searge name of a mapping, if the table stores searge names.
+     */
+    static String srgOf(OBFTable table, String obfName, TargetType type) {
+        return table instanceof OBFTableSRG ? ((OBFTableSRG) table).getSRGFromObfType(obfName, type) : null;
+    }
+
+    @Override
+    public boolean next() {
+        if (index < obfNames.length) {
+            index++;
+        }
+        return index < obfNames.length;
+    }
+
+    @Override
+    public String getObf() {
+        return obfNames[checkIndex()];
+    }
+
+    @Override
+    public String getSRG() {
+        return srgOf(table, obfNames[checkIndex()], type);
+    }
+
+    @Override
+    public String getDeobf() {
+        return table.deobfType(obfNames[checkIndex()], type);
+    }
+
+    private int checkIndex() {
+        if (index < 0 || index >= obfNames.length) {
+            throw new IllegalStateException("Cursor is not on a mapping!");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,71 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+/**
+ * A single obfuscation mapping, as returned by OBFTable.stream().  Mappings are immutable.
+ */
+public final class Mapping {
+    private final TargetType type;
+    private final String obf;
+    private final String srg;
+    private final String deobf;
+
+    /**
+     * Creates a new Mapping.
+     *
+     * @param type  The type of the mapping.
+     * @param obf   The obfuscated name.
+     * @param srg   The searge name, or null if there is none.
+     * @param deobf The deobfuscated name.
+     */
+    public Mapping(TargetType type, String obf, String srg, String deobf) {
+        this.type = type;
+        this.obf = obf;
+        this.srg = srg;
+        this.deobf = deobf;
+    }
+
+    public TargetType getType() {
+        return type;
+    }
+
+    public String getObf() {
+        return obf;
+    }
+
+    /**
+     * Gets the searge name of this mapping.
+     *
+     * @return Return the searge name, or null if the table this mapping came from does not store searge names.
+     */
+    public String getSRG() {
+        return srg;
+    }
+
+    public String getDeobf() {
+        return deobf;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Mapping)) return false;
+        Mapping other = (Mapping) o;
+        return type == other.type && obf.equals(other.obf) && deobf.equals(other.deobf) && (srg == null ? other.srg == null : srg.equals(other.srg));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + obf.hashCode();
+        result = 31 * result + (srg != null ? srg.hashCode() : 0);
+        result = 31 * result + deobf.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return type.name() + ":" + obf + (srg != null ? " -> " + srg : "") + " -> " + deobf;
+    }
+}
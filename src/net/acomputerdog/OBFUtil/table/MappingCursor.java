@@ -0,0 +1,47 @@
+package net.acomputerdog.OBFUtil.table;
+
+/**
+ * Walks the mappings of one TargetType in an OBFTable, in table order, without copying them.
+ * <p/>
+ * A cursor starts before the first mapping; call next() to move to each mapping in turn.  The names of the current
+ * mapping are read directly from the table's storage.  A cursor must not be used after the table it came from is
+ * modified, and is not thread-safe.
+ * <p/>
+ * Usage:
+ * <pre>
+ *     MappingCursor cursor = table.cursor(TargetType.CLASS);
+ *     while (cursor.next()) {
+ *         System.out.println(cursor.getObf() + " = " + cursor.getDeobf());
+ *     }
+ * </pre>
+ */
+public interface MappingCursor {
+
+    /**
+     * Moves to the next mapping.
+     *
+     * @return Return true if there is a next mapping, false if the end of the table was reached.
+     */
+    public boolean next();
+
+    /**
+     * Gets the obfuscated name of the current mapping.
+     *
+     * @return Return the obfuscated name.
+     */
+    public String getObf();
+
+    /**
+     * Gets the searge name of the current mapping.
+     *
+     * @return Return the searge name, or null if the table does not store searge names.
+     */
+    public String getSRG();
+
+    /**
+     * Gets the deobfuscated name of the current mapping.
+     *
+     * @return Return the deobfuscated name.
+     */
+    public String getDeobf();
+}
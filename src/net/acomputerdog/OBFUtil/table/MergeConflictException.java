@@ -0,0 +1,26 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.Locale;
+
+/**
+ * Thrown by OBFTableMerger when two tables map the same obfuscated name differently and the FAIL policy is used.
+ */
+public class MergeConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final OBFTableMerger.Conflict conflict;
+
+    public MergeConflictException(OBFTableMerger.Conflict conflict) {
+        super("Conflicting " + conflict.getType().name().toLowerCase(Locale.ROOT) + " mappings for \"" + conflict.getObf() + "\": \"" + conflict.getKeptDeobf() + "\" and \"" + conflict.getRejectedDeobf() + "\"");
+        this.conflict = conflict;
+    }
+
+    /**
+     * Gets the conflict that caused this exception.
+     *
+     * @return Return the conflict.
+     */
+    public OBFTableMerger.Conflict getConflict() {
+        return conflict;
+    }
+}
@@ -1,7 +1,16 @@
 package net.acomputerdog.OBFUtil.table;
 
+import net.acomputerdog.OBFUtil.util.MemberKey;
 import net.acomputerdog.OBFUtil.util.TargetType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 /**
  * Represents an object capable of managing obfuscation data.
  */
@@ -85,6 +94,31 @@ public interface OBFTable {
      */
     public String obfType(String deobfName, TargetType type);
 
+    /**
+     * Gets the deobfuscated key of a field or method.  The default implementation looks up the String form of the key
+     * with deobfType() and parses the result.  DirectOBFTable can index keys directly instead, see
+     * DirectOBFTable.enableMemberKeyIndex().
+     *
+     * @param obfKey The obfuscated key.
+     * @param type   The type of member to get.
+     * @return Return the deobfuscated key, or null if the mapping is not defined.
+     */
+    public default MemberKey deobfMember(MemberKey obfKey, TargetType type) {
+        return obfKey == null ? null : MemberKey.parse(deobfType(obfKey.toString(), type));
+    }
+
+    /**
+     * Gets the obfuscated key of a field or method.  The default implementation looks up the String form of the key with
+     * obfType() and parses the result.
+     *
+     * @param deobfKey The deobfuscated key.
+     * @param type     The type of member to get.
+     * @return Return the obfuscated key, or null if the mapping is not defined.
+     */
+    public default MemberKey obfMember(MemberKey deobfKey, TargetType type) {
+        return deobfKey == null ? null : MemberKey.parse(obfType(deobfKey.toString(), type));
+    }
+
     /**
      * Adds an obfuscation mapping for a package.
      * @param obfName The obfuscated name.
@@ -231,43 +265,128 @@ public interface OBFTable {
     public String[] getAllTypeObf(TargetType type);
 
     /**
-     * Get an array of all deobfuscated package names.
+     * Get an array of all deobfuscated package names.  The names are in the same order as getAllPackagesObf(), so
+     * each name is the deobfuscated name of the obfuscated name at the same index.  A name appears more than once if
+     * several obfuscated names are mapped to it.
      *
      * @return Return an array of Strings representing all deobfuscated names.
      */
     public String[] getAllPackagesDeobf();
 
     /**
-     * Get an array of all deobfuscated class names.
+     * Get an array of all deobfuscated class names.  The names are in the same order as getAllClassesObf(), so each
+     * name is the deobfuscated name of the obfuscated name at the same index.  A name appears more than once if
+     * several obfuscated names are mapped to it.
      *
      * @return Return an array of Strings representing all deobfuscated names.
      */
     public String[] getAllClassesDeobf();
 
     /**
-     * Get an array of all deobfuscated field names.
+     * Get an array of all deobfuscated field names.  The names are in the same order as getAllFieldsObf(), so each
+     * name is the deobfuscated name of the obfuscated name at the same index.  A name appears more than once if
+     * several obfuscated names are mapped to it.
      *
      * @return Return an array of Strings representing all deobfuscated names.
      */
     public String[] getAllFieldsDeobf();
 
     /**
-     * Get an array of all deobfuscated method names.
+     * Get an array of all deobfuscated method names.  The names are in the same order as getAllMethodsObf(), so each
+     * name is the deobfuscated name of the obfuscated name at the same index.  A name appears more than once if
+     * several obfuscated names are mapped to it.
+     *
      * @return Return an array of Strings representing all deobfuscated names.
      */
     public String[] getAllMethodsDeobf();
 
     /**
-     * Get an array of all deobfuscated TargetType names.
+     * Get an array of all deobfuscated TargetType names.  The names are in the same order as getAllTypeObf(), so each
+     * name is the deobfuscated name of the obfuscated name at the same index.  A name appears more than once if
+     * several obfuscated names are mapped to it.
+     *
      * @param type The type to get.
      * @return Return an array of Strings representing all deobfuscated names.
      */
     public String[] getAllTypeDeobf(TargetType type);
 
+    /**
+     * Gets the obfuscated names of all mappings of a TargetType whose obfuscated owner is obfOwner.  The owner of a field
+     * or method is it's class, the owner of a class is it's package, and the owner of a package is it's parent package.
+     * <p/>
+     * The default implementation scans getAllTypeObf(); tables that index mappings by owner override it.
+     *
+     * @param obfOwner The obfuscated name of the owner.
+     * @param type     The type of mappings to get.
+     * @return Return an array of the obfuscated names of all members of obfOwner, in the order they were added.
+     */
+    public default String[] getMembersObf(String obfOwner, TargetType type) {
+        List<String> members = new ArrayList<String>();
+        for (String obfName : getAllTypeObf(type)) {
+            if (MemberKey.ownerOf(obfName).equals(obfOwner)) {
+                members.add(obfName);
+            }
+        }
+        return members.toArray(new String[members.size()]);
+    }
+
+    /**
+     * Gets the deobfuscated names of all mappings of a TargetType whose deobfuscated owner is deobfOwner.
+     * <p/>
+     * The default implementation scans getAllTypeDeobf(); tables that index mappings by owner override it.
+     *
+     * @param deobfOwner The deobfuscated name of the owner.
+     * @param type       The type of mappings to get.
+     * @return Return an array of the deobfuscated names of all members of deobfOwner, in the order they were added.
+     */
+    public default String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        Set<String> members = new LinkedHashSet<String>();
+        for (String deobfName : getAllTypeDeobf(type)) {
+            if (MemberKey.ownerOf(deobfName).equals(deobfOwner)) {
+                members.add(deobfName);
+            }
+        }
+        return members.toArray(new String[members.size()]);
+    }
+
     /**
      * Write the contents of this table to another table.
      * @param table The table to write to.
      * @param overwrite If true, overwrite existing mappings.
      */
     public void writeToTable(OBFTable table, boolean overwrite);
+
+    /**
+     * Creates a cursor over all mappings of a TargetType, in the same order as getAllTypeObf().  Unlike getAllTypeObf(),
+     * this does not copy the mappings or require a lookup per mapping.
+     * <p/>
+     * The default implementation copies getAllTypeObf() and looks up each mapping; tables override it to walk their
+     * own storage.
+     *
+     * @param type The type of mappings to walk.
+     * @return Return a new cursor positioned before the first mapping.
+     */
+    public default MappingCursor cursor(TargetType type) {
+        return new LookupCursor(this, type);
+    }
+
+    /**
+     * Creates a stream of all mappings of a TargetType, in the same order as getAllTypeObf().  The stream is backed by
+     * a sized Spliterator over the table's storage, so it can be split efficiently by parallel().  The table must not be
+     * modified while the stream is in use.
+     * <p/>
+     * The default implementation streams a copy of getAllTypeObf() and looks up each mapping; tables override it to
+     * stream their own storage.
+     *
+     * @param type The type of mappings to stream.
+     * @return Return a new sequential stream of the mappings.
+     */
+    public default Stream<Mapping> stream(final TargetType type) {
+        return Arrays.stream(getAllTypeObf(type)).map(new Function<String, Mapping>() {
+            @Override
+            public Mapping apply(String obfName) {
+                return new Mapping(type, obfName, LookupCursor.srgOf(OBFTable.this, obfName, type), deobfType(obfName, type));
+            }
+        });
+    }
 }
@@ -0,0 +1,381 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merges OBFTables in bulk.
+ * <p/>
+ * merge() combines any number of tables, in order, into a new DirectOBFTableSRG that is sized for all of them up front.
+ * mergeInto() adds the mappings of one table to an existing table.  If two tables map the same obfuscated name to
+ * different names, the ConflictPolicy decides what happens.  Searge names are kept if the tables have them.
+ * <p/>
+ * Mappings are read with cursors, and when the target is a DirectOBFTable existing mappings are checked directly in
+ * it's maps instead of through has*() and deobf*() calls.
+ * <p/>
+ * If a ForkJoinPool is set, merge() splits the list of tables in halves that are merged in parallel and then merged
+ * together.  The result is the same as merging the tables one by one, including the order of the conflicts.  This only
+ * holds for the policies that keep the first mapping, so with OVERWRITE the tables are always merged one by one: a later
+ * table may move a reverse mapping, and a merged half no longer records the order that its mappings were replaced in.
+ * <p/>
+ * An OBFTableMerger can be reused, but is not thread-safe.
+ */
+public class OBFTableMerger {
+    /**
+     * The number of tables that a parallel merge combines on one thread.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+
+    private final ConflictPolicy policy;
+    private ForkJoinPool forkJoinPool;
+    private StringPool pool;
+    private List<Conflict> conflicts = Collections.emptyList();
+
+    /**
+     * Creates a new OBFTableMerger.
+     *
+     * @param policy The policy used when tables map the same obfuscated name differently.
+     */
+    public OBFTableMerger(ConflictPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null!");
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * Sets the ForkJoinPool that merge() runs on.  The pool is not used with the OVERWRITE policy.
+     *
+     * @param forkJoinPool The pool to use, or null to merge on the calling thread.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Sets the StringPool that tables created by merge() canonicalize names through.
+     *
+     * @param pool The pool to use, or null to store names as they are given.
+     */
+    public void setStringPool(StringPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the conflicts found by the last merge.  Conflicts are only collected with the COLLECT policy.  Each
+     * conflicting name that was not kept is reported once.
+     *
+     * @return Return an unmodifiable list of conflicts.
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Merges tables into a new table.  Tables are merged in order, so with the KEEP and COLLECT policies the first
+     * table that maps a name wins, and with OVERWRITE the last one does.
+     *
+     * @param tables The tables to merge.
+     * @return Return a new table containing the merged mappings.
+     * @throws MergeConflictException If the policy is FAIL and two tables conflict.
+     */
+    public DirectOBFTableSRG merge(OBFTable... tables) {
+        for (OBFTable table : tables) {
+            if (table == null) {
+                throw new IllegalArgumentException("Tables must not be null!");
+            }
+        }
+        conflicts = Collections.emptyList();
+        if (forkJoinPool != null && policy != ConflictPolicy.OVERWRITE && tables.length > SEQUENTIAL_THRESHOLD) {
+            Partial result = forkJoinPool.invoke(new MergeTask(tables, 0, tables.length));
+            if (!result.rejected.isEmpty()) {
+                conflicts = collectConflicts(result.table, tables);
+            }
+            return result.table;
+        }
+        Partial result = mergeRange(tables, 0, tables.length);
+        conflicts = resolveConflicts(result.table, result.rejected);
+        return result.table;
+    }
+
+    /**
+     * Adds the mappings of a table to another table.  With the FAIL policy, the target is only modified if there are no
+     * conflicts.
+     *
+     * @param target The table to add to.
+     * @param source The table to add.
+     * @throws MergeConflictException If the policy is FAIL and the tables conflict.
+     */
+    public void mergeInto(OBFTable target, OBFTable source) {
+        if (target == null || source == null) {
+            throw new IllegalArgumentException("Tables must not be null!");
+        }
+        conflicts = Collections.emptyList();
+        if (policy == ConflictPolicy.FAIL) {
+            checkConflicts(target, source);
+        }
+        List<Conflict> rejected = new ArrayList<Conflict>();
+        addAll(target, source, rejected);
+        conflicts = resolveConflicts(target, rejected);
+    }
+
+    private Partial mergeRange(OBFTable[] tables, int from, int to) {
+        int[] sizes = new int[TargetType.values().length];
+        for (int index = from; index < to; index++) {
+            for (TargetType type : TargetType.values()) {
+                sizes[type.ordinal()] += sizeOf(tables[index], type);
+            }
+        }
+        Partial partial = new Partial(new DirectOBFTableSRG(pool, sizes));
+        for (int index = from; index < to; index++) {
+            addAll(partial.table, tables[index], partial.rejected);
+        }
+        return partial;
+    }
+
+    private void addAll(OBFTable target, OBFTable source, List<Conflict> rejected) {
+        OBFTableSRG targetSRG = (target instanceof OBFTableSRG) ? (OBFTableSRG) target : null;
+        DirectOBFTable direct = (target instanceof DirectOBFTable) ? (DirectOBFTable) target : null;
+        for (TargetType type : TargetType.values()) {
+            Map<String, String> existingMap = direct != null ? direct.getObfMap(type) : null;
+            MappingCursor cursor = source.cursor(type);
+            while (cursor.next()) {
+                String obf = cursor.getObf();
+                String deobf = cursor.getDeobf();
+                if (policy != ConflictPolicy.OVERWRITE) {
+                    String existing;
+                    boolean present;
+                    if (existingMap != null) {
+                        existing = existingMap.get(obf);
+                        present = existing != null || existingMap.containsKey(obf);
+                    } else {
+                        present = target.hasTypeObf(obf, type);
+                        existing = present ? target.deobfType(obf, type) : null;
+                    }
+                    if (present) {
+                        if (!equal(existing, deobf)) {
+                            if (policy == ConflictPolicy.FAIL) {
+                                throw new MergeConflictException(new Conflict(type, obf, existing, deobf));
+                            }
+                            if (policy == ConflictPolicy.COLLECT) {
+                                rejected.add(new Conflict(type, obf, existing, deobf));
+                            }
+                        }
+                        continue;
+                    }
+                }
+                if (targetSRG != null) {
+                    String srg = cursor.getSRG();
+                    targetSRG.addTypeSRG(obf, srg == null ? deobf : srg, deobf, type);
+                } else {
+                    target.addType(obf, deobf, type);
+                }
+            }
+        }
+    }
+
+    private void checkConflicts(OBFTable target, OBFTable source) {
+        for (TargetType type : TargetType.values()) {
+            MappingCursor cursor = source.cursor(type);
+            while (cursor.next()) {
+                String obf = cursor.getObf();
+                if (target.hasTypeObf(obf, type)) {
+                    String existing = target.deobfType(obf, type);
+                    if (!equal(existing, cursor.getDeobf())) {
+                        throw new MergeConflictException(new Conflict(type, obf, existing, cursor.getDeobf()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports each rejected name once, against the name that was finally kept.
+     */
+    private static List<Conflict> resolveConflicts(OBFTable result, List<Conflict> rejected) {
+        if (rejected.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Conflict> resolved = new LinkedHashSet<Conflict>();
+        for (Conflict conflict : rejected) {
+            String kept = result.deobfType(conflict.getObf(), conflict.getType());
+            if (!equal(kept, conflict.getRejectedDeobf())) {
+                resolved.add(new Conflict(conflict.getType(), conflict.getObf(), kept, conflict.getRejectedDeobf()));
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<Conflict>(resolved));
+    }
+
+    /**
+     * Finds the conflicts of a parallel merge in the order that merging the tables one by one would find them.  The
+     * halves of a parallel merge reject names in a different order, and may first reject a name in favour of one that
+     * is itself rejected later.
+     */
+    private static List<Conflict> collectConflicts(OBFTable result, OBFTable[] tables) {
+        Set<Conflict> collected = new LinkedHashSet<Conflict>();
+        for (OBFTable table : tables) {
+            for (TargetType type : TargetType.values()) {
+                MappingCursor cursor = table.cursor(type);
+                while (cursor.next()) {
+                    String kept = result.deobfType(cursor.getObf(), type);
+                    if (!equal(kept, cursor.getDeobf())) {
+                        collected.add(new Conflict(type, cursor.getObf(), kept, cursor.getDeobf()));
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<Conflict>(collected));
+    }
+
+    private static int sizeOf(OBFTable table, TargetType type) {
+        if (table instanceof DirectOBFTable) {
+            return ((DirectOBFTable) table).getObfMap(type).size();
+        }
+        return table.getAllTypeObf(type).length;
+    }
+
+    private static boolean equal(String name1, String name2) {
+        return name1 == null ? name2 == null : name1.equals(name2);
+    }
+
+    /**
+     * Policies for obfuscated names that are mapped differently by two tables.
+     */
+    public enum ConflictPolicy {
+        /**
+         * Keeps the mapping that was added first.
+         */
+        KEEP,
+        /**
+         * Replaces the mapping with the one added last.
+         */
+        OVERWRITE,
+        /**
+         * Throws a MergeConflictException.
+         */
+        FAIL,
+        /**
+         * Keeps the mapping that was added first, and records the others as conflicts.
+         */
+        COLLECT
+    }
+
+    /**
+     * An obfuscated name that two tables map differently.  Conflicts are serializable so that a MergeConflictException
+     * can be.
+     */
+    public static final class Conflict implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final TargetType type;
+        private final String obf;
+        private final String keptDeobf;
+        private final String rejectedDeobf;
+
+        public Conflict(TargetType type, String obf, String keptDeobf, String rejectedDeobf) {
+            this.type = type;
+            this.obf = obf;
+            this.keptDeobf = keptDeobf;
+            this.rejectedDeobf = rejectedDeobf;
+        }
+
+        public TargetType getType() {
+            return type;
+        }
+
+        public String getObf() {
+            return obf;
+        }
+
+        /**
+         * Gets the deobfuscated name that was kept.
+         *
+         * @return Return the kept name.
+         */
+        public String getKeptDeobf() {
+            return keptDeobf;
+        }
+
+        /**
+         * Gets the deobfuscated name that was not kept.
+         *
+         * @return Return the rejected name.
+         */
+        public String getRejectedDeobf() {
+            return rejectedDeobf;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Conflict)) return false;
+            Conflict other = (Conflict) o;
+            return type == other.type && equal(obf, other.obf) && equal(keptDeobf, other.keptDeobf) && equal(rejectedDeobf, other.rejectedDeobf);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type.hashCode();
+            result = 31 * result + (obf != null ? obf.hashCode() : 0);
+            result = 31 * result + (keptDeobf != null ? keptDeobf.hashCode() : 0);
+            result = 31 * result + (rejectedDeobf != null ? rejectedDeobf.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return type.name() + ":" + obf + " -> " + keptDeobf + " (rejected " + rejectedDeobf + ")";
+        }
+    }
+
+    /**
+     * The result of merging part of the list of tables.
+     */
+    private static class Partial {
+        private final DirectOBFTableSRG table;
+        private final List<Conflict> rejected = new ArrayList<Conflict>();
+
+        private Partial(DirectOBFTableSRG table) {
+            this.table = table;
+        }
+    }
+
+    private class MergeTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final OBFTable[] tables;
+        private final int from;
+        private final int to;
+
+        private MergeTask(OBFTable[] tables, int from, int to) {
+            this.tables = tables;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return mergeRange(tables, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            MergeTask left = new MergeTask(tables, from, middle);
+            left.fork();
+            Partial right = new MergeTask(tables, middle, to).compute();
+            Partial result = left.join();
+            addAll(result.table, right.table, result.rejected);
+            result.rejected.addAll(right.rejected);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,674 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.PersistentHashMap;
+import net.acomputerdog.OBFUtil.util.PersistentVector;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An OBFTableSRG whose mappings are stored in persistent hash array mapped tries and a persistent vector, so that
+ * copies of the table share structure instead of copying it.
+ * <p/>
+ * fork() returns an independent, writable copy of the table in constant time.  The copy and the original share all
+ * of their nodes until one of them is modified, and each modification only copies the O(log n) nodes on the path to
+ * the changed mapping.  snapshot() returns a read-only copy in the same way.  Tentative edits can be made on a fork,
+ * and the fork kept or thrown away, without ever copying the whole table.
+ * <p/>
+ * Every method reads the state of the table once, so a reader always sees a consistent table while another thread
+ * writes to it, and cursors and streams iterate the table as it was when they were created.  Writes are synchronized.
+ * <p/>
+ * Re-adding a mapping replaces it the same way as in DirectOBFTableSRG.  Mappings are iterated in the order they were
+ * added, and a replaced mapping keeps its place, as in DirectOBFTableSRG.
+ */
+public class PersistentOBFTable implements OBFTableSRG {
+    private static final Comparator<Map.Entry<String, Integer>> MEMBER_ORDER = new Comparator<Map.Entry<String, Integer>>() {
+        @Override
+        public int compare(Map.Entry<String, Integer> first, Map.Entry<String, Integer> second) {
+            return first.getValue().compareTo(second.getValue());
+        }
+    };
+
+    private final StringPool pool;
+    private final boolean readOnly;
+    private volatile TypeState[] states;
+
+    /**
+     * Creates a new, empty PersistentOBFTable that stores names as they are given.
+     */
+    public PersistentOBFTable() {
+        this(null);
+    }
+
+    /**
+     * Creates a new, empty PersistentOBFTable.
+     *
+     * @param pool The StringPool to canonicalize added names through, or null to store names as they are given.
+     */
+    public PersistentOBFTable(StringPool pool) {
+        this(pool, TypeState.emptyStates(), false);
+    }
+
+    private PersistentOBFTable(StringPool pool, TypeState[] states, boolean readOnly) {
+        this.pool = pool;
+        this.states = states;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Creates a writable copy of this table in constant time.  Changes to the copy do not affect this table, and changes
+     * to this table do not affect the copy.
+     *
+     * @return Return a new PersistentOBFTable with the same mappings as this table.
+     */
+    public PersistentOBFTable fork() {
+        return new PersistentOBFTable(pool, states, false);
+    }
+
+    /**
+     * Creates a read-only copy of this table in constant time.  The snapshot never changes, even if this table does.
+     *
+     * @return Return a read-only PersistentOBFTable with the same mappings as this table.
+     */
+    public PersistentOBFTable snapshot() {
+        return readOnly ? this : new PersistentOBFTable(pool, states, true);
+    }
+
+    /**
+     * Checks if this table is a read-only snapshot.
+     *
+     * @return Return true if this table was created by snapshot().
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Gets the number of mappings of a TargetType.
+     *
+     * @param type The type to count.
+     * @return Return the number of mappings.
+     */
+    public int size(TargetType type) {
+        return state(type).forward.size();
+    }
+
+    @Override
+    public String deobfPackage(String obfName) {
+        return deobfType(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String deobfClass(String obfName) {
+        return deobfType(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String deobfField(String obfName) {
+        return deobfType(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String deobfMethod(String obfName) {
+        return deobfType(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String deobfType(String obfName, TargetType type) {
+        Names names = state(type).forward.get(obfName);
+        return names == null ? null : names.deobf;
+    }
+
+    @Override
+    public String obfPackage(String deobfName) {
+        return obfType(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String obfClass(String deobfName) {
+        return obfType(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public String obfField(String deobfName) {
+        return obfType(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public String obfMethod(String deobfName) {
+        return obfType(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public String obfType(String deobfName, TargetType type) {
+        return state(type).obfFromDeobf.get(deobfName);
+    }
+
+    @Override
+    public void addPackage(String obfName, String deObfName) {
+        addTypeSRG(obfName, deObfName, deObfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public void addClass(String obfName, String deObfName) {
+        addTypeSRG(obfName, deObfName, deObfName, TargetType.CLASS);
+    }
+
+    @Override
+    public void addField(String obfName, String deObfName) {
+        addTypeSRG(obfName, deObfName, deObfName, TargetType.FIELD);
+    }
+
+    @Override
+    public void addMethod(String obfName, String deObfName) {
+        addTypeSRG(obfName, deObfName, deObfName, TargetType.METHOD);
+    }
+
+    @Override
+    public void addType(String obfName, String deObfName, TargetType type) {
+        addTypeSRG(obfName, deObfName, deObfName, type);
+    }
+
+    @Override
+    public void addPackageSRG(String obfName, String seargeName, String deObfName) {
+        addTypeSRG(obfName, seargeName, deObfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public void addClassSRG(String obfName, String seargeName, String deObfName) {
+        addTypeSRG(obfName, seargeName, deObfName, TargetType.CLASS);
+    }
+
+    @Override
+    public void addFieldSRG(String obfName, String seargeName, String deObfName) {
+        addTypeSRG(obfName, seargeName, deObfName, TargetType.FIELD);
+    }
+
+    @Override
+    public void addMethodSRG(String obfName, String seargeName, String deObfName) {
+        addTypeSRG(obfName, seargeName, deObfName, TargetType.METHOD);
+    }
+
+    @Override
+    public synchronized void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Snapshot is read-only!");
+        }
+        if (obfName == null || seargeName == null || deObfName == null) {
+            throw new IllegalArgumentException("Names must not be null!");
+        }
+        TypeState[] oldStates = states;
+        TypeState oldState = oldStates[type.ordinal()];
+        TypeState newState = oldState.put(intern(obfName), intern(seargeName), intern(deObfName));
+        if (newState != oldState) {
+            TypeState[] newStates = oldStates.clone();
+            newStates[type.ordinal()] = newState;
+            states = newStates;
+        }
+    }
+
+    @Override
+    public boolean hasPackageObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodObf(String obfName) {
+        return hasTypeObf(obfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeObf(String obfName, TargetType type) {
+        return state(type).forward.containsKey(obfName);
+    }
+
+    @Override
+    public boolean hasPackageDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodDeobf(String deobfName) {
+        return hasTypeDeobf(deobfName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeDeobf(String deobfName, TargetType type) {
+        return state(type).obfFromDeobf.containsKey(deobfName);
+    }
+
+    @Override
+    public boolean hasPackageSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.PACKAGE);
+    }
+
+    @Override
+    public boolean hasClassSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.CLASS);
+    }
+
+    @Override
+    public boolean hasFieldSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.FIELD);
+    }
+
+    @Override
+    public boolean hasMethodSRG(String srgName) {
+        return hasTypeSRG(srgName, TargetType.METHOD);
+    }
+
+    @Override
+    public boolean hasTypeSRG(String srgName, TargetType type) {
+        return state(type).obfFromSRG.containsKey(srgName);
+    }
+
+    @Override
+    public String getObfFromSRGPackage(String searge) {
+        return getObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getObfFromSRGClass(String searge) {
+        return getObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getObfFromSRGField(String searge) {
+        return getObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getObfFromSRGMethod(String searge) {
+        return getObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getObfFromSRGType(String searge, TargetType type) {
+        return state(type).obfFromSRG.get(searge);
+    }
+
+    @Override
+    public String getDeObfFromSRGPackage(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getDeObfFromSRGClass(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.CLASS);
+    }
+
+    @Override
+    public String getDeObfFromSRGField(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.FIELD);
+    }
+
+    @Override
+    public String getDeObfFromSRGMethod(String searge) {
+        return getDeObfFromSRGType(searge, TargetType.METHOD);
+    }
+
+    @Override
+    public String getDeObfFromSRGType(String searge, TargetType type) {
+        TypeState state = state(type);
+        String obfName = state.obfFromSRG.get(searge);
+        Names names = obfName == null ? null : state.forward.get(obfName);
+        return names == null ? null : names.deobf;
+    }
+
+    @Override
+    public String getSRGFromObfPackage(String obf) {
+        return getSRGFromObfType(obf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromObfClass(String obf) {
+        return getSRGFromObfType(obf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromObfField(String obf) {
+        return getSRGFromObfType(obf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromObfMethod(String obf) {
+        return getSRGFromObfType(obf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromObfType(String obf, TargetType type) {
+        Names names = state(type).forward.get(obf);
+        return names == null ? null : names.srg;
+    }
+
+    @Override
+    public String getSRGFromDeObfPackage(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.PACKAGE);
+    }
+
+    @Override
+    public String getSRGFromDeObfClass(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.CLASS);
+    }
+
+    @Override
+    public String getSRGFromDeObfField(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.FIELD);
+    }
+
+    @Override
+    public String getSRGFromDeObfMethod(String deobf) {
+        return getSRGFromDeObfType(deobf, TargetType.METHOD);
+    }
+
+    @Override
+    public String getSRGFromDeObfType(String deobf, TargetType type) {
+        TypeState state = state(type);
+        String obfName = state.obfFromDeobf.get(deobf);
+        Names names = obfName == null ? null : state.forward.get(obfName);
+        return names == null ? null : names.srg;
+    }
+
+    @Override
+    public String[] getAllPackagesObf() {
+        return getAllTypeObf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesObf() {
+        return getAllTypeObf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsObf() {
+        return getAllTypeObf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsObf() {
+        return getAllTypeObf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeObf(TargetType type) {
+        PersistentVector<Names> order = state(type).order;
+        String[] names = new String[order.size()];
+        int index = 0;
+        for (Names mapping : order) {
+            names[index++] = mapping.obf;
+        }
+        return names;
+    }
+
+    @Override
+    public String[] getAllPackagesDeobf() {
+        return getAllTypeDeobf(TargetType.PACKAGE);
+    }
+
+    @Override
+    public String[] getAllClassesDeobf() {
+        return getAllTypeDeobf(TargetType.CLASS);
+    }
+
+    @Override
+    public String[] getAllFieldsDeobf() {
+        return getAllTypeDeobf(TargetType.FIELD);
+    }
+
+    @Override
+    public String[] getAllMethodsDeobf() {
+        return getAllTypeDeobf(TargetType.METHOD);
+    }
+
+    @Override
+    public String[] getAllTypeDeobf(TargetType type) {
+        PersistentVector<Names> order = state(type).order;
+        String[] names = new String[order.size()];
+        int index = 0;
+        for (Names mapping : order) {
+            names[index++] = mapping.deobf;
+        }
+        return names;
+    }
+
+    @Override
+    public String[] getMembersObf(String obfOwner, TargetType type) {
+        return members(state(type).ownersObf.get(obfOwner));
+    }
+
+    @Override
+    public String[] getMembersDeobf(String deobfOwner, TargetType type) {
+        return members(state(type).ownersDeobf.get(deobfOwner));
+    }
+
+    @Override
+    public void writeToTable(OBFTable table, boolean overwrite) {
+        OBFTableSRG tableSRG = (table instanceof OBFTableSRG) ? (OBFTableSRG) table : null;
+        for (TargetType type : TargetType.values()) {
+            MappingCursor cursor = cursor(type);
+            while (cursor.next()) {
+                if (overwrite || !table.hasTypeObf(cursor.getObf(), type)) {
+                    if (tableSRG != null) {
+                        tableSRG.addTypeSRG(cursor.getObf(), cursor.getSRG(), cursor.getDeobf(), type);
+                    } else {
+                        table.addType(cursor.getObf(), cursor.getDeobf(), type);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public MappingCursor cursor(TargetType type) {
+        final Iterator<Names> entries = state(type).order.iterator();
+        return new MappingCursor() {
+            private Names entry;
+
+            @Override
+            public boolean next() {
+                entry = entries.hasNext() ? entries.next() : null;
+                return entry != null;
+            }
+
+            @Override
+            public String getObf() {
+                return current().obf;
+            }
+
+            @Override
+            public String getSRG() {
+                return current().srg;
+            }
+
+            @Override
+            public String getDeobf() {
+                return current().deobf;
+            }
+
+            private Names current() {
+                if (entry == null) {
+                    throw new IllegalStateException("Cursor is not on a mapping!");
+                }
+                return entry;
+            }
+        };
+    }
+
+    @Override
+    public Stream<Mapping> stream(final TargetType type) {
+        return StreamSupport.stream(state(type).order.spliterator(), false).map(new Function<Names, Mapping>() {
+            @Override
+            public Mapping apply(Names mapping) {
+                return new Mapping(type, mapping.obf, mapping.srg, mapping.deobf);
+            }
+        });
+    }
+
+    private TypeState state(TargetType type) {
+        return states[type.ordinal()];
+    }
+
+    private String intern(String name) {
+        return pool == null ? name : pool.intern(name);
+    }
+
+    /**
+     * Lists the members of an owner in the order they were added to it.
+     */
+    private static String[] members(PersistentHashMap<String, Integer> members) {
+        if (members == null) {
+            return new String[0];
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(members.size());
+        for (Map.Entry<String, Integer> entry : members) {
+            entries.add(entry);
+        }
+        Collections.sort(entries, MEMBER_ORDER);
+        String[] names = new String[entries.size()];
+        for (int index = 0; index < names.length; index++) {
+            names[index] = entries.get(index).getKey();
+        }
+        return names;
+    }
+
+    /**
+     * A mapping, and the index of its place in the order of the table.
+     */
+    private static final class Names {
+        private final String obf;
+        private final String srg;
+        private final String deobf;
+        private final int index;
+
+        private Names(String obf, String srg, String deobf, int index) {
+            this.obf = obf;
+            this.srg = srg;
+            this.deobf = deobf;
+            this.index = index;
+        }
+    }
+
+    /**
+     * The immutable mappings of one TargetType.  Updating a TypeState returns a new one that shares the unchanged parts
+     * of its maps.
+     */
+    private static final class TypeState {
+        private static final TypeState EMPTY = new TypeState(PersistentHashMap.<String, Names>empty(), PersistentVector.<Names>empty(), PersistentHashMap.<String, String>empty(), PersistentHashMap.<String, String>empty(), PersistentHashMap.<String, PersistentHashMap<String, Integer>>empty(), PersistentHashMap.<String, PersistentHashMap<String, Integer>>empty(), 0);
+
+        private final PersistentHashMap<String, Names> forward;
+        private final PersistentVector<Names> order;
+        private final PersistentHashMap<String, String> obfFromDeobf;
+        private final PersistentHashMap<String, String> obfFromSRG;
+        /**
+         * The members of each owner, mapped to the sequence number they were added to the owner with.
+         */
+        private final PersistentHashMap<String, PersistentHashMap<String, Integer>> ownersObf;
+        private final PersistentHashMap<String, PersistentHashMap<String, Integer>> ownersDeobf;
+        private final int sequence;
+
+        private TypeState(PersistentHashMap<String, Names> forward, PersistentVector<Names> order, PersistentHashMap<String, String> obfFromDeobf, PersistentHashMap<String, String> obfFromSRG, PersistentHashMap<String, PersistentHashMap<String, Integer>> ownersObf, PersistentHashMap<String, PersistentHashMap<String, Integer>> ownersDeobf, int sequence) {
+            this.forward = forward;
+            this.order = order;
+            this.obfFromDeobf = obfFromDeobf;
+            this.obfFromSRG = obfFromSRG;
+            this.ownersObf = ownersObf;
+            this.ownersDeobf = ownersDeobf;
+            this.sequence = sequence;
+        }
+
+        private static TypeState[] emptyStates() {
+            TypeState[] states = new TypeState[TargetType.values().length];
+            for (int index = 0; index < states.length; index++) {
+                states[index] = EMPTY;
+            }
+            return states;
+        }
+
+        /**
+         * Adds or replaces a mapping.  If the obfuscated name was mapped to different names before, the mapping keeps
+         * its place, and the reverse mappings and owner index entries of the old names are removed.
+         */
+        private TypeState put(String obfName, String seargeName, String deObfName) {
+            Names oldNames = forward.get(obfName);
+            if (oldNames != null && oldNames.deobf.equals(deObfName) && oldNames.srg.equals(seargeName) && obfName.equals(obfFromDeobf.get(deObfName)) && obfName.equals(obfFromSRG.get(seargeName))) {
+                return this;
+            }
+            PersistentHashMap<String, String> newObfFromDeobf = obfFromDeobf;
+            PersistentHashMap<String, String> newObfFromSRG = obfFromSRG;
+            PersistentHashMap<String, PersistentHashMap<String, Integer>> newOwnersObf = ownersObf;
+            PersistentHashMap<String, PersistentHashMap<String, Integer>> newOwnersDeobf = ownersDeobf;
+            Names newNames;
+            PersistentVector<Names> newOrder;
+            if (oldNames == null) {
+                newOwnersObf = addOwner(newOwnersObf, obfName, sequence);
+                newNames = new Names(obfName, seargeName, deObfName, order.size());
+                newOrder = order.append(newNames);
+            } else {
+                if (!oldNames.deobf.equals(deObfName) && obfName.equals(newObfFromDeobf.get(oldNames.deobf))) {
+                    newObfFromDeobf = newObfFromDeobf.remove(oldNames.deobf);
+                    newOwnersDeobf = removeOwner(newOwnersDeobf, oldNames.deobf);
+                }
+                if (!oldNames.srg.equals(seargeName) && obfName.equals(newObfFromSRG.get(oldNames.srg))) {
+                    newObfFromSRG = newObfFromSRG.remove(oldNames.srg);
+                }
+                newNames = new Names(obfName, seargeName, deObfName, oldNames.index);
+                newOrder = order.set(oldNames.index, newNames);
+            }
+            if (!newObfFromDeobf.containsKey(deObfName)) {
+                newOwnersDeobf = addOwner(newOwnersDeobf, deObfName, sequence);
+            }
+            newObfFromDeobf = newObfFromDeobf.put(deObfName, obfName);
+            newObfFromSRG = newObfFromSRG.put(seargeName, obfName);
+            return new TypeState(forward.put(obfName, newNames), newOrder, newObfFromDeobf, newObfFromSRG, newOwnersObf, newOwnersDeobf, sequence + 1);
+        }
+
+        private static PersistentHashMap<String, PersistentHashMap<String, Integer>> addOwner(PersistentHashMap<String, PersistentHashMap<String, Integer>> owners, String member, int sequence) {
+            String owner = MemberKey.ownerOf(member);
+            PersistentHashMap<String, Integer> members = owners.get(owner);
+            if (members == null) {
+                members = PersistentHashMap.empty();
+            }
+            return owners.put(owner, members.put(member, sequence));
+        }
+
+        private static PersistentHashMap<String, PersistentHashMap<String, Integer>> removeOwner(PersistentHashMap<String, PersistentHashMap<String, Integer>> owners, String member) {
+            String owner = MemberKey.ownerOf(member);
+            PersistentHashMap<String, Integer> members = owners.get(owner);
+            if (members == null) {
+                return owners;
+            }
+            members = members.remove(member);
+            return members.isEmpty() ? owners.remove(owner) : owners.put(owner, members);
+        }
+    }
+}
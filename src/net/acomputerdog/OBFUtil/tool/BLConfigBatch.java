@@ -0,0 +1,109 @@
+package net.acomputerdog.OBFUtil.tool;
+
+import net.acomputerdog.OBFUtil.util.StringPool;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates BlazeLoader configuration files for many MCP versions in one run.
+ * <p/>
+ * Each MCP directory is generated by BLConfigGen into a folder of the output directory with the same name.  Up to one
+ * version per processor is generated at a time, and all versions load names through one StringPool, so names that are
+ * shared between versions are only stored once.  The pool locks per segment, so versions do not wait on each other to
+ * intern names.
+ * <p/>
+ * Versions run on fixed thread pools rather than virtual threads.  Virtual threads need Java 21, while this library
+ * targets Java 8, and generation is bound by CPU rather than by blocking I/O, so more threads than processors would not
+ * help.
+ */
+public class BLConfigBatch {
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Use \"BLConfigBatch <output_dir> <mcp_dir> [mcp_dir...]\"");
+            System.exit(0);
+        }
+        File out = new File(args[0]);
+        if (!out.isDirectory()) {
+            System.out.println("Output folder is missing!");
+            System.exit(0);
+        }
+        List<File> mcps = new ArrayList<File>(args.length - 1);
+        Set<String> versions = new HashSet<String>();
+        for (int index = 1; index < args.length; index++) {
+            File mcp = new File(args[index]);
+            if (!mcp.isDirectory()) {
+                System.out.println("MCP folder is missing: " + mcp.getPath());
+                System.exit(0);
+            }
+            if (!versions.add(mcp.getName())) {
+                System.out.println("MCP folder names must be unique: " + mcp.getName());
+                System.exit(0);
+            }
+            mcps.add(mcp);
+        }
+        System.out.println("Starting " + mcps.size() + " versions.");
+        long start = System.nanoTime();
+        int processors = Runtime.getRuntime().availableProcessors();
+        ExecutorService versionExecutor = Executors.newFixedThreadPool(Math.min(mcps.size(), processors));
+        ExecutorService stageExecutor = Executors.newFixedThreadPool(processors);
+        int failed = 0;
+        try {
+            failed = generateAll(mcps, out, versionExecutor, stageExecutor);
+        } finally {
+            versionExecutor.shutdown();
+            stageExecutor.shutdown();
+        }
+        System.out.println("Done " + (mcps.size() - failed) + " of " + mcps.size() + " versions in " + ((System.nanoTime() - start) / 1000000) + "ms.");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates minecraft_client.obf for several MCP directories.
+     *
+     * @param mcps            The MCP config directories.
+     * @param out             The directory to create an output folder for each version in.
+     * @param versionExecutor The executor to generate versions on.  Limits how many versions are generated at once.
+     * @param stageExecutor   The executor to run the stages of each version on.  Must be separate from versionExecutor.
+     * @return Return the number of versions that could not be generated.
+     * @throws InterruptedException If interrupted while waiting for the versions to finish.
+     */
+    public static int generateAll(List<File> mcps, final File out, ExecutorService versionExecutor, final ExecutorService stageExecutor) throws InterruptedException {
+        final StringPool names = new StringPool();
+        List<Future<?>> results = new ArrayList<Future<?>>(mcps.size());
+        for (final File mcp : mcps) {
+            results.add(versionExecutor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    File versionOut = new File(out, mcp.getName());
+                    if (!versionOut.isDirectory() && !versionOut.mkdirs()) {
+                        throw new IllegalStateException("Could not create output folder: " + versionOut.getPath());
+                    }
+                    BLConfigGen.generate(mcp, versionOut, stageExecutor, names);
+                    return null;
+                }
+            }));
+        }
+        int failed = 0;
+        for (int index = 0; index < results.size(); index++) {
+            try {
+                results.get(index).get();
+            } catch (ExecutionException e) {
+                failed++;
+                System.out.println("Failed to generate " + mcps.get(index).getName() + ": " + e.getCause());
+            }
+        }
+        return failed;
+    }
+}
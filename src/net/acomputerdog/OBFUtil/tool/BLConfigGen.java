@@ -6,15 +6,29 @@ import net.acomputerdog.OBFUtil.parse.types.MCPCSVFileParser;
 import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
 import net.acomputerdog.OBFUtil.table.DirectOBFTable;
 import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.MappingCursor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.StringPool;
 import net.acomputerdog.OBFUtil.util.TargetType;
-import net.acomputerdog.core.java.Patterns;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Creates BlazeLoader configuration files from MCP config files.
+ * <p/>
+ * Generation runs as a pipeline: joined.srg, fields.csv, and methods.csv are loaded concurrently, then each kind of
+ * mapping is joined with the MCP names concurrently, and the joined mappings are added to the output table in one
+ * synchronized step per kind.  The time taken by each stage is printed.
  */
 public class BLConfigGen {
 
@@ -30,72 +44,183 @@ public class BLConfigGen {
             System.exit(0);
         }
         System.out.println("Starting.");
-        FileParser srgClient = new SRGFileParser("C", false);
-        FileParser csvMethodClient = new MCPCSVFileParser(TargetType.METHOD, true, 1);
-        FileParser csvFieldClient = new MCPCSVFileParser(TargetType.FIELD, true, 1);
-        DirectOBFTableSRG client = new DirectOBFTableSRG();
-        OBFTable srgTemp = new DirectOBFTable();
-        OBFTable mcpTemp = new DirectOBFTable();
-        srgClient.loadEntries(new File(mcp, "joined.srg"), srgTemp, false);
-        csvFieldClient.loadEntries(new File(mcp, "fields.csv"), mcpTemp, true);
-        csvMethodClient.loadEntries(new File(mcp, "methods.csv"), mcpTemp, true);
-        addOthers(client, srgTemp);
-        addSRGsMethod(client, srgTemp, mcpTemp);
-        addSRGsField(client, srgTemp, mcpTemp);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            generate(mcp, out, executor, new StringPool());
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println("Done.");
+    }
+
+    /**
+     * Generates minecraft_client.obf from an MCP config directory.
+     *
+     * @param mcp      The MCP config directory, containing joined.srg, fields.csv, and methods.csv.
+     * @param out      The directory to write minecraft_client.obf to.
+     * @param executor The executor to run the loading and joining stages on.
+     * @param names    The StringPool to load names through.
+     * @throws IOException If a file could not be read or written.
+     */
+    public static void generate(final File mcp, File out, ExecutorService executor, StringPool names) throws IOException {
+        final SRGFileParser srgClient = new SRGFileParser("C", false);
+        srgClient.setStringPool(names);
+        final MCPCSVFileParser csvMethodClient = new MCPCSVFileParser(TargetType.METHOD, true, 1);
+        csvMethodClient.setStringPool(names);
+        final MCPCSVFileParser csvFieldClient = new MCPCSVFileParser(TargetType.FIELD, true, 1);
+        csvFieldClient.setStringPool(names);
+        final DirectOBFTableSRG client = new DirectOBFTableSRG(names);
+
+        long start = System.nanoTime();
+        Future<OBFTable> srgLoad = executor.submit(new Callable<OBFTable>() {
+            @Override
+            public OBFTable call() throws IOException {
+                OBFTable srgTemp = new DirectOBFTable();
+                srgClient.loadEntries(new File(mcp, "joined.srg"), srgTemp, false);
+                return srgTemp;
+            }
+        });
+        Future<OBFTable> fieldLoad = executor.submit(new Callable<OBFTable>() {
+            @Override
+            public OBFTable call() throws IOException {
+                OBFTable fieldTemp = new DirectOBFTable();
+                csvFieldClient.loadEntries(new File(mcp, "fields.csv"), fieldTemp, true);
+                return fieldTemp;
+            }
+        });
+        Future<OBFTable> methodLoad = executor.submit(new Callable<OBFTable>() {
+            @Override
+            public OBFTable call() throws IOException {
+                OBFTable methodTemp = new DirectOBFTable();
+                csvMethodClient.loadEntries(new File(mcp, "methods.csv"), methodTemp, true);
+                return methodTemp;
+            }
+        });
+        final OBFTable srgTemp = await(srgLoad);
+        final OBFTable fieldTemp = await(fieldLoad);
+        final OBFTable methodTemp = await(methodLoad);
+        start = printTime("Loaded sources for " + mcp.getName(), start);
+
+        List<Future<?>> joins = new ArrayList<Future<?>>();
+        joins.add(executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                addOthers(client, srgTemp, TargetType.CLASS);
+                return null;
+            }
+        }));
+        joins.add(executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                addOthers(client, srgTemp, TargetType.PACKAGE);
+                return null;
+            }
+        }));
+        joins.add(executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                addSRGsMethod(client, srgTemp, methodTemp);
+                return null;
+            }
+        }));
+        joins.add(executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                addSRGsField(client, srgTemp, fieldTemp);
+                return null;
+            }
+        }));
+        for (Future<?> join : joins) {
+            await(join);
+        }
+        start = printTime("Joined mappings for " + mcp.getName(), start);
 
         FileParser bl = new BLOBFParser();
         bl.storeEntries(new File(out, "minecraft_client.obf"), client);
-        System.out.println("Done.");
+        printTime("Wrote minecraft_client.obf for " + mcp.getName(), start);
     }
 
     private static void addSRGsMethod(DirectOBFTableSRG dest, OBFTable sourceSRG, OBFTable sourceMCP) {
-
+        Mappings methods = new Mappings(TargetType.METHOD);
         for (String str : sourceSRG.getAllMethodsDeobf()) {
-            String[] parts1 = str.split(Patterns.SPACE);
-            if (parts1.length >= 1) {
-                String[] parts2 = parts1[0].split(Patterns.PERIOD);
-                String obf = sourceSRG.obfMethod(str);
-                String searge = parts2[parts2.length - 1];
-                String mcp = sourceMCP.deobfMethod(searge);
-                dest.addMethodSRG(obf, str, rebuildName(parts2, mcp) + " " + parts1[1]);
-            } else {
-                System.out.println("No parts: " + str);
-            }
+            MemberKey searge = MemberKey.parse(str);
+            String obf = sourceSRG.obfMethod(str);
+            String mcp = sourceMCP.deobfMethod(searge.getName());
+            methods.add(obf, str, mcp == null ? str : searge.withName(mcp).toString());
         }
+        methods.addTo(dest);
     }
 
     private static void addSRGsField(DirectOBFTableSRG dest, OBFTable sourceSRG, OBFTable sourceMCP) {
+        Mappings fields = new Mappings(TargetType.FIELD);
         for (String str : sourceSRG.getAllFieldsDeobf()) {
-            String[] parts = str.split(Patterns.PERIOD);
-            if (parts.length >= 1) {
-                String searge = parts[parts.length - 1];
-                String mcp = sourceMCP.deobfField(searge);
-                String obf = sourceSRG.obfField(str);
-                dest.addFieldSRG(obf, str, rebuildName(parts, mcp));
-            } else {
-                System.out.println("No parts: " + str);
-            }
+            MemberKey searge = MemberKey.parse(str);
+            String obf = sourceSRG.obfField(str);
+            String mcp = sourceMCP.deobfField(searge.getName());
+            fields.add(obf, str, mcp == null ? str : searge.withName(mcp).toString());
         }
+        fields.addTo(dest);
     }
 
-    private static void addOthers(OBFTable dest, OBFTable source) {
-        for (String str : source.getAllClassesObf()) {
-            String cls = source.deobfClass(str);
-            dest.addClass(str, cls);
+    private static void addOthers(DirectOBFTableSRG dest, OBFTable source, TargetType type) {
+        Mappings others = new Mappings(type);
+        MappingCursor cursor = source.cursor(type);
+        while (cursor.next()) {
+            others.add(cursor.getObf(), cursor.getDeobf(), cursor.getDeobf());
         }
-        for (String str : source.getAllPackagesObf()) {
-            String pkg = source.deobfPackage(str);
-            dest.addPackage(str, pkg);
+        others.addTo(dest);
+    }
+
+    private static long printTime(String stage, long start) {
+        long now = System.nanoTime();
+        System.out.println(stage + " in " + ((now - start) / 1000000) + "ms.");
+        return now;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating!");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Exception while generating!", cause);
         }
     }
 
-    private static String rebuildName(String[] srgs, String mcp) {
-        StringBuilder builder = new StringBuilder(srgs.length * 2);
-        for (int index = 0; index < srgs.length - 1; index++) {
-            builder.append(srgs[index]);
-            builder.append(".");
+    /**
+     * Joined mappings of one TargetType, collected without locking and then added to the output table at once.
+     */
+    private static class Mappings {
+        private final TargetType type;
+        private final List<String> names = new ArrayList<String>();
+
+        private Mappings(TargetType type) {
+            this.type = type;
+        }
+
+        private void add(String obfName, String seargeName, String deObfName) {
+            names.add(obfName);
+            names.add(seargeName);
+            names.add(deObfName);
+        }
+
+        private void addTo(DirectOBFTableSRG dest) {
+            synchronized (dest) {
+                for (int index = 0; index < names.size(); index += 3) {
+                    dest.addTypeSRG(type, names.get(index), names.get(index + 1), names.get(index + 2));
+                }
+            }
         }
-        builder.append(mcp == null ? srgs[srgs.length - 1] : mcp);
-        return builder.toString();
     }
 }
@@ -1,7 +1,7 @@
 package net.acomputerdog.OBFUtil.tool;
 
 import net.acomputerdog.OBFUtil.parse.FileParser;
-import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.File;
@@ -13,7 +13,8 @@ import java.io.IOException;
 public class FileConverter {
 
     /**
-     * Converts an obfuscation table in one format to another.
+     * Converts an obfuscation table in one format to another.  Mappings are loaded into a DirectOBFTableSRG, so searge
+     * names are kept between formats that store them.
      *
      * @param in      The input FileParser
      * @param out     The output FileParser
@@ -22,7 +23,7 @@ public class FileConverter {
      * @throws IOException If an IO error occurs
      */
     public static void convert(FileParser in, FileParser out, File inFile, File outFile) throws IOException {
-        OBFTable table = new DirectOBFTable();
+        OBFTable table = new DirectOBFTableSRG();
         in.loadEntries(inFile, table, true);
         out.storeEntries(outFile, table);
     }
@@ -0,0 +1,111 @@
+package net.acomputerdog.OBFUtil.util;
+
+/**
+ * A compact, probabilistic set of Strings.  mightContain() never returns false for a String that was added, but may
+ * return true for one that was not, at roughly the false positive rate the filter was created with.
+ * <p/>
+ * The filter is blocked: the 4 bits of a String are set in a single 64-bit word, so checking a String costs one array
+ * read.  Bits are derived from String.hashCode(), which Strings cache, so the characters of a name are not hashed
+ * again after the first time.  Strings cannot be removed; a filter that has outgrown it's capacity or holds removed
+ * names should be rebuilt.
+ * <p/>
+ * A BloomFilter is not thread-safe.
+ */
+public class BloomFilter {
+    private static final int MAX_WORDS = 1 << 24;
+
+    private final long[] bits;
+    private final int shift;
+    private final int capacity;
+    private int size = 0;
+
+    /**
+     * Creates a new, empty BloomFilter.
+     *
+     * @param expectedInsertions The number of Strings the filter is sized for.
+     * @param falsePositiveRate  The rate of false positives once expectedInsertions Strings have been added.  Must be
+     *                           between 0 and 1.
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Expected insertions must be at least 1!");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1!");
+        }
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int numWords = 2;
+        while (numWords * 64.0 < optimalBits && numWords < MAX_WORDS) {
+            numWords <<= 1;
+        }
+        this.bits = new long[numWords];
+        this.shift = 32 - Integer.numberOfTrailingZeros(numWords);
+        this.capacity = expectedInsertions;
+    }
+
+    /**
+     * Adds a String to the filter.
+     *
+     * @param str The String to add.  Null is ignored.
+     */
+    public void add(String str) {
+        if (str == null) {
+            return;
+        }
+        int hash = str.hashCode() * 0x9E3779B9;
+        bits[hash >>> shift] |= pattern(hash);
+        size++;
+    }
+
+    /**
+     * Checks if a String may have been added to the filter.
+     *
+     * @param str The String to check.
+     * @return Return false if str was definitely not added, true if it may have been.  Always true for null.
+     */
+    public boolean mightContain(String str) {
+        if (str == null) {
+            return true;
+        }
+        int hash = str.hashCode() * 0x9E3779B9;
+        long pattern = pattern(hash);
+        return (bits[hash >>> shift] & pattern) == pattern;
+    }
+
+    /**
+     * Gets the number of Strings added to the filter, counting repeated Strings each time they were added.
+     *
+     * @return Return the number of insertions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of insertions this filter was sized for.
+     *
+     * @return Return the expected number of insertions.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Checks if more Strings have been added than the filter was sized for, in which case the false positive rate is
+     * higher than requested.
+     *
+     * @return Return true if size() is greater than getCapacity().
+     */
+    public boolean isOverCapacity() {
+        return size > capacity;
+    }
+
+    /**
+     * Selects the 4 bits of a String within it's word from a second hash.  The word itself is selected by the top bits of
+     * the first hash.
+     */
+    private static long pattern(int hash) {
+        int bitHash = (hash ^ (hash >>> 16)) * 0x85EBCA6B;
+        return (1L << bitHash) | (1L << (bitHash >>> 6)) | (1L << (bitHash >>> 12)) | (1L << (bitHash >>> 18));
+    }
+}
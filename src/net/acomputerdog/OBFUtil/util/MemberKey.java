@@ -0,0 +1,189 @@
+package net.acomputerdog.OBFUtil.util;
+
+/**
+ * Identifies a field or method by it's owner class, name, and descriptor.
+ * <p/>
+ * OBFTables store members as Strings formatted "owner.name desc" (fields and methods with stripped descriptors have no
+ * " desc" part).  A MemberKey holds the three parts separately so that they can be read or replaced without splitting
+ * the String again.  The String form and it's hash are computed once when the key is created, and two keys are equal if
+ * their String forms are equal, so a MemberKey can be used to look up members in any table.
+ * <p/>
+ * MemberKeys are immutable.
+ */
+public final class MemberKey {
+    private final String owner;
+    private final String name;
+    private final String desc;
+    private final String member;
+    private final int hash;
+
+    /**
+     * Creates a new MemberKey.
+     *
+     * @param owner The name of the owner class, or an empty String if the member has no owner.
+     * @param name  The name of the member.
+     * @param desc  The descriptor of the member, or null if it has none.
+     */
+    public MemberKey(String owner, String name, String desc) {
+        if (owner == null || name == null) {
+            throw new IllegalArgumentException("Owner and name must not be null!");
+        }
+        this.owner = owner;
+        this.name = name;
+        this.desc = desc;
+        this.member = buildMember(owner, name, desc);
+        this.hash = member.hashCode();
+    }
+
+    private MemberKey(String member, String owner, String name, String desc) {
+        this.owner = owner;
+        this.name = name;
+        this.desc = desc;
+        this.member = member;
+        this.hash = member.hashCode();
+    }
+
+    /**
+     * Parses a member String formatted "owner.name desc" or "owner.name".
+     *
+     * @param member The String to parse.
+     * @return Return a MemberKey for the member, or null if member is null.
+     */
+    public static MemberKey parse(String member) {
+        if (member == null) {
+            return null;
+        }
+        int space = member.indexOf(' ');
+        int nameEnd = space < 0 ? member.length() : space;
+        int dot = member.lastIndexOf('.', nameEnd - 1);
+        String owner = dot < 0 ? "" : member.substring(0, dot);
+        String name = member.substring(dot + 1, nameEnd);
+        String desc = space < 0 ? null : member.substring(space + 1);
+        return new MemberKey(member, owner, name, desc);
+    }
+
+    /**
+     * Gets the owner of a member String without creating a MemberKey.  The owner of a class is it's package, and the
+     * owner of a package is it's parent package.
+     *
+     * @param member The member String, formatted "owner.name desc" or "owner.name".
+     * @return Return the owner, or an empty String if the member has no owner.
+     */
+    public static String ownerOf(String member) {
+        int space = member.indexOf(' ');
+        int dot = member.lastIndexOf('.', (space < 0 ? member.length() : space) - 1);
+        return dot < 0 ? "" : member.substring(0, dot);
+    }
+
+    /**
+     * Gets the name of the class that owns this member.
+     *
+     * @return Return the owner class name, or an empty String if the member has no owner.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Gets the simple name of this member, without it's owner.
+     *
+     * @return Return the name of the member.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the descriptor of this member.
+     *
+     * @return Return the descriptor, or null if the member has none.
+     */
+    public String getDesc() {
+        return desc;
+    }
+
+    /**
+     * Checks if this member has a descriptor.
+     *
+     * @return Return true if getDesc() is not null.
+     */
+    public boolean hasDesc() {
+        return desc != null;
+    }
+
+    /**
+     * Gets the name of this member including it's owner, formatted "owner.name".
+     *
+     * @return Return the qualified name of the member.
+     */
+    public String getQualifiedName() {
+        return desc == null ? member : member.substring(0, member.length() - desc.length() - 1);
+    }
+
+    /**
+     * Creates a copy of this key with a different owner.
+     *
+     * @param owner The new owner.
+     * @return Return a MemberKey with the new owner.
+     */
+    public MemberKey withOwner(String owner) {
+        return new MemberKey(owner, name, desc);
+    }
+
+    /**
+     * Creates a copy of this key with a different name.
+     *
+     * @param name The new name.
+     * @return Return a MemberKey with the new name.
+     */
+    public MemberKey withName(String name) {
+        return new MemberKey(owner, name, desc);
+    }
+
+    /**
+     * Creates a copy of this key with a different descriptor.
+     *
+     * @param desc The new descriptor, or null to remove it.
+     * @return Return a MemberKey with the new descriptor.
+     */
+    public MemberKey withDesc(String desc) {
+        return new MemberKey(owner, name, desc);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MemberKey)) return false;
+        MemberKey other = (MemberKey) o;
+        return hash == other.hash && member.equals(other.member);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Gets the member String represented by this key, formatted "owner.name desc".
+     *
+     * @return Return the member String.
+     */
+    @Override
+    public String toString() {
+        return member;
+    }
+
+    private static String buildMember(String owner, String name, String desc) {
+        StringBuilder builder = new StringBuilder(owner.length() + name.length() + (desc == null ? 1 : desc.length() + 2));
+        if (!owner.isEmpty()) {
+            builder.append(owner);
+            builder.append('.');
+        }
+        builder.append(name);
+        if (desc != null) {
+            builder.append(' ');
+            builder.append(desc);
+        }
+        return builder.toString();
+    }
+}
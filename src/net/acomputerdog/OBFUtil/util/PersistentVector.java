@@ -0,0 +1,239 @@
+package net.acomputerdog.OBFUtil.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An immutable list that can only grow at the end, stored as a trie of 32-element arrays.  append() and set() return a
+ * new vector that shares all unchanged arrays with the old one, so they copy only the O(log n) arrays on the path to
+ * the changed index, and old versions of the vector stay valid.
+ * <p/>
+ * Null elements are not allowed.  A PersistentVector is immutable and therefore thread-safe.
+ */
+public final class PersistentVector<E> implements Iterable<E> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentVector<Object> EMPTY = new PersistentVector<Object>(new Object[0], 0, 0);
+
+    /**
+     * The root array.  At level 0 an array holds elements, above that it holds the arrays of the next level down.
+     */
+    private final Object[] root;
+    private final int shift;
+    private final int size;
+
+    private PersistentVector(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty vector.
+     *
+     * @return Return a vector with no elements.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Gets an element.
+     *
+     * @param index The index of the element.
+     * @return Return the element at index.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    /**
+     * Gets a vector with an element added to the end.
+     *
+     * @param element The element to add.  Must not be null.
+     * @return Return the new vector.
+     */
+    public PersistentVector<E> append(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Elements must not be null!");
+        }
+        if (size == 1 << (shift + BITS)) {
+            return new PersistentVector<E>(new Object[]{root, newPath(shift, element)}, shift + BITS, size + 1);
+        }
+        return new PersistentVector<E>(append(root, shift, size, element), shift, size + 1);
+    }
+
+    /**
+     * Gets a vector with an element replaced.
+     *
+     * @param index   The index of the element to replace.
+     * @param element The new element.  Must not be null.
+     * @return Return the new vector, or this vector if the element at index is already the same instance.
+     */
+    public PersistentVector<E> set(int index, E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Elements must not be null!");
+        }
+        checkIndex(index);
+        if (leafFor(index)[index & MASK] == element) {
+            return this;
+        }
+        return new PersistentVector<E>(set(root, shift, index, element), shift, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Iterates over the elements of this vector in order.  The iterator does not support remove().
+     *
+     * @return Return an iterator of the elements.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new ElementIterator();
+    }
+
+    /**
+     * Creates a Spliterator over the elements of this vector.  It reports ORDERED, SIZED, SUBSIZED, NONNULL, and
+     * IMMUTABLE, and splits exactly in half.
+     *
+     * @return Return a new Spliterator.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ElementSpliterator(0, size);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private Object[] leafFor(int index) {
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private static Object[] append(Object[] node, int level, int index, Object element) {
+        int slot = (index >>> level) & MASK;
+        Object[] newNode = Arrays.copyOf(node, Math.max(node.length, slot + 1));
+        if (level == 0) {
+            newNode[slot] = element;
+        } else if (slot < node.length) {
+            newNode[slot] = append((Object[]) node[slot], level - BITS, index, element);
+        } else {
+            newNode[slot] = newPath(level - BITS, element);
+        }
+        return newNode;
+    }
+
+    private static Object[] set(Object[] node, int level, int index, Object element) {
+        int slot = (index >>> level) & MASK;
+        Object[] newNode = node.clone();
+        newNode[slot] = level == 0 ? element : set((Object[]) node[slot], level - BITS, index, element);
+        return newNode;
+    }
+
+    /**
+     * Creates the arrays from a level down to an element, with the element as the only entry of each.
+     */
+    private static Object[] newPath(int level, Object element) {
+        return level == 0 ? new Object[]{element} : new Object[]{newPath(level - BITS, element)};
+    }
+
+    /**
+     * Walks the elements in order, looking up each leaf array only once.
+     */
+    private final class ElementIterator implements Iterator<E> {
+        private Object[] leaf;
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            if ((index & MASK) == 0 || leaf == null) {
+                leaf = leafFor(index);
+            }
+            return (E) leaf[index++ & MASK];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("PersistentVector is immutable!");
+        }
+    }
+
+    /**
+     * Splits a range of indexes in half, and walks it one leaf array at a time.
+     */
+    private final class ElementSpliterator implements Spliterator<E> {
+        private Object[] leaf;
+        private int index;
+        private final int end;
+
+        private ElementSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (index >= end) {
+                return false;
+            }
+            if ((index & MASK) == 0 || leaf == null) {
+                leaf = leafFor(index);
+            }
+            action.accept((E) leaf[index++ & MASK]);
+            return true;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int middle = (index + end) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            Spliterator<E> prefix = new ElementSpliterator(index, middle);
+            index = middle;
+            leaf = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package net.acomputerdog.OBFUtil.util;
+
+/**
+ * Canonicalizes Strings so that equal names loaded from different places share one String instance.
+ * <p/>
+ * Names can be looked up directly from a region of a char array or CharSequence, in which case a new String is only
+ * created the first time a name is seen.  A StringPool is thread-safe, so one pool can be shared by several parsers and
+ * tables, even across threads.  Unlike String.intern(), pooled Strings are ordinary heap objects that are released
+ * along with the pool.
+ * <p/>
+ * The pool is split into segments by hash, each with it's own lock, so threads interning different names rarely wait
+ * for each other.  A ConcurrentHashMap is not used because it could only be searched with a String key, which would
+ * mean creating a String for every region looked up.
+ */
+public class StringPool {
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENT_SHIFT = 32 - SEGMENT_BITS;
+    private static final int SEGMENT_CAPACITY = 64;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public StringPool() {
+        for (int index = 0; index < segments.length; index++) {
+            segments[index] = new Segment();
+        }
+    }
+
+    /**
+     * Gets the canonical instance of a String.
+     *
+     * @param str The String to look up.
+     * @return Return the pooled String equal to str, adding str to the pool if there is none.
+     */
+    public String intern(String str) {
+        if (str == null) {
+            return null;
+        }
+        int hash = str.hashCode();
+        return segmentFor(hash).intern(hash, str);
+    }
+
+    /**
+     * Gets the canonical instance of a String made of a region of a CharSequence.
+     *
+     * @param seq   The sequence containing the characters.
+     * @param start The start of the region.
+     * @param end   The end of the region.
+     * @return Return the pooled String with the same characters as the region.
+     */
+    public String intern(CharSequence seq, int start, int end) {
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            hash = 31 * hash + seq.charAt(index);
+        }
+        return segmentFor(hash).intern(hash, seq, start, end);
+    }
+
+    /**
+     * Gets the canonical instance of a String made of a region of a char array.
+     *
+     * @param chars  The array containing the characters.
+     * @param offset The start of the region.
+     * @param length The length of the region.
+     * @return Return the pooled String with the same characters as the region.
+     */
+    public String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int index = offset; index < offset + length; index++) {
+            hash = 31 * hash + chars[index];
+        }
+        return segmentFor(hash).intern(hash, chars, offset, length);
+    }
+
+    /**
+     * Gets the number of Strings in the pool.
+     *
+     * @return Return the number of distinct Strings pooled.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[mix(hash) >>> SEGMENT_SHIFT];
+    }
+
+    private static boolean regionEquals(String str, CharSequence seq, int start, int end) {
+        if (str.length() != end - start) {
+            return false;
+        }
+        for (int index = 0; index < str.length(); index++) {
+            if (str.charAt(index) != seq.charAt(start + index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(String str, char[] chars, int offset, int length) {
+        if (str.length() != length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (str.charAt(index) != chars[offset + index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * An open-addressing hash table holding the Strings of one range of hashes.
+     */
+    private static final class Segment {
+        private String[] table = new String[SEGMENT_CAPACITY];
+        private int size = 0;
+
+        private synchronized String intern(int hash, String str) {
+            int slot = findSlot(hash, str, 0, str.length());
+            String pooled = table[slot];
+            return pooled != null ? pooled : add(slot, str);
+        }
+
+        private synchronized String intern(int hash, CharSequence seq, int start, int end) {
+            int slot = findSlot(hash, seq, start, end);
+            String pooled = table[slot];
+            return pooled != null ? pooled : add(slot, seq.subSequence(start, end).toString());
+        }
+
+        private synchronized String intern(int hash, char[] chars, int offset, int length) {
+            int mask = table.length - 1;
+            int slot = mix(hash) & mask;
+            String pooled;
+            while ((pooled = table[slot]) != null) {
+                if (pooled.hashCode() == hash && regionEquals(pooled, chars, offset, length)) {
+                    return pooled;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return add(slot, new String(chars, offset, length));
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private int findSlot(int hash, CharSequence seq, int start, int end) {
+            int mask = table.length - 1;
+            int slot = mix(hash) & mask;
+            String pooled;
+            while ((pooled = table[slot]) != null) {
+                if (pooled.hashCode() == hash && regionEquals(pooled, seq, start, end)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private String add(int slot, String str) {
+            table[slot] = str;
+            size++;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+            return str;
+        }
+
+        private void rehash() {
+            String[] old = table;
+            table = new String[old.length * 2];
+            int mask = table.length - 1;
+            for (String str : old) {
+                if (str != null) {
+                    int slot = mix(str.hashCode()) & mask;
+                    while (table[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = str;
+                }
+            }
+        }
+    }
+}
@@ -22,6 +22,8 @@ public enum TargetType {
     FIELD("FIELD", "FD");
     //TODO: Add comment and param?
 
+    private static final TargetType[] TYPES = values();
+
     private final String[] aliases;
 
     TargetType(String... aliases) {
@@ -47,4 +49,37 @@ public enum TargetType {
         }
         return null;
     }
+
+    /**
+     * Gets a TargetType from it's name or an aliase, contained in a region of a CharSequence.
+     *
+     * @param seq   The sequence containing the name.
+     * @param start The start of the name.
+     * @param end   The end of the name.
+     * @return Return the TargetType identified by the region, or null if there is none.
+     */
+    public static TargetType getType(CharSequence seq, int start, int end) {
+        for (TargetType tt : TYPES) {
+            for (String str : tt.aliases) {
+                if (regionEqualsIgnoreCase(seq, start, end, str)) {
+                    return tt;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence seq, int start, int end, String str) {
+        if (end - start != str.length()) {
+            return false;
+        }
+        for (int index = 0; index < str.length(); index++) {
+            char c1 = seq.charAt(start + index);
+            char c2 = str.charAt(index);
+            if (c1 != c2 && Character.toUpperCase(c1) != Character.toUpperCase(c2)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
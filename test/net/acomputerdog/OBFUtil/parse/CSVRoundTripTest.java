@@ -0,0 +1,128 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.parse.types.MCPCSVFileParser;
+import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CSVRoundTripTest {
+    private static final String UNQUOTED = "searge,name,side,desc\n" +
+            "field_1_a,count,0,\n" +
+            "field_2_b,name,0,The name\n" +
+            "func_3_c,run,2,Runs it.  Twice.\n" +
+            "func_4_d,,1,";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void quotedFieldsRoundTrip() throws IOException {
+        String[][] records = {
+                {"searge", "name", "side", "desc"},
+                {"field_1_a", "count", "0", "Counts a, b, and c"},
+                {"field_2_b", "say", "1", "Says \"hi\""},
+                {"func_3_c", "run", "2", "First line\nsecond line"},
+                {"func_4_d", "", "0", "Windows\r\nline and\rold Mac line"},
+                {"\"", ",", "\n", ""}
+        };
+        String text = write(records);
+        assertEquals("field_1_a,count,0,\"Counts a, b, and c\"", text.split("\n")[1]);
+        assertEquals("field_2_b,say,1,\"Says \"\"hi\"\"\"", text.split("\n")[2]);
+
+        for (StringPool pool : new StringPool[]{null, new StringPool()}) {
+            CSVReader in = new CSVReader(new StringReader(text), pool);
+            List<Integer> lines = new ArrayList<Integer>();
+            for (String[] record : records) {
+                assertArrayEquals(record, in.readRecord());
+                lines.add(in.getLineNumber());
+            }
+            assertNull(in.readRecord());
+            // Line breaks inside quoted fields still count as lines.
+            assertEquals(Integer.valueOf(4), lines.get(3));
+            assertEquals(Integer.valueOf(6), lines.get(4));
+            assertEquals(Integer.valueOf(9), lines.get(5));
+        }
+    }
+
+    @Test
+    public void nullFieldsAreWrittenEmpty() throws IOException {
+        assertEquals("a,,b\n,", write(new String[][]{{"a", null, "b"}, {null, null}}));
+    }
+
+    @Test
+    public void unquotedTableIsWrittenIdentically() throws IOException {
+        List<String[]> records = new ArrayList<String[]>();
+        CSVReader in = new CSVReader(new StringReader(UNQUOTED));
+        String[] record;
+        while ((record = in.readRecord()) != null) {
+            records.add(record);
+        }
+        assertEquals(5, records.size());
+        assertEquals(UNQUOTED, write(records.toArray(new String[records.size()][])));
+    }
+
+    @Test
+    public void unquotedMcpFileIsStoredIdentically() throws IOException {
+        String contents = "searge,name,side,desc\n" +
+                "field_1_a,count,0,\n" +
+                "field_2_b,name,0,\n" +
+                "field_3_c,size,0,";
+        File original = folder.newFile("fields.csv");
+        Writer out = new BufferedWriter(new FileWriter(original));
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+        DirectOBFTable table = new DirectOBFTable();
+        new MCPCSVFileParser(TargetType.FIELD, 0).loadEntries(original, table, true);
+        File stored = folder.newFile("stored.csv");
+        new MCPCSVFileParser(TargetType.FIELD, 0).storeEntries(stored, table);
+
+        assertArrayEquals(Files.readAllBytes(original.toPath()), Files.readAllBytes(stored.toPath()));
+    }
+
+    @Test
+    public void unterminatedQuoteIsRejected() throws IOException {
+        CSVReader in = new CSVReader(new StringReader("a,b\nc,\"d\ne"));
+        assertArrayEquals(new String[]{"a", "b"}, in.readRecord());
+        try {
+            in.readRecord();
+            fail("Expected FormatException");
+        } catch (FormatException expected) {
+            assertEquals("Unterminated quoted field starting on line 2", expected.getMessage());
+        }
+    }
+
+    private static String write(String[][] records) throws IOException {
+        StringWriter text = new StringWriter();
+        CSVWriter out = new CSVWriter(text);
+        try {
+            for (String[] record : records) {
+                out.writeRecord(record);
+            }
+        } finally {
+            out.close();
+        }
+        return text.toString();
+    }
+}
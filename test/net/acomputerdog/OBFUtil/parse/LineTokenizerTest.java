@@ -0,0 +1,151 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.util.StringPool;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LineTokenizerTest {
+    private static final String[] LINES = {
+            "CL: a net/minecraft/src/Foo",
+            "FD:a/b:net/Foo/count",
+            "a::b",
+            ":a",
+            "::a",
+            "a:",
+            "a:b::",
+            ":::",
+            ":",
+            "a",
+            "METHOD:a.b:(I)V:func_1:(I)V:net.Foo.run:(I)V",
+            "a: :b "
+    };
+
+    @Test
+    public void splitsLikeStringSplit() {
+        for (LineTokenizer tokenizer : new LineTokenizer[]{new LineTokenizer(), new LineTokenizer(new StringPool())}) {
+            for (String line : LINES) {
+                for (char delimiter : new char[]{':', ' '}) {
+                    String[] expected = line.split(String.valueOf(delimiter));
+                    assertArrayEquals(line, expected, tokens(tokenizer.reset(line), delimiter));
+                    // The same line as a region of a CharSequence that is not a String.
+                    StringBuilder padded = new StringBuilder("xx").append(line).append(delimiter).append("yy");
+                    assertArrayEquals(line, expected, tokens(tokenizer.reset(padded, 2, 2 + line.length()), delimiter));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyLineHasNoTokens() {
+        LineTokenizer tokenizer = new LineTokenizer().reset("");
+        assertFalse(tokenizer.next(':'));
+        assertFalse(tokenizer.next(':'));
+    }
+
+    @Test
+    public void splitFillsBounds() {
+        LineTokenizer tokenizer = new LineTokenizer().reset("PK: a net/minecraft/src #C");
+        int[] bounds = new int[6];
+        assertEquals(3, tokenizer.split(' ', bounds));
+        assertEquals("PK:", tokenizer.substring(bounds[0], bounds[1]));
+        assertEquals("a", tokenizer.substring(bounds[2], bounds[3]));
+        assertEquals("net/minecraft/src", tokenizer.substring(bounds[4], bounds[5]));
+        // The rest of the line is still available.
+        assertTrue(tokenizer.next(' '));
+        assertEquals("#C", tokenizer.token());
+        assertFalse(tokenizer.next(' '));
+    }
+
+    @Test
+    public void detectsCommentLines() {
+        for (String line : new String[]{"", "   ", "\t", "# comment", "  #comment", "//comment", " // comment"}) {
+            assertTrue(line, new LineTokenizer().reset(line).isCommentLine());
+        }
+        for (String line : new String[]{"a", "/a", " a # b", "CL: a b", "a//b"}) {
+            assertFalse(line, new LineTokenizer().reset(line).isCommentLine());
+        }
+        // Only the region is checked, not the rest of the sequence.
+        assertTrue(new LineTokenizer().reset("CL: a\n# b", 6, 9).isCommentLine());
+        assertFalse(new LineTokenizer().reset("# a\nCL: b", 4, 9).isCommentLine());
+    }
+
+    @Test
+    public void replacesSlashesInRegions() {
+        for (LineTokenizer tokenizer : new LineTokenizer[]{new LineTokenizer(), new LineTokenizer(new StringPool())}) {
+            CharSequence line = new StringBuilder("MD: net/Foo/run (Lnet/Bar;)V");
+            tokenizer.reset(line);
+            int owner = tokenizer.indexOf(' ', 0, line.length()) + 1;
+            int desc = tokenizer.indexOf(' ', owner, line.length()) + 1;
+            int name = tokenizer.lastIndexOf('/', owner, desc - 1);
+
+            assertEquals("net.Foo", tokenizer.substring(owner, name, '/', '.'));
+            assertEquals("net/Foo", tokenizer.substring(owner, name));
+            assertEquals("net.Foo.run (Lnet.Bar;)V", tokenizer.join(owner, desc - 1, ' ', desc, line.length(), '/', '.'));
+            assertEquals("net/Foo/run (Lnet/Bar;)V", tokenizer.join(owner, desc - 1, ' ', desc, line.length()));
+            // Replacing the separator does not change the separator itself.
+            assertEquals("a/b", new LineTokenizer().reset("a.b").join(0, 1, '/', 2, 3, '/', '.'));
+        }
+    }
+
+    @Test
+    public void pooledTokensAreShared() {
+        StringPool pool = new StringPool();
+        LineTokenizer pooled = new LineTokenizer(pool);
+        LineTokenizer unpooled = new LineTokenizer();
+        String line = "net/Foo net/Foo net.Foo";
+
+        pooled.reset(line);
+        assertTrue(pooled.next(' '));
+        String first = pooled.token();
+        assertTrue(pooled.next(' '));
+        assertSame(first, pooled.token());
+        assertSame(first, pooled.substring(0, 7));
+        assertTrue(pooled.next(' '));
+        String dotted = pooled.token();
+        assertSame(dotted, pooled.substring(0, 7, '/', '.'));
+        assertSame(dotted, new LineTokenizer(pool).reset(new StringBuilder(line)).substring(16, 23));
+
+        unpooled.reset(new StringBuilder(line));
+        assertTrue(unpooled.next(' '));
+        String unpooledFirst = unpooled.token();
+        assertTrue(unpooled.next(' '));
+        assertEquals(unpooledFirst, unpooled.token());
+        assertNotSame(unpooledFirst, unpooled.token());
+        assertEquals(first, unpooledFirst);
+        assertEquals(dotted, unpooled.substring(0, 7, '/', '.'));
+    }
+
+    @Test
+    public void growsBufferForLongTokens() {
+        StringBuilder name = new StringBuilder();
+        for (int index = 0; index < 200; index++) {
+            name.append("a/");
+        }
+        String line = name + " " + name;
+        LineTokenizer tokenizer = new LineTokenizer().reset(new StringBuilder(line));
+        String expected = name.toString().replace('/', '.');
+        assertEquals(expected, tokenizer.substring(0, name.length(), '/', '.'));
+        assertEquals(expected + "|" + expected, tokenizer.join(0, name.length(), '|', name.length() + 1, line.length(), '/', '.'));
+        assertEquals(name.toString(), tokenizer.substring(0, name.length()));
+    }
+
+    private static String[] tokens(LineTokenizer tokenizer, char delimiter) {
+        List<String> tokens = new ArrayList<String>();
+        while (tokenizer.next(delimiter)) {
+            assertEquals(tokenizer.token(), tokenizer.getLine().subSequence(tokenizer.start(), tokenizer.end()).toString());
+            assertTrue(tokenizer.tokenEquals(tokenizer.token()));
+            tokens.add(tokenizer.token());
+        }
+        assertFalse(tokenizer.next(delimiter));
+        return tokens.toArray(new String[tokens.size()]);
+    }
+}
@@ -0,0 +1,141 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedLineReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsLinesWithEveryTerminator() throws IOException {
+        File file = write(folder.newFile("lines.txt"), "a\nb\r\nc\rd");
+        try (MappedLineReader in = new MappedLineReader(file)) {
+            assertEquals(Arrays.asList("a", "b", "c", "d"), readAll(in));
+            in.rewind();
+            assertEquals("a", in.readLine().toString());
+        }
+    }
+
+    @Test
+    public void splitRangesReadTheSameLines() throws IOException {
+        StringBuilder text = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int index = 0; index < 1000; index++) {
+            text.append("line").append(index).append(index % 3 == 0 ? "\r\n" : "\n");
+            expected.add("line" + index);
+        }
+        File file = write(folder.newFile("split.txt"), text.toString());
+        try (MappedLineReader in = new MappedLineReader(file)) {
+            List<String> lines = new ArrayList<String>();
+            for (MappedLineReader range : in.split(7)) {
+                lines.addAll(readAll(range));
+            }
+            assertEquals(expected, lines);
+        }
+    }
+
+    @Test
+    public void closedReaderCanNotBeRead() throws IOException {
+        File file = write(folder.newFile("closed.txt"), "a\nb\n");
+        MappedLineReader in = new MappedLineReader(file);
+        MappedLineReader range = in.split(2)[0];
+        range.close();
+        assertEquals("a", in.readLine().toString());
+
+        in.close();
+        in.close();
+        try {
+            in.readLine();
+            fail("Closed reader returned a line");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+        try {
+            range.readLine();
+            fail("Range of a closed reader returned a line");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void linesKeptAfterCloseCanNotBeRead() throws IOException {
+        File file = write(folder.newFile("kept.txt"), "abc\ndef\n");
+        MappedLineReader in = new MappedLineReader(file);
+        CharSequence line = in.readLine();
+        CharSequence rangeLine = in.split(1)[0].readLine();
+        assertEquals('a', line.charAt(0));
+        assertEquals("def", rangeLine.toString());
+
+        in.close();
+        assertEquals(3, line.length());
+        for (CharSequence kept : new CharSequence[]{line, rangeLine}) {
+            try {
+                kept.charAt(0);
+                fail("Line of a closed reader returned a character");
+            } catch (IllegalStateException expected) {
+                // Expected.
+            }
+            try {
+                kept.toString();
+                fail("Line of a closed reader returned a String");
+            } catch (IllegalStateException expected) {
+                // Expected.
+            }
+            try {
+                kept.subSequence(0, 1);
+                fail("Line of a closed reader returned a subsequence");
+            } catch (IllegalStateException expected) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void loadedFileCanBeRewrittenAndDeleted() throws IOException {
+        File file = write(folder.newFile("joined.srg"), "CL: a net/minecraft/Foo\n");
+        SRGFileParser parser = new SRGFileParser("C", false);
+        DirectOBFTable table = new DirectOBFTable();
+        parser.loadEntries(file, table, true);
+        assertEquals("net.minecraft.Foo", table.deobfClass("a"));
+
+        write(file, "CL: a net/minecraft/Bar\n");
+        parser.loadEntries(file, table, true);
+        assertEquals("net.minecraft.Bar", table.deobfClass("a"));
+        assertTrue(file.delete());
+    }
+
+    private static File write(File file, String text) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes("US-ASCII"));
+        }
+        return file;
+    }
+
+    private static List<String> readAll(MappedLineReader in) {
+        List<String> lines = new ArrayList<String>();
+        CharSequence line;
+        while ((line = in.readLine()) != null) {
+            lines.add(line.toString());
+        }
+        assertNull(in.readLine());
+        return lines;
+    }
+}
@@ -0,0 +1,148 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.parse.types.BLOBFParser;
+import net.acomputerdog.OBFUtil.parse.types.OBFParser;
+import net.acomputerdog.OBFUtil.parse.types.SOBFFileParser;
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappingFilterTest {
+    private static final MappingFilter CLIENT_MEMBERS = new MappingFilter(EnumSet.of(TargetType.CLASS, TargetType.FIELD, TargetType.METHOD), "net/minecraft/client");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void prefixesMatchWholeSegments() {
+        MappingFilter filter = new MappingFilter(EnumSet.allOf(TargetType.class), "net/minecraft/client");
+        assertTrue(filter.acceptsName("net.minecraft.client"));
+        assertTrue(filter.acceptsName("net.minecraft.client.Foo"));
+        assertTrue(filter.acceptsName("net/minecraft/client/gui/Gui"));
+        assertTrue(filter.acceptsName("net.minecraft.client.Foo.run (I)V"));
+        assertFalse(filter.acceptsName("net.minecraft.clientx.Foo"));
+        assertFalse(filter.acceptsName("net.minecraft.clientx"));
+        assertFalse(filter.acceptsName("net.minecraft"));
+        assertFalse(filter.acceptsName("org.net.minecraft.client.Foo"));
+
+        // Only the region is checked.
+        assertTrue(filter.acceptsName("CL: a net/minecraft/client/Foo", 6, 30));
+        assertFalse(filter.acceptsName("CL: a net/minecraft/clientx", 6, 27));
+        assertTrue(filter.acceptsName("CL: a net/minecraft/clientx", 6, 26));
+    }
+
+    @Test
+    public void slashesAndDotsAreEquivalent() {
+        for (String prefix : new String[]{"net/minecraft/client", "net.minecraft.client", "net/minecraft.client/", "net.minecraft.client."}) {
+            MappingFilter filter = new MappingFilter(EnumSet.allOf(TargetType.class), prefix);
+            assertTrue(prefix, filter.acceptsName("net.minecraft.client.Foo"));
+            assertTrue(prefix, filter.acceptsName("net/minecraft/client/Foo"));
+            assertTrue(prefix, filter.acceptsName("net/minecraft.client/Foo"));
+            assertFalse(prefix, filter.acceptsName("net/minecraft/clientx/Foo"));
+        }
+    }
+
+    @Test
+    public void typesAndPrefixesAreBothChecked() {
+        MappingFilter filter = new MappingFilter(EnumSet.of(TargetType.FIELD), "a", "b/c");
+        assertTrue(filter.accepts(TargetType.FIELD, "a.x", 0, 3));
+        assertTrue(filter.accepts(TargetType.FIELD, "b.c.x", 0, 5));
+        assertFalse(filter.accepts(TargetType.FIELD, "b.x", 0, 3));
+        assertFalse(filter.accepts(TargetType.CLASS, "a.x", 0, 3));
+
+        MappingFilter any = new MappingFilter(EnumSet.of(TargetType.CLASS));
+        assertTrue(any.acceptsName("anything"));
+        assertFalse(any.acceptsType(TargetType.METHOD));
+    }
+
+    @Test
+    public void srgParserSkipsFilteredRecords() throws IOException {
+        File file = store(new SRGFileParser("C", false));
+        SRGFileParser parser = new SRGFileParser("C", false);
+        parser.setFilter(CLIENT_MEMBERS);
+        assertFiltered(parser, file);
+    }
+
+    @Test
+    public void blobfParserSkipsFilteredRecords() throws IOException {
+        File file = store(new BLOBFParser());
+        BLOBFParser parser = new BLOBFParser();
+        parser.setFilter(CLIENT_MEMBERS);
+        assertFiltered(parser, file);
+
+        // The parallel loader applies the same filter.
+        ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+        try {
+            parser.setForkJoinPool(forkJoinPool);
+            assertFiltered(parser, file);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void obfParserSkipsFilteredRecords() throws IOException {
+        File file = store(new OBFParser());
+        OBFParser parser = new OBFParser();
+        parser.setFilter(CLIENT_MEMBERS);
+        assertFiltered(parser, file);
+    }
+
+    @Test
+    public void sobfParserSkipsFilteredRecords() throws IOException {
+        File file = store(new SOBFFileParser(0));
+        SOBFFileParser parser = new SOBFFileParser(0);
+        parser.setFilter(CLIENT_MEMBERS);
+        assertFiltered(parser, file);
+    }
+
+    /**
+     * Loads a file written from table() with a parser using CLIENT_MEMBERS, and checks that only the client classes and
+     * members were loaded.
+     */
+    private static void assertFiltered(FileParser parser, File file) throws IOException {
+        DirectOBFTable table = new DirectOBFTable();
+        parser.loadEntries(file, table, true);
+
+        assertArrayEquals(new String[0], table.getAllPackagesObf());
+        assertArrayEquals(new String[]{"a.b", "a.d"}, table.getAllClassesObf());
+        assertArrayEquals(new String[]{"a.b.f"}, table.getAllFieldsObf());
+        assertArrayEquals(new String[]{"a.b.h (I)V"}, table.getAllMethodsObf());
+        assertEquals("net.minecraft.client.gui.Gui", table.deobfClass("a.d"));
+        assertEquals("net.minecraft.client.Foo.run (I)V", table.deobfMethod("a.b.h (I)V"));
+    }
+
+    private File store(FileParser parser) throws IOException {
+        File file = folder.newFile();
+        parser.storeEntries(file, table());
+        return file;
+    }
+
+    private static DirectOBFTableSRG table() {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addPackageSRG("a", "net.minecraft.client", "net.minecraft.client");
+        table.addClassSRG("a.b", "net.minecraft.client.C_1", "net.minecraft.client.Foo");
+        table.addClassSRG("a.c", "net.minecraft.client.C_2", "net.minecraft.clientx.Bar");
+        table.addClassSRG("a.d", "net.minecraft.client.C_3", "net.minecraft.client.gui.Gui");
+        table.addClassSRG("a.e", "net.minecraft.client.C_4", "net.minecraft.server.Baz");
+        table.addFieldSRG("a.b.f", "net.minecraft.client.C_1.field_1", "net.minecraft.client.Foo.count");
+        table.addFieldSRG("a.c.g", "net.minecraft.client.C_2.field_2", "net.minecraft.clientx.Bar.name");
+        table.addMethodSRG("a.b.h (I)V", "net.minecraft.client.C_1.func_1 (I)V", "net.minecraft.client.Foo.run (I)V");
+        table.addMethodSRG("a.e.i ()V", "net.minecraft.client.C_4.func_2 ()V", "net.minecraft.server.Baz.tick ()V");
+        return table;
+    }
+}
@@ -0,0 +1,181 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.parse.types.BLOBFParser;
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelLineLoaderTest {
+    private static final int LINES = 6000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+    @After
+    public void shutdown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Test
+    public void srgMatchesSequentialLoad() throws IOException {
+        File file = writeSRG(-1);
+        for (boolean overwrite : new boolean[]{false, true}) {
+            DirectOBFTableSRG sequential = new DirectOBFTableSRG();
+            new SRGFileParser("C", false).loadEntries(file, sequential, overwrite);
+            SRGFileParser parser = new SRGFileParser("C", false);
+            parser.setForkJoinPool(forkJoinPool);
+            DirectOBFTableSRG parallel = new DirectOBFTableSRG();
+            parser.loadEntries(file, parallel, overwrite);
+
+            assertSameTable(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void blobfMatchesSequentialLoad() throws IOException {
+        File file = writeBLOBF(-1);
+        for (boolean overwrite : new boolean[]{false, true}) {
+            DirectOBFTableSRG sequential = new DirectOBFTableSRG();
+            new BLOBFParser().loadEntries(file, sequential, overwrite);
+            BLOBFParser parser = new BLOBFParser();
+            parser.setForkJoinPool(forkJoinPool);
+            DirectOBFTableSRG parallel = new DirectOBFTableSRG();
+            parser.loadEntries(file, parallel, overwrite);
+
+            assertSameTable(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void srgBadLineInMiddleRange() throws IOException {
+        File file = writeSRG(LINES / 2);
+        DirectOBFTableSRG sequential = new DirectOBFTableSRG();
+        String expected = failLoad(new SRGFileParser("C", false), file, sequential);
+        assertTrue(expected, expected.contains("line " + (LINES / 2)));
+
+        SRGFileParser parser = new SRGFileParser("C", false);
+        parser.setForkJoinPool(forkJoinPool);
+        DirectOBFTableSRG parallel = new DirectOBFTableSRG();
+        assertEquals(expected, failLoad(parser, file, parallel));
+        assertSameTable(sequential, parallel);
+    }
+
+    @Test
+    public void blobfBadLineInMiddleRange() throws IOException {
+        File file = writeBLOBF(LINES / 2);
+        DirectOBFTableSRG sequential = new DirectOBFTableSRG();
+        String expected = failLoad(new BLOBFParser(), file, sequential);
+        assertTrue(expected, expected.contains("line " + (LINES / 2)));
+
+        BLOBFParser parser = new BLOBFParser();
+        parser.setForkJoinPool(forkJoinPool);
+        DirectOBFTableSRG parallel = new DirectOBFTableSRG();
+        assertEquals(expected, failLoad(parser, file, parallel));
+        assertSameTable(sequential, parallel);
+    }
+
+    private static String failLoad(FileParser parser, File file, DirectOBFTableSRG table) throws IOException {
+        try {
+            parser.loadEntries(file, table, true);
+            fail("Expected FormatException");
+            return null;
+        } catch (FormatException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Writes an SRG file that maps some obfuscated names more than once, and several obfuscated names to the same name.
+     *
+     * @param badLine The line number to write a malformed line at, or -1 for none.
+     */
+    private File writeSRG(int badLine) throws IOException {
+        File file = folder.newFile("mappings.srg");
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            for (int line = 1; line <= LINES; line++) {
+                if (line == badLine) {
+                    out.write("XX: broken\n");
+                    continue;
+                }
+                int name = line % 1000;
+                switch (line % 3) {
+                    case 0:
+                        out.write("CL: a" + name + " net/minecraft/src/C" + (line % 7 == 0 ? "Shared" : line) + "\n");
+                        break;
+                    case 1:
+                        out.write("FD: a" + name + "/f net/minecraft/src/C" + name + "/field_" + line + "\n");
+                        break;
+                    default:
+                        out.write("MD: a" + name + "/m (I)V net/minecraft/src/C" + name + "/func_" + line + " (I)V #C\n");
+                        break;
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Writes a BLOBF file like writeSRG().
+     */
+    private File writeBLOBF(int badLine) throws IOException {
+        File file = folder.newFile("mappings.blobf");
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            for (int line = 1; line <= LINES; line++) {
+                if (line == badLine) {
+                    out.write("FIELD:broken\n");
+                    continue;
+                }
+                int name = line % 1000;
+                switch (line % 3) {
+                    case 0:
+                        out.write("CLASS:a" + name + ":C_" + line + ":net.C" + (line % 7 == 0 ? "Shared" : line) + "\n");
+                        break;
+                    case 1:
+                        out.write("FIELD:a" + name + ".f:field_" + line + ":net.C" + name + ".f" + line + "\n");
+                        break;
+                    default:
+                        out.write("METHOD:a" + name + ".m:(I)V:func_" + line + ":(I)V:net.C" + name + ".m" + line + ":(I)V\n");
+                        break;
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static void assertSameTable(DirectOBFTableSRG expected, DirectOBFTableSRG actual) {
+        for (TargetType type : TargetType.values()) {
+            assertArrayEquals(expected.getAllTypeObf(type), actual.getAllTypeObf(type));
+            assertArrayEquals(expected.getAllTypeDeobf(type), actual.getAllTypeDeobf(type));
+            for (String obf : expected.getAllTypeObf(type)) {
+                assertEquals(expected.getSRGFromObfType(obf, type), actual.getSRGFromObfType(obf, type));
+            }
+            for (String deobf : expected.getAllTypeDeobf(type)) {
+                assertEquals(expected.obfType(deobf, type), actual.obfType(deobf, type));
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import net.acomputerdog.OBFUtil.table.ConcurrentOBFTable;
+import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.FrozenOBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTableSRG;
+import net.acomputerdog.OBFUtil.table.PersistentOBFTable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class BLOBFParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String SRG_LINES = "CLASS:a:C_1:net.Foo\n" +
+            "METHOD:a.c:(I)V:func_1:(I)V:net.Foo.run:(I)V\n" +
+            "FIELD:a.b:field_1:net.Foo.bar\n";
+
+    @Test
+    public void writesSeargeNamesOfAnySeargeTable() throws IOException {
+        DirectOBFTableSRG source = srgTable();
+
+        assertEquals(SRG_LINES, store(source));
+        assertEquals(SRG_LINES, store(FrozenOBFTable.freeze(source)));
+        assertEquals(SRG_LINES, store(new ConcurrentOBFTable(source)));
+    }
+
+    @Test
+    public void leavesSeargeNamesBlankWithoutThem() throws IOException {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addClass("a", "net.Foo");
+        table.addMethod("a.c (I)V", "net.Foo.run (I)V");
+        table.addField("a.b", "net.Foo.bar");
+
+        String expected = "CLASS:a: :net.Foo\n" +
+                "METHOD:a.c:(I)V: : :net.Foo.run:(I)V\n" +
+                "FIELD:a.b: :net.Foo.bar\n";
+        assertEquals(expected, store(table));
+    }
+
+    @Test
+    public void loadsSeargeNamesIntoAnySeargeTable() throws IOException {
+        File file = folder.newFile("table.blobf");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(SRG_LINES.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        BLOBFParser parser = new BLOBFParser();
+        for (OBFTableSRG table : new OBFTableSRG[]{new ConcurrentOBFTable(), new PersistentOBFTable()}) {
+            parser.loadEntries(file, table, true);
+            assertSeargeNames(table);
+        }
+        for (OBFTableSRG table : new OBFTableSRG[]{new ConcurrentOBFTable(), new PersistentOBFTable()}) {
+            parser.loadEntries(new ByteArrayInputStream(SRG_LINES.getBytes("UTF-8")), table, true);
+            assertSeargeNames(table);
+        }
+    }
+
+    private static void assertSeargeNames(OBFTableSRG table) {
+        assertEquals("field_1", table.getSRGFromObfField("a.b"));
+        assertEquals("func_1 (I)V", table.getSRGFromObfMethod("a.c (I)V"));
+        assertEquals("C_1", table.getSRGFromObfClass("a"));
+        assertEquals("net.Foo.bar", table.deobfField("a.b"));
+        assertEquals("a.b", table.getObfFromSRGField("field_1"));
+    }
+
+    private static DirectOBFTableSRG srgTable() {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addClassSRG("a", "C_1", "net.Foo");
+        table.addMethodSRG("a.c (I)V", "func_1 (I)V", "net.Foo.run (I)V");
+        table.addFieldSRG("a.b", "field_1", "net.Foo.bar");
+        return table;
+    }
+
+    private static String store(OBFTable table) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BLOBFParser().storeEntries(out, table);
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,163 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryOBFParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fileRoundTripKeepsSeargeNamesAndOrder() throws IOException {
+        DirectOBFTableSRG source = srgTable();
+        File file = folder.newFile("table.bin");
+        BinaryOBFParser parser = new BinaryOBFParser();
+        parser.storeEntries(file, source);
+
+        DirectOBFTableSRG loaded = new DirectOBFTableSRG();
+        parser.loadEntries(file, loaded, true);
+
+        assertSameTable(source, loaded);
+        assertEquals("field_1", loaded.getSRGFromObfField("a.b"));
+        assertEquals("func_1 ()V", loaded.getSRGFromObfMethod("a.c ()V"));
+        assertEquals("C_1", loaded.getSRGFromObfClass("a"));
+    }
+
+    @Test
+    public void streamRoundTripOfPlainTable() throws IOException {
+        DirectOBFTable source = new DirectOBFTable();
+        source.addPackage("a", "net/foo");
+        source.addClass("a/b", "net.foo.Bar");
+        source.addClass("a/c", "net.foo.Bar");
+        source.addField("a.b", "net.foo.Bar.\u00fcber");
+
+        DirectOBFTable loaded = new DirectOBFTable();
+        BinaryOBFParser parser = new BinaryOBFParser();
+        parser.loadEntries(new ByteArrayInputStream(store(parser, source)), loaded, true);
+
+        assertSameTable(source, loaded);
+        assertEquals("net.foo.Bar.\u00fcber", loaded.deobfField("a.b"));
+    }
+
+    @Test
+    public void plainSnapshotUsesDeobfuscatedNameAsSearge() throws IOException {
+        DirectOBFTable source = new DirectOBFTable();
+        source.addField("a.b", "net.Foo.bar");
+        BinaryOBFParser parser = new BinaryOBFParser();
+
+        DirectOBFTableSRG loaded = new DirectOBFTableSRG();
+        parser.loadEntries(new ByteArrayInputStream(store(parser, source)), loaded, true);
+        assertEquals("net.Foo.bar", loaded.getSRGFromObfField("a.b"));
+    }
+
+    @Test
+    public void loadKeepsExistingMappingsWithoutOverwrite() throws IOException {
+        DirectOBFTable source = new DirectOBFTable();
+        source.addClass("a", "net.New");
+        source.addClass("b", "net.Other");
+        BinaryOBFParser parser = new BinaryOBFParser();
+        byte[] bytes = store(parser, source);
+
+        DirectOBFTable kept = new DirectOBFTable();
+        kept.addClass("a", "net.Old");
+        parser.loadEntries(new ByteArrayInputStream(bytes), kept, false);
+        assertEquals("net.Old", kept.deobfClass("a"));
+        assertEquals("net.Other", kept.deobfClass("b"));
+
+        DirectOBFTable overwritten = new DirectOBFTable();
+        overwritten.addClass("a", "net.Old");
+        parser.loadEntries(new ByteArrayInputStream(bytes), overwritten, true);
+        assertEquals("net.New", overwritten.deobfClass("a"));
+    }
+
+    @Test
+    public void pooledLoadSharesNames() throws IOException {
+        BinaryOBFParser parser = new BinaryOBFParser();
+        byte[] bytes = store(parser, srgTable());
+        StringPool pool = new StringPool();
+        parser.setStringPool(pool);
+
+        DirectOBFTableSRG first = new DirectOBFTableSRG();
+        DirectOBFTableSRG second = new DirectOBFTableSRG();
+        parser.loadEntries(new ByteArrayInputStream(bytes), first, true);
+        parser.loadEntries(new ByteArrayInputStream(bytes), second, true);
+        assertSame(first.deobfField("a.b"), second.deobfField("a.b"));
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        BinaryOBFParser parser = new BinaryOBFParser();
+        byte[] bytes = store(parser, srgTable());
+        assertRejected(parser, "Not a binary OBF snapshot!".getBytes("US-ASCII"));
+        assertRejected(parser, Arrays.copyOf(bytes, bytes.length - 3));
+        bytes[5] = 2;
+        assertRejected(parser, bytes);
+    }
+
+    @Test
+    public void snapshotCanBeRewrittenAfterLoading() throws IOException {
+        File file = folder.newFile("rewrite.bin");
+        BinaryOBFParser parser = new BinaryOBFParser();
+        parser.storeEntries(file, srgTable());
+        parser.loadEntries(file, new DirectOBFTableSRG(), true);
+
+        DirectOBFTable changed = new DirectOBFTable();
+        changed.addClass("z", "net.Changed");
+        parser.storeEntries(file, changed);
+        DirectOBFTable loaded = new DirectOBFTable();
+        parser.loadEntries(file, loaded, true);
+        assertEquals("net.Changed", loaded.deobfClass("z"));
+        assertTrue(file.delete());
+    }
+
+    private static DirectOBFTableSRG srgTable() {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addPackageSRG("a", "net/minecraft", "net/minecraft");
+        table.addClassSRG("a", "C_1", "net.minecraft.Foo");
+        table.addFieldSRG("a.b", "field_1", "net.minecraft.Foo.bar");
+        table.addFieldSRG("a.d", "field_2", "net.minecraft.Foo.bar");
+        table.addMethodSRG("a.c ()V", "func_1 ()V", "net.minecraft.Foo.baz ()V");
+        return table;
+    }
+
+    private static byte[] store(BinaryOBFParser parser, OBFTable table) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parser.storeEntries(out, table);
+        return out.toByteArray();
+    }
+
+    private static void assertRejected(BinaryOBFParser parser, byte[] bytes) throws IOException {
+        try {
+            parser.loadEntries(new ByteArrayInputStream(bytes), new DirectOBFTableSRG(), true);
+            fail("Loaded an invalid snapshot");
+        } catch (FormatException expected) {
+            // Expected.
+        }
+    }
+
+    private static void assertSameTable(OBFTable expected, OBFTable actual) {
+        for (TargetType type : TargetType.values()) {
+            assertArrayEquals(type.name(), expected.getAllTypeObf(type), actual.getAllTypeObf(type));
+            assertArrayEquals(type.name(), expected.getAllTypeDeobf(type), actual.getAllTypeDeobf(type));
+        }
+    }
+}
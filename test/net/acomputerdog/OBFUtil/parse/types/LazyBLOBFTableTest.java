@@ -0,0 +1,99 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LazyBLOBFTableTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void writeFile() throws IOException {
+        file = folder.newFile("remapped.blobf");
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            out.write("CLASS:a:C_1:net.Foo\n");
+            out.write("FIELD:a.b:field_1:net.Foo.bar\n");
+            out.write("FIELD:a.c:field_2:net.Foo.shared\n");
+            out.write("FIELD:a.d:field_3:net.Foo.shared\n");
+            // Remaps a.b, so field_1 and net.Foo.bar are no longer mapped.
+            out.write("FIELD:a.b:field_4:net.Foo.baz\n");
+            // Remaps a.c, which no longer owns the reverse mapping of net.Foo.shared.
+            out.write("FIELD:a.c:field_5:net.Foo.other\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void remappedNamesAreNotMapped() throws IOException {
+        LazyBLOBFTable table = new LazyBLOBFTable(file);
+
+        assertEquals("net.Foo.baz", table.deobfField("a.b"));
+        assertEquals("a.b", table.obfField("net.Foo.baz"));
+        assertNull(table.obfField("net.Foo.bar"));
+        assertNull(table.getObfFromSRGField("field_1"));
+        assertFalse(table.hasFieldSRG("field_1"));
+        assertEquals("a.d", table.obfField("net.Foo.shared"));
+        assertEquals("a.c", table.obfField("net.Foo.other"));
+    }
+
+    @Test
+    public void lookupsMatchEagerLoad() throws IOException {
+        LazyBLOBFTable lazy = new LazyBLOBFTable(file);
+        DirectOBFTableSRG eager = new DirectOBFTableSRG();
+        new BLOBFParser().loadEntries(file, eager, true);
+
+        String[] obfNames = {"a.b", "a.c", "a.d", "a.e"};
+        String[] srgNames = {"field_1", "field_2", "field_3", "field_4", "field_5"};
+        String[] deobfNames = {"net.Foo.bar", "net.Foo.baz", "net.Foo.shared", "net.Foo.other"};
+        for (String obf : obfNames) {
+            assertEquals(obf, eager.deobfField(obf), lazy.deobfField(obf));
+            assertEquals(obf, eager.getSRGFromObfField(obf), lazy.getSRGFromObfField(obf));
+        }
+        for (String srg : srgNames) {
+            assertEquals(srg, eager.getObfFromSRGField(srg), lazy.getObfFromSRGField(srg));
+            assertEquals(srg, eager.getDeObfFromSRGField(srg), lazy.getDeObfFromSRGField(srg));
+        }
+        for (String deobf : deobfNames) {
+            assertEquals(deobf, eager.obfField(deobf), lazy.obfField(deobf));
+            assertEquals(deobf, eager.getSRGFromDeObfField(deobf), lazy.getSRGFromDeObfField(deobf));
+        }
+        assertEquals(eager.obfClass("net.Foo"), lazy.obfClass("net.Foo"));
+        assertEquals(eager.getAllTypeObf(TargetType.FIELD).length, lazy.getAllTypeObf(TargetType.FIELD).length);
+    }
+
+    @Test
+    public void closeReleasesFile() throws IOException {
+        LazyBLOBFTable table = new LazyBLOBFTable(file);
+        assertEquals("net.Foo.baz", table.deobfField("a.b"));
+        table.close();
+
+        assertEquals("net.Foo.baz", table.deobfField("a.b"));
+        try {
+            table.deobfClass("a");
+            fail("Closed table decoded a record");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+        assertTrue(file.delete());
+    }
+}
@@ -0,0 +1,98 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class MCPCSVFileParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sideColumnIsComparedAsNumber() throws IOException {
+        File file = write("searge,name,side,desc\n" +
+                "field_1,one,0,\n" +
+                "field_2,two, 1,\n" +
+                "field_3,three,01,\n" +
+                "field_4,\"fo,ur\",1,\"a \"\"quoted\"\"\n desc\"\n" +
+                "field_5,five,2,\n");
+
+        OBFTable table = new DirectOBFTable();
+        new MCPCSVFileParser(TargetType.FIELD, 1).loadEntries(file, table, true);
+
+        assertNull(table.deobfField("field_1"));
+        assertEquals("two", table.deobfField("field_2"));
+        assertEquals("three", table.deobfField("field_3"));
+        assertEquals("fo,ur", table.deobfField("field_4"));
+        assertNull(table.deobfField("field_5"));
+    }
+
+    @Test
+    public void rejectedRowsCreateNoStrings() throws IOException {
+        File file = write("searge,name,side,desc\n" +
+                "field_1,one,0,first\n" +
+                "field_2,two,1,second\n" +
+                "field_3,three,0,third\n");
+
+        StringPool pool = new StringPool();
+        MCPCSVFileParser parser = new MCPCSVFileParser(TargetType.FIELD, 1);
+        parser.setStringPool(pool);
+        OBFTable table = new DirectOBFTable();
+        parser.loadEntries(file, table, true);
+
+        assertEquals("two", table.deobfField("field_2"));
+        // The four header names and the four fields of the accepted row.
+        assertEquals(8, pool.size());
+    }
+
+    @Test
+    public void ignoredSidesAcceptAnySideColumn() throws IOException {
+        File file = write("searge,name,side,desc\n" +
+                "field_1,one,x,\n" +
+                "\n" +
+                "field_2,two\n");
+
+        OBFTable table = new DirectOBFTable();
+        new MCPCSVFileParser(TargetType.FIELD).loadEntries(file, table, true);
+
+        assertEquals("one", table.deobfField("field_1"));
+        assertEquals("two", table.deobfField("field_2"));
+    }
+
+    @Test
+    public void invalidSideIsRejected() throws IOException {
+        File file = write("searge,name,side,desc\n" +
+                "field_1,one,1x,\n");
+
+        try {
+            new MCPCSVFileParser(TargetType.FIELD, 1).loadEntries(file, new DirectOBFTable(), true);
+            fail("Expected NumberFormatException");
+        } catch (NumberFormatException expected) {
+            assertEquals("For input string: \"1x\"", expected.getMessage());
+        }
+    }
+
+    private File write(String contents) throws IOException {
+        File file = folder.newFile("fields.csv");
+        Writer out = new FileWriter(file);
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,133 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachingOBFTableTest {
+
+    @Test
+    public void upsertInvalidatesMovedReverseName() {
+        DirectOBFTable backing = new DirectOBFTable();
+        CachingOBFTable cache = new CachingOBFTable(backing, 16);
+        cache.addClass("a", "net.Foo");
+        cache.addClass("b", "net.Bar");
+
+        // Warm both directions before the upsert.
+        assertEquals("net.Foo", cache.deobfClass("a"));
+        assertEquals("net.Bar", cache.deobfClass("b"));
+        assertEquals("a", cache.obfClass("net.Foo"));
+        assertEquals("b", cache.obfClass("net.Bar"));
+
+        // "a" takes "net.Bar" from "b" and gives up "net.Foo".
+        cache.addClass("a", "net.Bar");
+
+        assertEquals("net.Bar", cache.deobfClass("a"));
+        assertEquals(backing.deobfClass("b"), cache.deobfClass("b"));
+        assertEquals("a", cache.obfClass("net.Bar"));
+        assertEquals(backing.obfClass("net.Foo"), cache.obfClass("net.Foo"));
+        for (String obf : backing.getAllClassesObf()) {
+            assertEquals(backing.deobfClass(obf), cache.deobfClass(obf));
+        }
+        for (String deobf : new String[]{"net.Foo", "net.Bar"}) {
+            assertEquals(backing.obfClass(deobf), cache.obfClass(deobf));
+        }
+    }
+
+    @Test
+    public void cachesUnmappedNamesUntilTheyAreAdded() {
+        CachingOBFTable cache = new CachingOBFTable(new DirectOBFTable(), 16);
+
+        assertNull(cache.deobfField("a.x"));
+        assertFalse(cache.hasFieldObf("a.x"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        cache.addField("a.x", "net.Foo.count");
+
+        assertEquals("net.Foo.count", cache.deobfField("a.x"));
+        assertTrue(cache.hasFieldDeobf("net.Foo.count"));
+        assertNull(cache.deobfMethod("a.x"));
+    }
+
+    @Test
+    public void directWritesNeedClearCache() {
+        DirectOBFTable backing = new DirectOBFTable();
+        CachingOBFTable cache = new CachingOBFTable(backing, 16);
+
+        assertNull(cache.deobfPackage("a"));
+        backing.addPackage("a", "net/foo");
+        assertNull(cache.deobfPackage("a"));
+
+        cache.clearCache();
+        assertEquals("net/foo", cache.deobfPackage("a"));
+    }
+
+    @Test
+    public void countsHitsMissesAndEvictions() {
+        DirectOBFTable backing = new DirectOBFTable();
+        backing.addClass("a", "net.A");
+        backing.addClass("b", "net.B");
+        backing.addClass("c", "net.C");
+        CachingOBFTable cache = new CachingOBFTable(backing, 2);
+
+        cache.deobfClass("a");
+        cache.deobfClass("b");
+        cache.deobfClass("c");
+        cache.deobfClass("a");
+        cache.deobfClass("c");
+        cache.obfClass("net.A");
+
+        assertEquals(5, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    public void frequencyPolicyKeepsHotNames() {
+        CachingOBFTable lru = new CachingOBFTable(hotAndColdTable(), 4, CachingOBFTable.EvictionPolicy.LRU);
+        CachingOBFTable frequency = new CachingOBFTable(hotAndColdTable(), 4, CachingOBFTable.EvictionPolicy.FREQUENCY);
+        lookUpHotThenCold(lru);
+        lookUpHotThenCold(frequency);
+
+        assertEquals(0, frequency.getEvictionCount());
+        assertTrue(lru.getEvictionCount() > 0);
+
+        long hits = frequency.getHitCount();
+        for (int index = 0; index < 4; index++) {
+            assertEquals("net.Hot" + index, frequency.deobfMethod("hot" + index));
+        }
+        assertEquals(hits + 4, frequency.getHitCount());
+
+        // A name looked up once is not admitted over the hot names.
+        long misses = frequency.getMissCount();
+        frequency.deobfMethod("cold0");
+        assertEquals(misses + 1, frequency.getMissCount());
+    }
+
+    private static OBFTable hotAndColdTable() {
+        DirectOBFTable table = new DirectOBFTable();
+        for (int index = 0; index < 4; index++) {
+            table.addType("hot" + index, "net.Hot" + index, TargetType.METHOD);
+        }
+        for (int index = 0; index < 15; index++) {
+            table.addType("cold" + index, "net.Cold" + index, TargetType.METHOD);
+        }
+        return table;
+    }
+
+    private static void lookUpHotThenCold(CachingOBFTable cache) {
+        for (int round = 0; round < 5; round++) {
+            for (int index = 0; index < 4; index++) {
+                cache.deobfMethod("hot" + index);
+            }
+        }
+        for (int index = 0; index < 15; index++) {
+            cache.deobfMethod("cold" + index);
+        }
+    }
+}
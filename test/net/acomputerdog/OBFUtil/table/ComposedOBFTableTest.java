@@ -0,0 +1,197 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.parse.types.BLOBFParser;
+import net.acomputerdog.OBFUtil.parse.types.MCPCSVFileParser;
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.tool.BLConfigGen;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ComposedOBFTableTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rewritesOwnerSimpleNameAndDescriptor() {
+        ComposedOBFTable composed = ComposedOBFTable.compose(seargeTable(), mcpTable());
+
+        assertEquals("net.Foo", composed.deobfClass("a"));
+        assertEquals("net.Foo.count", composed.deobfField("a.x"));
+        assertEquals("net.Foo.run (Lnet.Bar;)V", composed.deobfMethod("a.y (Lb;)V"));
+        assertEquals("net.Foo.run ()V", composed.deobfMethod("a.z ()V"));
+        // The simple name is not mapped, but the owner still is.
+        assertEquals("net.Bar.field_2", composed.deobfField("b.x"));
+        // Names the second table does not map at all pass through.
+        assertEquals("C_3", composed.deobfClass("c"));
+        assertNull(composed.deobfField("a.w"));
+
+        assertEquals("C_1.func_1 (LC_2;)V", composed.getSRGFromObfMethod("a.y (Lb;)V"));
+        assertEquals("net.Foo.run ()V", composed.getDeObfFromSRGMethod("C_1.func_2 ()V"));
+    }
+
+    @Test
+    public void reverseLookupsResolveAmbiguousMcpNames() {
+        ComposedOBFTable composed = ComposedOBFTable.compose(seargeTable(), mcpTable());
+
+        assertEquals("a.z ()V", composed.obfMethod("net.Foo.run ()V"));
+        assertEquals("a.y (Lb;)V", composed.obfMethod("net.Foo.run (Lnet.Bar;)V"));
+        assertEquals("C_1.func_1 (LC_2;)V", composed.getSRGFromDeObfMethod("net.Foo.run (Lnet.Bar;)V"));
+        assertEquals("a.x", composed.obfField("net.Foo.count"));
+        assertEquals("b.x", composed.obfField("net.Bar.field_2"));
+        assertEquals("a", composed.obfClass("net.Foo"));
+        assertEquals("c", composed.obfClass("C_3"));
+        assertNull(composed.obfMethod("net.Foo.run (I)V"));
+        assertNull(composed.obfMethod("net.Bar.run ()V"));
+        assertNull(composed.obfClass("C_1"));
+    }
+
+    @Test
+    public void listsMembersOfDeobfuscatedOwners() {
+        ComposedOBFTable composed = ComposedOBFTable.compose(seargeTable(), mcpTable());
+
+        assertArrayEquals(new String[]{"net.Foo.run (Lnet.Bar;)V", "net.Foo.run ()V"}, composed.getMembersDeobf("net.Foo", TargetType.METHOD));
+        assertArrayEquals(new String[]{"net.Foo.count"}, composed.getMembersDeobf("net.Foo", TargetType.FIELD));
+        assertArrayEquals(new String[]{"net.Bar.field_2"}, composed.getMembersDeobf("net.Bar", TargetType.FIELD));
+        assertArrayEquals(new String[]{"a.x"}, composed.getMembersObf("a", TargetType.FIELD));
+    }
+
+    @Test
+    public void clearCacheForgetsMemoizedLookups() {
+        DirectOBFTable mcp = mcpTable();
+        ComposedOBFTable composed = ComposedOBFTable.compose(seargeTable(), mcp, 1);
+
+        assertEquals("net.Foo.count", composed.deobfField("a.x"));
+        assertEquals("a.x", composed.obfField("net.Foo.count"));
+        mcp.addField("field_1", "amount");
+        assertEquals("net.Foo.count", composed.deobfField("a.x"));
+
+        composed.clearCache();
+        assertEquals("net.Foo.amount", composed.deobfField("a.x"));
+        assertEquals("a.x", composed.obfField("net.Foo.amount"));
+        assertNull(composed.obfField("net.Foo.count"));
+    }
+
+    @Test
+    public void isReadOnly() {
+        ComposedOBFTable composed = ComposedOBFTable.compose(seargeTable(), mcpTable());
+        try {
+            composed.addClass("d", "net.Baz");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+            assertNull(composed.deobfClass("d"));
+        }
+    }
+
+    @Test
+    public void matchesBLConfigGen() throws IOException {
+        File mcpDir = folder.newFolder("mcp");
+        File outDir = folder.newFolder("out");
+        write(new File(mcpDir, "joined.srg"), "PK: a net/minecraft/src\n" +
+                "CL: a net/minecraft/src/Foo\n" +
+                "CL: b net/minecraft/src/Bar\n" +
+                "FD: a/c net/minecraft/src/Foo/field_1_a\n" +
+                "FD: b/c net/minecraft/src/Bar/field_2_b\n" +
+                "FD: b/d net/minecraft/src/Bar/field_3_c\n" +
+                "MD: a/d (Lb;)V net/minecraft/src/Foo/func_1_a (Lnet/minecraft/src/Bar;)V\n" +
+                "MD: b/e ()V net/minecraft/src/Bar/func_2_b ()V\n" +
+                "MD: a/f ()V net/minecraft/src/Foo/func_3_c ()V\n");
+        write(new File(mcpDir, "fields.csv"), "searge,name,side,desc\n" +
+                "field_1_a,count,0,\n" +
+                "field_2_b,count,2,\n");
+        write(new File(mcpDir, "methods.csv"), "searge,name,side,desc\n" +
+                "func_1_a,run,0,\n" +
+                "func_2_b,run,1,\n" +
+                "func_3_c,run,0,\n");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            BLConfigGen.generate(mcpDir, outDir, executor, new StringPool());
+        } finally {
+            executor.shutdown();
+        }
+        File generated = new File(outDir, "minecraft_client.obf");
+        DirectOBFTableSRG materialized = new DirectOBFTableSRG();
+        new BLOBFParser().loadEntries(generated, materialized, true);
+
+        DirectOBFTable srg = new DirectOBFTable();
+        new SRGFileParser("C", false).loadEntries(new File(mcpDir, "joined.srg"), srg, false);
+        DirectOBFTable mcp = new DirectOBFTable();
+        new MCPCSVFileParser(TargetType.FIELD, true, 1).loadEntries(new File(mcpDir, "fields.csv"), mcp, true);
+        new MCPCSVFileParser(TargetType.METHOD, true, 1).loadEntries(new File(mcpDir, "methods.csv"), mcp, true);
+        ComposedOBFTable composed = ComposedOBFTable.compose(srg, mcp);
+
+        // BLOBF files store the classes in method descriptors with '/', so compare what BLConfigGen wrote.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BLOBFParser().storeEntries(out, composed);
+        assertArrayEquals(Files.readAllBytes(generated.toPath()), out.toByteArray());
+
+        for (TargetType type : TargetType.values()) {
+            assertArrayEquals(materialized.getAllTypeObf(type), composed.getAllTypeObf(type));
+            for (String obf : composed.getAllTypeObf(type)) {
+                String deobf = composed.deobfType(obf, type);
+                assertEquals(obf, composed.obfType(deobf, type));
+                if (type != TargetType.METHOD) {
+                    assertEquals(materialized.deobfType(obf, type), deobf);
+                    assertEquals(materialized.getSRGFromObfType(obf, type), composed.getSRGFromObfType(obf, type));
+                }
+            }
+        }
+        assertEquals("net.minecraft.src.Foo.run (Lnet.minecraft.src.Bar;)V", composed.deobfMethod("a.d (Lb;)V"));
+        assertEquals("net.minecraft.src.Bar.field_3_c", composed.deobfField("b.d"));
+    }
+
+    /**
+     * An obfuscated -> searge table.
+     */
+    private static DirectOBFTable seargeTable() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addClass("a", "C_1");
+        table.addClass("b", "C_2");
+        table.addClass("c", "C_3");
+        table.addField("a.x", "C_1.field_1");
+        table.addField("b.x", "C_2.field_2");
+        table.addMethod("a.y (Lb;)V", "C_1.func_1 (LC_2;)V");
+        table.addMethod("a.z ()V", "C_1.func_2 ()V");
+        return table;
+    }
+
+    /**
+     * A searge -> MCP table, with simple names for members as in MCP CSV files.  Both methods are named "run".
+     */
+    private static DirectOBFTable mcpTable() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addClass("C_1", "net.Foo");
+        table.addClass("C_2", "net.Bar");
+        table.addField("field_1", "count");
+        table.addMethod("func_1", "run");
+        table.addMethod("func_2", "run");
+        return table;
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.util.StringPool;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ConcurrentOBFTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writingBackKeepsFileOrder() throws IOException {
+        File file = writeSRG(folder.newFile("in.srg"), 2000);
+        SRGFileParser parser = new SRGFileParser("C", false);
+
+        DirectOBFTableSRG direct = new DirectOBFTableSRG();
+        parser.loadEntries(file, direct, true);
+        final ConcurrentOBFTable concurrent = new ConcurrentOBFTable();
+        parser.loadEntries(file, concurrent, true);
+
+        File directOut = folder.newFile("direct.srg");
+        File concurrentOut = folder.newFile("concurrent.srg");
+        parser.storeEntries(directOut, direct);
+        parser.storeEntries(concurrentOut, concurrent);
+        assertArrayEquals(Files.readAllBytes(directOut.toPath()), Files.readAllBytes(concurrentOut.toPath()));
+
+        File copyOut = folder.newFile("copy.srg");
+        parser.storeEntries(copyOut, new ConcurrentOBFTable(direct));
+        assertArrayEquals(Files.readAllBytes(directOut.toPath()), Files.readAllBytes(copyOut.toPath()));
+    }
+
+    @Test
+    public void replacedMappingKeepsItsPlace() {
+        ConcurrentOBFTable table = new ConcurrentOBFTable();
+        table.addField("a.c", "net.Foo.c");
+        table.addField("a.b", "net.Foo.b");
+        table.addField("b.a", "net.Bar.a");
+        table.addField("a.a", "net.Foo.a");
+        table.addField("a.c", "net.Foo.renamed");
+
+        assertArrayEquals(new String[]{"a.c", "a.b", "b.a", "a.a"}, table.getAllTypeObf(TargetType.FIELD));
+        assertArrayEquals(new String[]{"net.Foo.renamed", "net.Foo.b", "net.Bar.a", "net.Foo.a"}, table.getAllTypeDeobf(TargetType.FIELD));
+        assertArrayEquals(new String[]{"a.c", "a.b", "a.a"}, table.getMembersObf("a", TargetType.FIELD));
+        assertArrayEquals(new String[]{"net.Foo.b", "net.Foo.a", "net.Foo.renamed"}, table.getMembersDeobf("net.Foo", TargetType.FIELD));
+
+        MappingCursor cursor = table.cursor(TargetType.FIELD);
+        StringBuilder order = new StringBuilder();
+        while (cursor.next()) {
+            order.append(cursor.getObf()).append(' ');
+        }
+        assertEquals("a.c a.b b.a a.a ", order.toString());
+    }
+
+    @Test
+    public void copyUsesStringPool() {
+        StringPool pool = new StringPool();
+        String pooled = pool.intern("net.Foo");
+        DirectOBFTable source = new DirectOBFTable();
+        source.addClass("a", new String("net.Foo"));
+
+        ConcurrentOBFTable table = new ConcurrentOBFTable(source, pool);
+        assertSame(pooled, table.deobfClass("a"));
+        assertEquals("a", table.obfClass("net.Foo"));
+    }
+
+    @Test
+    public void failedUpdateChangesNothing() {
+        ConcurrentOBFTable table = new ConcurrentOBFTable();
+        table.addClass("a", "net.Foo");
+        try {
+            table.update(new ConcurrentOBFTable.Update() {
+                @Override
+                public void apply(OBFTableSRG fork) throws IOException {
+                    fork.addClass("a", "net.Bar");
+                    fork.addClass("b", "net.Baz");
+                    throw new IOException("Stop");
+                }
+            });
+            fail("Update did not throw");
+        } catch (IOException expected) {
+            // Expected.
+        }
+        assertEquals("net.Foo", table.deobfClass("a"));
+        assertNull(table.obfClass("net.Baz"));
+        assertFalse(table.hasClassObf("b"));
+    }
+
+    /**
+     * Writes an SRG file in which every tenth record remaps an earlier obfuscated name.
+     */
+    private static File writeSRG(File file, int entries) throws IOException {
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            for (int index = 0; index < entries; index++) {
+                int obf = index % 10 == 9 ? index - 5 : index;
+                out.write("PK: p" + obf + " net/minecraft/pkg" + index + "\n");
+                out.write("CL: c" + obf + " net/minecraft/Class" + index + "\n");
+                out.write("FD: c" + obf + "/f" + obf + " net/minecraft/Class" + index + "/field_" + index + "\n");
+                out.write("MD: c" + obf + "/m" + obf + " (I)V net/minecraft/Class" + index + "/func_" + index + " (I)V\n");
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
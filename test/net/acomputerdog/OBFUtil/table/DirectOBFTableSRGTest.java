@@ -0,0 +1,138 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DirectOBFTableSRGTest {
+    private static final int RELOADS = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void remappingReplacesSeargeName() {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addFieldSRG("a.b", "field_1", "net.Foo.bar");
+        table.addFieldSRG("a.b", "field_2", "net.Foo.baz");
+
+        assertEquals("field_2", table.getSRGFromObfField("a.b"));
+        assertEquals("a.b", table.getObfFromSRGField("field_2"));
+        assertNull(table.getObfFromSRGField("field_1"));
+        assertFalse(table.hasFieldSRG("field_1"));
+        assertEquals("net.Foo.baz", table.getDeObfFromSRGField("field_2"));
+    }
+
+    @Test
+    public void sharedSeargeNameMapsBackToLastAdded() {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addMethodSRG("a.b ()V", "func_1 ()V", "net.Foo.bar ()V");
+        table.addMethodSRG("a.c ()V", "func_1 ()V", "net.Foo.bar ()V");
+        table.addMethodSRG("a.b ()V", "func_2 ()V", "net.Foo.other ()V");
+
+        assertEquals("a.c ()V", table.getObfFromSRGMethod("func_1 ()V"));
+        assertEquals("a.b ()V", table.getObfFromSRGMethod("func_2 ()V"));
+        assertTrue(table.hasMethodDeobf("net.Foo.bar ()V"));
+    }
+
+    @Test
+    public void cursorWalksSeargeNamesInStep() {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addMethodSRG("a.a ()V", "func_1", "net.Foo.run ()V");
+        table.addMethod("a.b ()V", "net.Foo.stop ()V");
+        table.addMethodSRG("a.c ()V", "func_3", "net.Foo.halt ()V");
+        table.addMethodSRG("a.a ()V", "func_4", "net.Foo.start ()V");
+
+        MappingCursor cursor = table.cursor(TargetType.METHOD);
+        StringBuilder names = new StringBuilder();
+        while (cursor.next()) {
+            names.append(cursor.getObf()).append('=').append(cursor.getSRG()).append(';');
+        }
+        assertEquals("a.a ()V=func_4;a.b ()V=net.Foo.stop ()V;a.c ()V=func_3;", names.toString());
+    }
+
+    @Test
+    public void reloadingKeepsSizeAndTimeConstant() throws IOException {
+        File file = writeSRG(folder.newFile("reload.srg"), 20000);
+        SRGFileParser parser = new SRGFileParser("C", false);
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        parser.loadEntries(file, table, true);
+        int[] sizes = sizes(table);
+
+        long[] times = new long[RELOADS];
+        for (int reload = 0; reload < RELOADS; reload++) {
+            long start = System.nanoTime();
+            parser.loadEntries(file, table, true);
+            times[reload] = System.nanoTime() - start;
+            assertEquals("Size changed on reload " + reload, Arrays.toString(sizes), Arrays.toString(sizes(table)));
+        }
+        // Compare medians so that a single GC pause or JIT compilation does not fail the test.
+        long early = median(Arrays.copyOfRange(times, 10, 30));
+        long late = median(Arrays.copyOfRange(times, RELOADS - 20, RELOADS));
+        assertTrue("Reloads slowed down from " + early + "ns to " + late + "ns", late < early * 3);
+    }
+
+    /**
+     * Writes an SRG file in which every tenth record remaps an earlier obfuscated name.
+     */
+    private static File writeSRG(File file, int entries) throws IOException {
+        Writer out = new BufferedWriter(new FileWriter(file));
+        try {
+            for (int index = 0; index < entries; index++) {
+                int obf = index % 10 == 9 ? index - 5 : index;
+                out.write("CL: c" + obf + " net/minecraft/Class" + index + "\n");
+                out.write("FD: c" + obf + "/f" + obf + " net/minecraft/Class" + index + "/field_" + index + "\n");
+                out.write("MD: c" + obf + "/m" + obf + " (I)V net/minecraft/Class" + index + "/func_" + index + " (I)V\n");
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static int[] sizes(DirectOBFTableSRG table) {
+        TargetType[] types = TargetType.values();
+        int[] sizes = new int[types.length * 3];
+        for (TargetType type : types) {
+            sizes[type.ordinal() * 3] = table.getAllTypeObf(type).length;
+            int reverse = 0;
+            Set<String> owners = new HashSet<String>();
+            for (String deobf : table.getAllTypeDeobf(type)) {
+                if (table.hasTypeDeobf(deobf, type)) {
+                    reverse++;
+                }
+                owners.add(MemberKey.ownerOf(deobf));
+            }
+            int owned = 0;
+            for (String owner : owners) {
+                owned += table.getMembersDeobf(owner, type).length;
+            }
+            sizes[type.ordinal() * 3 + 1] = reverse;
+            sizes[type.ordinal() * 3 + 2] = owned;
+        }
+        return sizes;
+    }
+
+    private static long median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
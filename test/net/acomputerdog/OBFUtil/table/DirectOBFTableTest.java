@@ -0,0 +1,115 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.MemberKey;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DirectOBFTableTest {
+
+    @Test
+    public void remappingReplacesReverseMapping() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addField("a.b", "net.Foo.bar");
+        table.addField("a.b", "net.Foo.baz");
+
+        assertEquals("net.Foo.baz", table.deobfField("a.b"));
+        assertEquals("a.b", table.obfField("net.Foo.baz"));
+        assertNull(table.obfField("net.Foo.bar"));
+        assertFalse(table.hasFieldDeobf("net.Foo.bar"));
+        assertArrayEquals(new String[]{"net.Foo.baz"}, table.getAllFieldsDeobf());
+    }
+
+    @Test
+    public void remappingMovesDeobfuscatedOwner() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addMethod("a.b (I)V", "net.Foo.bar (I)V");
+        table.addMethod("a.b (I)V", "net.Other.bar (I)V");
+
+        assertArrayEquals(new String[0], table.getMembersDeobf("net.Foo", TargetType.METHOD));
+        assertArrayEquals(new String[]{"net.Other.bar (I)V"}, table.getMembersDeobf("net.Other", TargetType.METHOD));
+        assertArrayEquals(new String[]{"a.b (I)V"}, table.getMembersObf("a", TargetType.METHOD));
+    }
+
+    @Test
+    public void reAddingSameMappingChangesNothing() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addClass("a", "net.Foo");
+        table.addClass("b", "net.Bar");
+        table.addClass("a", "net.Foo");
+
+        assertArrayEquals(new String[]{"a", "b"}, table.getAllClassesObf());
+        assertArrayEquals(new String[]{"net.Foo", "net.Bar"}, table.getAllClassesDeobf());
+        assertEquals("a", table.obfClass("net.Foo"));
+        assertArrayEquals(new String[]{"net.Foo", "net.Bar"}, table.getMembersDeobf("net", TargetType.CLASS));
+    }
+
+    @Test
+    public void reAddingSameMappingRestoresReleasedReverseMapping() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addClass("A", "n.x");
+        table.addClass("B", "n.x");
+        table.addClass("B", "n.z");
+        table.addClass("A", "n.x");
+
+        assertEquals("A", table.obfClass("n.x"));
+        assertEquals("B", table.obfClass("n.z"));
+        assertArrayEquals(new String[]{"n.z", "n.x"}, table.getMembersDeobf("n", TargetType.CLASS));
+    }
+
+    @Test
+    public void sharedDeobfuscatedNameMapsBackToLastAdded() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addField("a.b", "net.Foo.bar");
+        table.addField("a.c", "net.Foo.bar");
+
+        assertEquals("a.c", table.obfField("net.Foo.bar"));
+
+        // a.b no longer owns the reverse mapping, so remapping it must not remove it.
+        table.addField("a.b", "net.Foo.other");
+        assertEquals("a.c", table.obfField("net.Foo.bar"));
+        assertEquals("a.b", table.obfField("net.Foo.other"));
+        assertTrue(table.hasFieldDeobf("net.Foo.bar"));
+    }
+
+    @Test
+    public void remappingWithBloomFiltersKeepsNewNameVisible() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.enableBloomFilters(0.01);
+        table.addField("a.b", "net.Foo.bar");
+        table.addField("a.b", "net.Foo.baz");
+
+        assertEquals("a.b", table.obfField("net.Foo.baz"));
+        assertNull(table.obfField("net.Foo.bar"));
+    }
+
+    @Test
+    public void memberKeyIndexFollowsUpserts() {
+        DirectOBFTable table = new DirectOBFTable();
+        table.addMethod("a.b (I)V", "net.Foo.bar (I)V");
+        table.addField("a.c", "net.Foo.count");
+        table.enableMemberKeyIndex();
+        table.addMethod("a.d ()V", "net.Foo.run ()V");
+        table.addMethod("a.b (I)V", "net.Foo.baz (I)V");
+
+        MemberKey deobf = table.deobfMember(MemberKey.parse("a.b (I)V"), TargetType.METHOD);
+        assertEquals("net.Foo", deobf.getOwner());
+        assertEquals("baz", deobf.getName());
+        assertEquals("(I)V", deobf.getDesc());
+        assertSame(deobf, table.deobfMember(MemberKey.parse("a.b (I)V"), TargetType.METHOD));
+        assertEquals(MemberKey.parse("a.d ()V"), table.obfMember(new MemberKey("net.Foo", "run", "()V"), TargetType.METHOD));
+        assertEquals(MemberKey.parse("a.b (I)V"), table.obfMember(MemberKey.parse("net.Foo.baz (I)V"), TargetType.METHOD));
+        assertNull(table.obfMember(MemberKey.parse("net.Foo.bar (I)V"), TargetType.METHOD));
+        assertEquals(MemberKey.parse("net.Foo.count"), table.deobfMember(MemberKey.parse("a.c"), TargetType.FIELD));
+        assertNull(table.deobfMember(MemberKey.parse("a.x"), TargetType.FIELD));
+
+        table.disableMemberKeyIndex();
+        assertEquals(MemberKey.parse("net.Foo.baz (I)V"), table.deobfMember(MemberKey.parse("a.b (I)V"), TargetType.METHOD));
+    }
+}
@@ -0,0 +1,123 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Test;
+
+import java.util.Spliterator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FrozenOBFTableTest {
+
+    @Test
+    public void keepsMappingsAndOrder() {
+        DirectOBFTableSRG source = new DirectOBFTableSRG();
+        source.addClassSRG("b", "C_2", "net.Bar");
+        source.addClassSRG("a", "C_1", "net.Foo");
+        source.addFieldSRG("a.x", "field_1", "net.Foo.count");
+        source.addFieldSRG("b.x", "field_2", "net.Bar.count");
+        source.addFieldSRG("a.y", "field_3", "net.Foo.name");
+        FrozenOBFTable frozen = FrozenOBFTable.freeze(source);
+
+        assertEquals("net.Foo", frozen.deobfClass("a"));
+        assertEquals("b", frozen.obfClass("net.Bar"));
+        assertEquals("field_3", frozen.getSRGFromObfField("a.y"));
+        assertEquals("a.x", frozen.getObfFromSRGField("field_1"));
+        assertEquals("net.Bar.count", frozen.getDeObfFromSRGField("field_2"));
+        assertEquals("field_1", frozen.getSRGFromDeObfField("net.Foo.count"));
+        assertTrue(frozen.hasClassSRG("C_2"));
+        assertFalse(frozen.hasFieldObf("a.z"));
+        assertNull(frozen.deobfField("a.z"));
+        assertNull(frozen.obfMethod("net.Foo.run ()V"));
+
+        assertArrayEquals(new String[]{"b", "a"}, frozen.getAllClassesObf());
+        assertArrayEquals(new String[]{"net.Foo.count", "net.Bar.count", "net.Foo.name"}, frozen.getAllFieldsDeobf());
+        assertArrayEquals(new String[]{"a.x", "a.y"}, frozen.getMembersObf("a", TargetType.FIELD));
+        assertArrayEquals(new String[]{"net.Bar.count"}, frozen.getMembersDeobf("net.Bar", TargetType.FIELD));
+        assertEquals(0, frozen.getMembersObf("c", TargetType.FIELD).length);
+        assertEquals(0, frozen.getAllMethodsObf().length);
+    }
+
+    @Test
+    public void reverseLookupsFollowSource() {
+        DirectOBFTable source = new DirectOBFTable();
+        source.addMethod("a.a ()V", "net.Foo.run ()V");
+        source.addMethod("a.b ()V", "net.Foo.run ()V");
+        source.addMethod("a.c ()V", "net.Foo.stop ()V");
+        source.addMethod("a.c ()V", "net.Foo.halt ()V");
+        FrozenOBFTable frozen = FrozenOBFTable.freeze(source);
+
+        assertEquals(source.obfMethod("net.Foo.run ()V"), frozen.obfMethod("net.Foo.run ()V"));
+        assertEquals("a.c ()V", frozen.obfMethod("net.Foo.halt ()V"));
+        assertNull(frozen.obfMethod("net.Foo.stop ()V"));
+        assertFalse(frozen.hasMethodDeobf("net.Foo.stop ()V"));
+        // Without a searge name, the deobfuscated name stands in for it.
+        assertEquals("net.Foo.halt ()V", frozen.getSRGFromObfMethod("a.c ()V"));
+    }
+
+    @Test
+    public void seargeLookupsFollowSource() {
+        DirectOBFTableSRG source = new DirectOBFTableSRG();
+        source.addClassSRG("A", "s0", "n.a");
+        source.addClassSRG("B", "s0", "n.b");
+        source.addClassSRG("B", "s1", "n.b");
+        FrozenOBFTable frozen = FrozenOBFTable.freeze(source);
+
+        assertNull(source.getObfFromSRGClass("s0"));
+        assertNull(frozen.getObfFromSRGClass("s0"));
+        assertNull(frozen.getDeObfFromSRGClass("s0"));
+        assertFalse(frozen.hasClassSRG("s0"));
+        assertEquals("B", frozen.getObfFromSRGClass("s1"));
+        assertEquals("n.b", frozen.getDeObfFromSRGClass("s1"));
+        assertEquals("s0", frozen.getSRGFromObfClass("A"));
+    }
+
+    @Test
+    public void rejectsWrites() {
+        FrozenOBFTable frozen = FrozenOBFTable.freeze(new DirectOBFTable());
+        try {
+            frozen.addClass("a", "net.Foo");
+            fail("Frozen table accepted a write");
+        } catch (UnsupportedOperationException expected) {
+            // Expected.
+        }
+        try {
+            frozen.addTypeSRG("a", "C_1", "net.Foo", TargetType.CLASS);
+            fail("Frozen table accepted a write");
+        } catch (UnsupportedOperationException expected) {
+            // Expected.
+        }
+        assertFalse(frozen.hasClassObf("a"));
+        assertSame(frozen, FrozenOBFTable.freeze(frozen));
+    }
+
+    @Test
+    public void writesBackAndStreams() {
+        DirectOBFTableSRG source = new DirectOBFTableSRG();
+        for (int index = 0; index < 1000; index++) {
+            source.addFieldSRG("a.f" + index, "field_" + index, "net.Foo.f" + index);
+        }
+        FrozenOBFTable frozen = FrozenOBFTable.freeze(source);
+
+        DirectOBFTableSRG copy = new DirectOBFTableSRG();
+        frozen.writeToTable(copy, false);
+        assertArrayEquals(source.getAllFieldsObf(), copy.getAllFieldsObf());
+        assertEquals("field_500", copy.getSRGFromObfField("a.f500"));
+
+        Spliterator<Mapping> spliterator = frozen.stream(TargetType.FIELD).spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(1000, spliterator.getExactSizeIfKnown());
+        assertEquals(1000, frozen.stream(TargetType.FIELD).parallel().count());
+
+        MappingCursor cursor = frozen.cursor(TargetType.FIELD);
+        assertTrue(cursor.next());
+        assertEquals("a.f0", cursor.getObf());
+        assertEquals("field_0", cursor.getSRG());
+    }
+}
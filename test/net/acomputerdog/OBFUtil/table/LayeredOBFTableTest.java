@@ -0,0 +1,136 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LayeredOBFTableTest {
+
+    @Test
+    public void lookupsMatchCopyOfLayers() {
+        OBFTable[] layers = layers();
+        LayeredOBFTable layered = new LayeredOBFTable(layers);
+        assertSameAsCopy(layered, layers);
+
+        assertEquals("net.Foo2", layered.deobfClass("a"));
+        assertEquals("net.Bar", layered.deobfClass("b"));
+        assertEquals("net.Baz", layered.deobfClass("c"));
+        assertEquals("net.Foo2.count2", layered.deobfField("a.x"));
+        assertTrue(layered.hasClassObf("b"));
+        assertFalse(layered.hasClassObf("d"));
+    }
+
+    @Test
+    public void hidesOverriddenReverseMappings() {
+        LayeredOBFTable layered = new LayeredOBFTable(layers());
+
+        // The bottom layer maps a to net.Foo, but a higher layer maps a to net.Foo2.
+        assertNull(layered.obfClass("net.Foo"));
+        assertFalse(layered.hasClassDeobf("net.Foo"));
+        assertEquals("a", layered.obfClass("net.Foo2"));
+        assertNull(layered.obfField("net.Foo.count"));
+        assertEquals("a.x", layered.obfField("net.Foo2.count2"));
+        assertArrayEquals(new String[]{"net.Foo2.count2", "net.Foo2.name"}, sorted(layered.getAllFieldsDeobf()));
+        assertArrayEquals(new String[]{"net.Foo2.count2", "net.Foo2.name"}, sorted(layered.getMembersDeobf("net.Foo2", TargetType.FIELD)));
+    }
+
+    @Test
+    public void pushAndRemoveLayers() {
+        OBFTable[] layers = layers();
+        LayeredOBFTable layered = new LayeredOBFTable(layers[0], layers[1]);
+        assertSameAsCopy(layered, layers[0], layers[1]);
+        assertEquals("net.Foo", layered.deobfClass("a"));
+
+        layered.pushLayer(layers[2]);
+        assertSameAsCopy(layered, layers);
+        assertEquals("net.Foo2", layered.deobfClass("a"));
+
+        assertTrue(layered.removeLayer(layers[1]));
+        assertFalse(layered.removeLayer(layers[1]));
+        assertEquals(Arrays.asList(layers[0], layers[2]), layered.getLayers());
+        assertSameAsCopy(layered, layers[0], layers[2]);
+        assertNull(layered.deobfClass("c"));
+
+        // New mappings go to the top layer.
+        layered.addClass("d", "net.Qux");
+        assertEquals("net.Qux", layers[2].deobfClass("d"));
+        assertNull(layers[0].deobfClass("d"));
+        assertEquals("d", layered.obfClass("net.Qux"));
+    }
+
+    @Test
+    public void flattenKeepsSeargeNamesOfDefiningLayer() {
+        OBFTable[] layers = layers();
+        LayeredOBFTable layered = new LayeredOBFTable(layers);
+        FrozenOBFTable flat = layered.flatten();
+        assertSameAsCopy(flat, layers);
+
+        // b is only defined by the searge bottom layer.
+        assertEquals("C_2", flat.getSRGFromObfClass("b"));
+        // a is overridden by the searge top layer.
+        assertEquals("C_1b", flat.getSRGFromObfClass("a"));
+        // c is defined by a layer without searge names.
+        assertEquals("net.Baz", flat.getSRGFromObfClass("c"));
+        // a.y is defined by the bottom layer, but overridden by the middle layer without searge names.
+        assertEquals("net.Foo2.name", flat.getSRGFromObfField("a.y"));
+        assertEquals("field_1b", flat.getSRGFromObfField("a.x"));
+
+        layers[2].addClass("e", "net.Later");
+        assertNull(flat.deobfClass("e"));
+        assertEquals("net.Later", layered.deobfClass("e"));
+    }
+
+    /**
+     * A searge bottom layer, a plain middle layer, and a searge top layer, each overriding some names below it.
+     */
+    private static OBFTable[] layers() {
+        DirectOBFTableSRG bottom = new DirectOBFTableSRG();
+        bottom.addClassSRG("a", "C_1", "net.Foo");
+        bottom.addClassSRG("b", "C_2", "net.Bar");
+        bottom.addFieldSRG("a.x", "field_1", "net.Foo.count");
+        bottom.addFieldSRG("a.y", "field_2", "net.Foo.name");
+
+        DirectOBFTable middle = new DirectOBFTable();
+        middle.addClass("c", "net.Baz");
+        middle.addField("a.y", "net.Foo2.name");
+
+        DirectOBFTableSRG top = new DirectOBFTableSRG();
+        top.addClassSRG("a", "C_1b", "net.Foo2");
+        top.addFieldSRG("a.x", "field_1b", "net.Foo2.count2");
+        return new OBFTable[]{bottom, middle, top};
+    }
+
+    /**
+     * Checks a table against a copy of the layers made with writeToTable(table, true), from bottom to top.
+     */
+    private static void assertSameAsCopy(OBFTable table, OBFTable... layers) {
+        DirectOBFTable copy = new DirectOBFTable();
+        for (OBFTable layer : layers) {
+            layer.writeToTable(copy, true);
+        }
+        for (TargetType type : TargetType.values()) {
+            assertArrayEquals(copy.getAllTypeObf(type), table.getAllTypeObf(type));
+            assertArrayEquals(copy.getAllTypeDeobf(type), table.getAllTypeDeobf(type));
+            for (String obf : copy.getAllTypeObf(type)) {
+                assertEquals(copy.deobfType(obf, type), table.deobfType(obf, type));
+            }
+            for (OBFTable layer : layers) {
+                for (String deobf : layer.getAllTypeDeobf(type)) {
+                    assertEquals(copy.obfType(deobf, type), table.obfType(deobf, type));
+                }
+            }
+        }
+    }
+
+    private static String[] sorted(String[] names) {
+        Arrays.sort(names);
+        return names;
+    }
+}
@@ -0,0 +1,185 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class OBFTableMergerTest {
+    private static final int TABLES = 8;
+
+    @Test
+    public void parallelKeepMatchesSequential() {
+        assertParallelMatchesSequential(OBFTableMerger.ConflictPolicy.KEEP, tables(true));
+    }
+
+    @Test
+    public void parallelOverwriteMatchesSequential() {
+        assertParallelMatchesSequential(OBFTableMerger.ConflictPolicy.OVERWRITE, tables(true));
+    }
+
+    @Test
+    public void parallelCollectMatchesSequential() {
+        List<OBFTableMerger.Conflict> conflicts = assertParallelMatchesSequential(OBFTableMerger.ConflictPolicy.COLLECT, tables(true));
+        assertFalse(conflicts.isEmpty());
+    }
+
+    @Test
+    public void parallelFailMatchesSequential() {
+        assertParallelMatchesSequential(OBFTableMerger.ConflictPolicy.FAIL, tables(false));
+
+        OBFTable[] conflicting = tables(true);
+        for (ForkJoinPool forkJoinPool : new ForkJoinPool[]{null, new ForkJoinPool(4)}) {
+            OBFTableMerger merger = new OBFTableMerger(OBFTableMerger.ConflictPolicy.FAIL);
+            merger.setForkJoinPool(forkJoinPool);
+            try {
+                merger.merge(conflicting);
+                fail("Expected MergeConflictException");
+            } catch (MergeConflictException expected) {
+                OBFTableMerger.Conflict conflict = expected.getConflict();
+                assertFalse(conflict.getKeptDeobf().equals(conflict.getRejectedDeobf()));
+            } finally {
+                if (forkJoinPool != null) {
+                    forkJoinPool.shutdown();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelOverwriteReplaysMovedReverseMappings() {
+        DirectOBFTable table1 = new DirectOBFTable();
+        table1.addClass("C", "x.Z");
+        DirectOBFTable table2 = new DirectOBFTable();
+        table2.addClass("D", "x.W");
+        DirectOBFTable table3 = new DirectOBFTable();
+        table3.addClass("A", "x.X");
+        table3.addClass("B", "x.Y");
+        DirectOBFTable table4 = new DirectOBFTable();
+        table4.addClass("A", "x.Y");
+
+        DirectOBFTableSRG sequential = new OBFTableMerger(OBFTableMerger.ConflictPolicy.OVERWRITE).merge(table1, table2, table3, table4);
+        assertEquals("A", sequential.obfClass("x.Y"));
+        assertParallelMatchesSequential(OBFTableMerger.ConflictPolicy.OVERWRITE, new OBFTable[]{table1, table2, table3, table4});
+    }
+
+    @Test
+    public void keepAndOverwriteFollowTableOrder() {
+        OBFTable[] tables = tables(true);
+        DirectOBFTableSRG kept = new OBFTableMerger(OBFTableMerger.ConflictPolicy.KEEP).merge(tables);
+        DirectOBFTableSRG overwritten = new OBFTableMerger(OBFTableMerger.ConflictPolicy.OVERWRITE).merge(tables);
+        for (TargetType type : TargetType.values()) {
+            DirectOBFTable first = new DirectOBFTable();
+            DirectOBFTable last = new DirectOBFTable();
+            for (OBFTable table : tables) {
+                MappingCursor cursor = table.cursor(type);
+                while (cursor.next()) {
+                    if (!first.hasTypeObf(cursor.getObf(), type)) {
+                        first.addType(cursor.getObf(), cursor.getDeobf(), type);
+                    }
+                    last.addType(cursor.getObf(), cursor.getDeobf(), type);
+                }
+            }
+            assertArrayEquals(first.getAllTypeObf(type), kept.getAllTypeObf(type));
+            assertArrayEquals(last.getAllTypeObf(type), overwritten.getAllTypeObf(type));
+            for (String obf : first.getAllTypeObf(type)) {
+                assertEquals(first.deobfType(obf, type), kept.deobfType(obf, type));
+                assertEquals(last.deobfType(obf, type), overwritten.deobfType(obf, type));
+            }
+        }
+    }
+
+    @Test
+    public void collectReportsEachRejectedNameOnce() {
+        DirectOBFTable table1 = new DirectOBFTable();
+        table1.addClass("a", "net.Foo");
+        DirectOBFTable table2 = new DirectOBFTable();
+        table2.addClass("a", "net.Bar");
+        DirectOBFTable table3 = new DirectOBFTable();
+        table3.addClass("a", "net.Bar");
+        table3.addClass("b", "net.Baz");
+
+        OBFTableMerger merger = new OBFTableMerger(OBFTableMerger.ConflictPolicy.COLLECT);
+        DirectOBFTableSRG merged = merger.merge(table1, table2, table3);
+
+        assertEquals("net.Foo", merged.deobfClass("a"));
+        assertEquals("net.Baz", merged.deobfClass("b"));
+        assertEquals(1, merger.getConflicts().size());
+        assertEquals(new OBFTableMerger.Conflict(TargetType.CLASS, "a", "net.Foo", "net.Bar"), merger.getConflicts().get(0));
+    }
+
+    private static List<OBFTableMerger.Conflict> assertParallelMatchesSequential(OBFTableMerger.ConflictPolicy policy, OBFTable[] tables) {
+        OBFTableMerger sequential = new OBFTableMerger(policy);
+        DirectOBFTableSRG expected = sequential.merge(tables);
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            OBFTableMerger parallel = new OBFTableMerger(policy);
+            parallel.setForkJoinPool(forkJoinPool);
+            DirectOBFTableSRG actual = parallel.merge(tables);
+
+            assertSameTable(expected, actual);
+            assertEquals(sequential.getConflicts(), parallel.getConflicts());
+            return parallel.getConflicts();
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    private static void assertSameTable(DirectOBFTableSRG expected, DirectOBFTableSRG actual) {
+        for (TargetType type : TargetType.values()) {
+            String[] obfNames = expected.getAllTypeObf(type);
+            String[] deobfNames = expected.getAllTypeDeobf(type);
+            assertArrayEquals(obfNames, actual.getAllTypeObf(type));
+            assertArrayEquals(deobfNames, actual.getAllTypeDeobf(type));
+            for (String obf : obfNames) {
+                assertEquals(expected.deobfType(obf, type), actual.deobfType(obf, type));
+                assertEquals(expected.getSRGFromObfType(obf, type), actual.getSRGFromObfType(obf, type));
+            }
+            for (String deobf : deobfNames) {
+                assertEquals(expected.obfType(deobf, type), actual.obfType(deobf, type));
+            }
+        }
+    }
+
+    /**
+     * Creates tables that share most of their obfuscated names, and map some of them to the same deobfuscated names.
+     * Every other table has searge names.  If conflicting is true, some tables map shared names to a name of their own.
+     */
+    private static OBFTable[] tables(boolean conflicting) {
+        Random random = new Random(1234);
+        OBFTable[] tables = new OBFTable[TABLES];
+        for (int index = 0; index < TABLES; index++) {
+            DirectOBFTableSRG srgTable = index % 2 == 0 ? new DirectOBFTableSRG() : null;
+            OBFTable table = srgTable != null ? srgTable : new DirectOBFTable();
+            for (TargetType type : TargetType.values()) {
+                for (int count = 0; count < 40; count++) {
+                    int name = random.nextInt(60);
+                    String obf = type.name().toLowerCase() + name;
+                    String deobf = "net." + type.name() + name;
+                    if (name % 4 == 0) {
+                        // Several obfuscated names share a few deobfuscated names, which moves reverse mappings.
+                        deobf = "net.Shared" + type.name() + name % 3;
+                    }
+                    if (conflicting && random.nextInt(4) == 0) {
+                        deobf += "_" + index;
+                    }
+                    if (srgTable != null) {
+                        srgTable.addTypeSRG(obf, "srg_" + name + "_" + index, deobf, type);
+                    } else {
+                        table.addType(obf, deobf, type);
+                    }
+                }
+            }
+            tables[index] = table;
+        }
+        return tables;
+    }
+}
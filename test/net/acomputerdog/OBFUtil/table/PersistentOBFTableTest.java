@@ -0,0 +1,109 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersistentOBFTableTest {
+
+    @Test
+    public void forkIsIsolatedFromOriginal() {
+        PersistentOBFTable table = new PersistentOBFTable();
+        table.addFieldSRG("a.b", "field_1", "net.Foo.bar");
+        PersistentOBFTable fork = table.fork();
+
+        fork.addFieldSRG("a.b", "field_2", "net.Foo.baz");
+        fork.addFieldSRG("a.c", "field_3", "net.Foo.other");
+        table.addFieldSRG("a.d", "field_4", "net.Foo.mine");
+
+        assertEquals("net.Foo.bar", table.deobfField("a.b"));
+        assertEquals("a.b", table.getObfFromSRGField("field_1"));
+        assertFalse(table.hasFieldObf("a.c"));
+        assertEquals(2, table.size(TargetType.FIELD));
+
+        assertEquals("net.Foo.baz", fork.deobfField("a.b"));
+        assertNull(fork.getObfFromSRGField("field_1"));
+        assertFalse(fork.hasFieldObf("a.d"));
+        assertEquals(2, fork.size(TargetType.FIELD));
+        assertFalse(fork.isReadOnly());
+    }
+
+    @Test
+    public void snapshotNeverChanges() {
+        PersistentOBFTable table = new PersistentOBFTable();
+        table.addClass("a", "net.Foo");
+        PersistentOBFTable snapshot = table.snapshot();
+
+        table.addClass("a", "net.Bar");
+        table.addClass("b", "net.Baz");
+
+        assertTrue(snapshot.isReadOnly());
+        assertEquals("net.Foo", snapshot.deobfClass("a"));
+        assertEquals("a", snapshot.obfClass("net.Foo"));
+        assertNull(snapshot.obfClass("net.Bar"));
+        assertArrayEquals(new String[]{"a"}, snapshot.getAllTypeObf(TargetType.CLASS));
+        assertSame(snapshot, snapshot.snapshot());
+    }
+
+    @Test
+    public void snapshotRejectsWrites() {
+        PersistentOBFTable snapshot = new PersistentOBFTable().snapshot();
+        try {
+            snapshot.addMethod("a.b ()V", "net.Foo.bar ()V");
+            fail("Snapshot accepted a write");
+        } catch (UnsupportedOperationException expected) {
+            // Expected.
+        }
+        assertEquals(0, snapshot.size(TargetType.METHOD));
+
+        PersistentOBFTable fork = snapshot.fork();
+        fork.addMethod("a.b ()V", "net.Foo.bar ()V");
+        assertEquals("net.Foo.bar ()V", fork.deobfMethod("a.b ()V"));
+        assertEquals(0, snapshot.size(TargetType.METHOD));
+    }
+
+    @Test
+    public void cursorSeesTableAsCreated() {
+        PersistentOBFTable table = new PersistentOBFTable();
+        table.addPackage("a", "net/foo");
+        MappingCursor cursor = table.cursor(TargetType.PACKAGE);
+        table.addPackage("b", "net/bar");
+
+        assertTrue(cursor.next());
+        assertEquals("a", cursor.getObf());
+        assertFalse(cursor.next());
+        assertEquals(2, table.size(TargetType.PACKAGE));
+    }
+
+    @Test
+    public void collidingNamesAreKeptApart() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        PersistentOBFTable table = new PersistentOBFTable();
+        table.addClassSRG("Aa", "BB", "net.Foo");
+        table.addClassSRG("BB", "Aa", "net.Bar");
+        PersistentOBFTable fork = table.fork();
+        fork.addClassSRG("Aa", "C_1", "net.Baz");
+
+        assertEquals("net.Foo", table.deobfClass("Aa"));
+        assertEquals("net.Bar", table.deobfClass("BB"));
+        assertEquals("Aa", table.getObfFromSRGClass("BB"));
+        assertEquals("BB", table.getObfFromSRGClass("Aa"));
+
+        assertEquals("net.Baz", fork.deobfClass("Aa"));
+        assertEquals("net.Bar", fork.deobfClass("BB"));
+        assertNull(fork.getObfFromSRGClass("BB"));
+        assertNull(fork.obfClass("net.Foo"));
+        String[] obfNames = fork.getAllTypeObf(TargetType.CLASS);
+        Arrays.sort(obfNames);
+        assertArrayEquals(new String[]{"Aa", "BB"}, obfNames);
+    }
+}
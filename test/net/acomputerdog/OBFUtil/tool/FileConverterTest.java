@@ -0,0 +1,82 @@
+package net.acomputerdog.OBFUtil.tool;
+
+import net.acomputerdog.OBFUtil.parse.FileParser;
+import net.acomputerdog.OBFUtil.parse.types.BLOBFParser;
+import net.acomputerdog.OBFUtil.parse.types.BinaryOBFParser;
+import net.acomputerdog.OBFUtil.parse.types.MCPCSVFileParser;
+import net.acomputerdog.OBFUtil.parse.types.OBFParser;
+import net.acomputerdog.OBFUtil.parse.types.SOBFFileParser;
+import net.acomputerdog.OBFUtil.parse.types.SRGFileParser;
+import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.util.TargetType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FileConverterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void blobfRoundTripsThroughBinary() throws IOException {
+        assertRoundTrip(new BLOBFParser(), table());
+    }
+
+    @Test
+    public void srgRoundTripsThroughBinary() throws IOException {
+        assertRoundTrip(new SRGFileParser("C", false), table());
+    }
+
+    @Test
+    public void obfRoundTripsThroughBinary() throws IOException {
+        assertRoundTrip(new OBFParser(), table());
+    }
+
+    @Test
+    public void sobfRoundTripsThroughBinary() throws IOException {
+        assertRoundTrip(new SOBFFileParser(0), table());
+    }
+
+    @Test
+    public void mcpCsvRoundTripsThroughBinary() throws IOException {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addFieldSRG("a.b", "field_1_a", "count");
+        table.addFieldSRG("a.c", "field_2_b", "name");
+        assertRoundTrip(new MCPCSVFileParser(TargetType.FIELD, false, 0), table);
+    }
+
+    /**
+     * Converts a file written by a text parser to a binary snapshot and back, and checks that the bytes are unchanged.
+     */
+    private void assertRoundTrip(FileParser parser, DirectOBFTableSRG table) throws IOException {
+        File original = folder.newFile("original");
+        File snapshot = folder.newFile("snapshot.bin");
+        File converted = folder.newFile("converted");
+        parser.storeEntries(original, table);
+        assertTrue(original.length() > 0);
+
+        FileConverter.convert(parser, new BinaryOBFParser(), original, snapshot);
+        FileConverter.convert(new BinaryOBFParser(), parser, snapshot, converted);
+
+        assertArrayEquals(Files.readAllBytes(original.toPath()), Files.readAllBytes(converted.toPath()));
+    }
+
+    private static DirectOBFTableSRG table() {
+        DirectOBFTableSRG table = new DirectOBFTableSRG();
+        table.addPackageSRG("a", "net.minecraft.src", "net.minecraft.src");
+        table.addClassSRG("a.b", "net.minecraft.src.C_1_a", "net.minecraft.src.Foo");
+        table.addClassSRG("a.c", "net.minecraft.src.C_2_b", "net.minecraft.src.Bar");
+        table.addFieldSRG("a.b.c", "net.minecraft.src.C_1_a.field_1_a", "net.minecraft.src.Foo.count");
+        table.addFieldSRG("a.c.d", "net.minecraft.src.C_2_b.field_2_b", "net.minecraft.src.Bar.name");
+        table.addMethodSRG("a.b.e (I)V", "net.minecraft.src.C_1_a.func_1_a (I)V", "net.minecraft.src.Foo.run (I)V");
+        table.addMethodSRG("a.c.f ()V", "net.minecraft.src.C_2_b.func_2_b ()V", "net.minecraft.src.Bar.get ()V");
+        return table;
+    }
+}
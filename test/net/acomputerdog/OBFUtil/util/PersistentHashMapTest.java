@@ -0,0 +1,160 @@
+package net.acomputerdog.OBFUtil.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentHashMapTest {
+
+    @Test
+    public void collidingStringsAreKeptApart() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty().put("Aa", "first").put("BB", "second");
+
+        assertEquals(2, map.size());
+        assertEquals("first", map.get("Aa"));
+        assertEquals("second", map.get("BB"));
+
+        PersistentHashMap<String, String> removed = map.remove("Aa");
+        assertNull(removed.get("Aa"));
+        assertEquals("second", removed.get("BB"));
+        assertEquals("first", map.get("Aa"));
+    }
+
+    @Test
+    public void manyCollisionsMatchHashMap() {
+        Random random = new Random(25);
+        Map<Key, Integer> expected = new HashMap<Key, Integer>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int step = 0; step < 20000; step++) {
+            // Only 64 distinct hashes for 1000 keys, so most keys share a collision node.
+            Key key = new Key(random.nextInt(1000), random.nextInt(64) * 0x9E3779B9);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, step);
+                map = map.put(key, step);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertMatches(expected, map);
+    }
+
+    @Test
+    public void removingEveryKeyLeavesEmptyMap() {
+        List<Key> keys = new ArrayList<Key>();
+        for (int id = 0; id < 5000; id++) {
+            keys.add(new Key(id, id % 7 == 0 ? 42 : id * 31));
+        }
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (Key key : keys) {
+            map = map.put(key, key.id);
+        }
+        PersistentHashMap<Key, Integer> full = map;
+        Collections.shuffle(keys, new Random(25));
+        for (Key key : keys) {
+            map = map.remove(key);
+        }
+
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.size());
+        assertSame(PersistentHashMap.empty(), map);
+        assertFalse(map.iterator().hasNext());
+        assertSame(map, map.remove(keys.get(0)));
+        assertEquals(keys.size(), full.size());
+        assertEquals(Integer.valueOf(7), full.get(new Key(7, 42)));
+    }
+
+    @Test
+    public void oldVersionsAreUnchanged() {
+        PersistentHashMap<String, String> first = PersistentHashMap.<String, String>empty().put("a", "1");
+        PersistentHashMap<String, String> second = first.put("a", "2").put("b", "3");
+        PersistentHashMap<String, String> third = second.remove("a");
+
+        assertEquals("1", first.get("a"));
+        assertNull(first.get("b"));
+        assertEquals("2", second.get("a"));
+        assertNull(third.get("a"));
+        assertEquals("3", third.get("b"));
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertEquals(1, third.size());
+    }
+
+    @Test
+    public void iteratesCollisionNodeAtMaxDepth() {
+        // These hashes agree on their low 30 bits, so the trie branches at every level down to the top 2 bits, and the
+        // two keys with the full hash 0x40000001 end up in a collision node below the deepest bitmap node.
+        Key low = new Key(0, 0x00000001);
+        Key high = new Key(1, 0x40000001);
+        Key highCollision = new Key(2, 0x40000001);
+        Key top = new Key(3, 0xC0000001);
+        Map<Key, Integer> expected = new HashMap<Key, Integer>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (Key key : new Key[]{low, high, highCollision, top}) {
+            expected.put(key, key.id);
+            map = map.put(key, key.id);
+        }
+        assertMatches(expected, map);
+
+        for (Key key : new Key[]{high, low, top}) {
+            expected.remove(key);
+            map = map.remove(key);
+            assertMatches(expected, map);
+        }
+        assertSame(PersistentHashMap.empty(), map.remove(highCollision));
+    }
+
+    private static <K, V> void assertMatches(Map<K, V> expected, PersistentHashMap<K, V> map) {
+        assertEquals(expected.size(), map.size());
+        Map<K, V> iterated = new HashMap<K, V>();
+        for (Map.Entry<K, V> entry : map) {
+            assertNull("Key iterated twice: " + entry.getKey(), iterated.put(entry.getKey(), entry.getValue()));
+        }
+        assertEquals(expected, iterated);
+        for (Map.Entry<K, V> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * A key with a chosen hash.  hashCode() undoes the mixing step of PersistentHashMap, so the trie sees exactly the
+     * given hash.
+     */
+    private static final class Key {
+        private final int id;
+        private final int hash;
+
+        private Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash ^ (hash >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).id == id && ((Key) obj).hash == hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key" + id;
+        }
+    }
+}
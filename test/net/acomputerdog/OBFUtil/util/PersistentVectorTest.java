@@ -0,0 +1,144 @@
+package net.acomputerdog.OBFUtil.util;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersistentVectorTest {
+    // Enough elements for a trie of four levels.
+    private static final int SIZE = 40000;
+
+    @Test
+    public void appendsAcrossEveryLevel() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int index = 0; index < SIZE; index++) {
+            vector = vector.append(index);
+            assertEquals(index + 1, vector.size());
+        }
+        for (int index = 0; index < SIZE; index++) {
+            assertEquals(Integer.valueOf(index), vector.get(index));
+        }
+        int expected = 0;
+        for (Integer element : vector) {
+            assertEquals(Integer.valueOf(expected++), element);
+        }
+        assertEquals(SIZE, expected);
+    }
+
+    @Test
+    public void oldVersionsAreUnchanged() {
+        PersistentVector<String> first = PersistentVector.<String>empty().append("a").append("b");
+        PersistentVector<String> second = first.set(1, "c").append("d");
+
+        assertEquals(2, first.size());
+        assertEquals("b", first.get(1));
+        assertEquals(3, second.size());
+        assertEquals("c", second.get(1));
+        assertEquals("d", second.get(2));
+        assertSame(second, second.set(0, second.get(0)));
+    }
+
+    @Test
+    public void setReplacesDeepElements() {
+        PersistentVector<Integer> vector = filled(SIZE);
+        PersistentVector<Integer> changed = vector;
+        for (int index = 0; index < SIZE; index += 997) {
+            changed = changed.set(index, -index);
+        }
+        for (int index = 0; index < SIZE; index++) {
+            assertEquals(Integer.valueOf(index), vector.get(index));
+            assertEquals(Integer.valueOf(index % 997 == 0 ? -index : index), changed.get(index));
+        }
+    }
+
+    @Test
+    public void rejectsBadIndexesAndNulls() {
+        PersistentVector<String> vector = PersistentVector.<String>empty().append("a");
+        try {
+            vector.get(1);
+            fail("Read past the end");
+        } catch (IndexOutOfBoundsException expected) {
+            // Expected.
+        }
+        try {
+            vector.set(-1, "b");
+            fail("Set before the start");
+        } catch (IndexOutOfBoundsException expected) {
+            // Expected.
+        }
+        try {
+            vector.append(null);
+            fail("Appended null");
+        } catch (IllegalArgumentException expected) {
+            // Expected.
+        }
+        Iterator<String> iterator = PersistentVector.<String>empty().iterator();
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Empty iterator returned an element");
+        } catch (NoSuchElementException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void spliteratorIsSizedAndSplitsInHalf() {
+        PersistentVector<Integer> vector = filled(SIZE);
+        Spliterator<Integer> spliterator = vector.spliterator();
+        int required = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        assertEquals(required, spliterator.characteristics() & required);
+        assertEquals(SIZE, spliterator.getExactSizeIfKnown());
+
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(SIZE / 2, prefix.getExactSizeIfKnown());
+        assertEquals(SIZE / 2, spliterator.getExactSizeIfKnown());
+        assertEquals(Integer.valueOf(0), first(prefix));
+        assertEquals(Integer.valueOf(SIZE / 2), first(spliterator));
+
+        Spliterator<Integer> single = PersistentVector.<Integer>empty().append(1).spliterator();
+        assertNull(single.trySplit());
+    }
+
+    @Test
+    public void parallelStreamSeesEveryElementInOrder() {
+        PersistentVector<Integer> vector = filled(SIZE);
+        assertEquals(SIZE, StreamSupport.stream(vector.spliterator(), true).count());
+        Object[] elements = StreamSupport.stream(vector.spliterator(), true).toArray();
+        for (int index = 0; index < SIZE; index++) {
+            assertEquals(index, elements[index]);
+        }
+    }
+
+    private static Integer first(Spliterator<Integer> spliterator) {
+        final Integer[] element = new Integer[1];
+        assertTrue(spliterator.tryAdvance(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer value) {
+                element[0] = value;
+            }
+        }));
+        return element[0];
+    }
+
+    private static PersistentVector<Integer> filled(int size) {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int index = 0; index < size; index++) {
+            vector = vector.append(index);
+        }
+        return vector;
+    }
+}